@@ -88,6 +88,9 @@ INSERT INTO `forum-startup`.comments (is_deleted, likes_count, comment_id, creat
 INSERT INTO `forum-startup`.comments (is_deleted, likes_count, comment_id, created_at, deleted_at, deleted_by, parent_comment_id, post_id, updated_at, user_id, content) VALUES (false, 0, 5, '2025-12-05 09:45:10.000000', null, null, null, 4, null, 1, 'This could pair nicely with a productivity AI coach.');
 INSERT INTO `forum-startup`.comments (is_deleted, likes_count, comment_id, created_at, deleted_at, deleted_by, parent_comment_id, post_id, updated_at, user_id, content) VALUES (false, 0, 6, '2025-12-05 09:45:10.000000', null, null, null, 5, null, 2, 'As a founder, I would absolutely pay for this.');
 INSERT INTO `forum-startup`.comments (is_deleted, likes_count, comment_id, created_at, deleted_at, deleted_by, parent_comment_id, post_id, updated_at, user_id, content) VALUES (false, 0, 7, '2025-12-05 09:45:10.000000', null, null, null, 6, null, 1, 'Brilliant idea — founders suck at pitch deck clarity.');
+-- Denormalized comment counters
+
+UPDATE `forum-startup`.posts p SET p.comments_count = (SELECT COUNT(*) FROM `forum-startup`.comments c WHERE c.post_id = p.post_id AND c.is_deleted = 0);
 
 -- Post Likes
 
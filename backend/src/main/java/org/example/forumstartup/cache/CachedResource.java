@@ -0,0 +1,10 @@
+package org.example.forumstartup.cache;
+
+/*
+    Data behind the public read endpoints, each versioned by ResourceVersions
+ */
+public enum CachedResource {
+    POSTS,
+    TAGS,
+    USERS
+}
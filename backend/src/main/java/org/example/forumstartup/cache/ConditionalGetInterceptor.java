@@ -0,0 +1,92 @@
+package org.example.forumstartup.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Enumeration;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Answers GETs of @VersionedBy handlers from the resource versions alone:
+    a matching If-None-Match gets a 304 without the controller being called,
+    anything else gets the current ETag. The short public max-age lets a front
+    cache absorb bursts and revalidate cheaply afterwards.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final ResourceVersions resourceVersions;
+    private final String cacheControl;
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder served = new LongAdder();
+
+    public ConditionalGetInterceptor(
+            ResourceVersions resourceVersions,
+            @Value("${forum.http.cache.max-age-seconds:5}") long maxAgeSeconds
+    ) {
+        this.resourceVersions = resourceVersions;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds))
+                .cachePublic()
+                .getHeaderValue();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        VersionedBy versionedBy = method.getMethodAnnotation(VersionedBy.class);
+        boolean safe = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        if (versionedBy == null || !safe) {
+            return true;
+        }
+
+        // read before the controller runs: newer data under an older tag only costs a revalidation
+        String etag = resourceVersions.etag(versionedBy.value());
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+
+        if (matches(request.getHeaders(HttpHeaders.IF_NONE_MATCH), etag)) {
+            notModified.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        served.increment();
+        return true;
+    }
+
+    // answered with a 304, the controller was not called
+    public long notModified() {
+        return notModified.sum();
+    }
+
+    public long served() {
+        return served.sum();
+    }
+
+    /*
+        If-None-Match uses the weak comparison, a W/ prefix is ignored
+     */
+    private static boolean matches(Enumeration<String> ifNoneMatch, String etag) {
+        while (ifNoneMatch.hasMoreElements()) {
+            for (String candidate : ifNoneMatch.nextElement().split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.forumstartup.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.forumstartup.events.PostChangedEvent;
+import org.example.forumstartup.events.UserCreatedEvent;
+import org.example.forumstartup.events.UserDeletedEvent;
+import org.example.forumstartup.repositories.PostRepository;
+import org.example.forumstartup.repositories.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/*
+    Total number of posts and users for the public counters, so /count does not
+    run count(*), a full index scan on InnoDB, on every homepage view.
+
+    Seeded on startup, moved by the committed create/delete events and recounted
+    periodically to repair whatever the events missed (manual SQL, other
+    instances). The values are approximate: a write committed while a recount
+    runs may be counted twice until the next one.
+ */
+@Slf4j
+@Component
+public class EntityCounters {
+
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final ResourceVersions resourceVersions;
+
+    private final LongAdder posts = new LongAdder();
+    private final LongAdder users = new LongAdder();
+    private volatile boolean loaded;
+
+    public EntityCounters(PostRepository postRepository, UserRepository userRepository,
+                          ResourceVersions resourceVersions) {
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.resourceVersions = resourceVersions;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public long posts() {
+        return posts.sum();
+    }
+
+    public long users() {
+        return users.sum();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${forum.counters.reconcile-interval-ms:600000}",
+            fixedDelayString = "${forum.counters.reconcile-interval-ms:600000}"
+    )
+    public void reconcile() {
+        try {
+            if (reconcile(posts, postRepository::count, "posts")) {
+                resourceVersions.bump(CachedResource.POSTS);
+            }
+            if (reconcile(users, userRepository::count, "users")) {
+                resourceVersions.bump(CachedResource.USERS);
+            }
+            loaded = true;
+        } catch (RuntimeException e) {
+            log.warn("Could not recount posts and users", e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPostChanged(PostChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> posts.increment();
+            case DELETED -> posts.decrement();
+            default -> {
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserCreated(UserCreatedEvent event) {
+        users.increment();
+    }
+
+    // the user's posts are deleted along with it, deletes are rare enough to recount them
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserDeleted(UserDeletedEvent event) {
+        users.decrement();
+        try {
+            reconcile(posts, postRepository::count, "posts");
+        } catch (RuntimeException e) {
+            log.warn("Could not recount posts after deleting user {}", event.userId(), e);
+        }
+    }
+
+    /*
+        Adds the difference instead of resetting, so increments that land
+        while the count query runs are not lost. True if the counter moved.
+     */
+    private static boolean reconcile(LongAdder counter, LongSupplier count, String name) {
+        long before = counter.sum();
+        long drift = count.getAsLong() - before;
+        if (drift != 0) {
+            counter.add(drift);
+            log.debug("Recounted {}, off by {}", name, drift);
+        }
+        return drift != 0;
+    }
+}
@@ -0,0 +1,6 @@
+package org.example.forumstartup.cache;
+
+import java.time.LocalDateTime;
+
+public record PostCommentCount(Long postId, LocalDateTime createdAt, int commentsCount) {
+}
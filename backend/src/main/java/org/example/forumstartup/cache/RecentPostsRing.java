@@ -0,0 +1,232 @@
+package org.example.forumstartup.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.forumstartup.dtos.post.PostResponseDto;
+import org.example.forumstartup.events.PostChangedEvent;
+import org.example.forumstartup.events.PostLikesChangedEvent;
+import org.example.forumstartup.mappers.PostMapper;
+import org.example.forumstartup.readmodel.PostViewRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/*
+    The newest N posts, already mapped to PostResponseDto, so the landing page
+    (/api/public/posts/recent) is served without touching the database.
+
+    The ring is an immutable, newest-first snapshot swapped with compare-and-set:
+    readers never block and never see a half-applied update, writers retry on conflict.
+    It is filled on startup and kept current by re-reading a post after each
+    committed change or like; a reload racing with them merges their changes
+    into what it read.
+ */
+@Slf4j
+@Component
+public class RecentPostsRing {
+
+    private static final Comparator<PostResponseDto> NEWEST_FIRST =
+            Comparator.comparing(PostResponseDto::createdAt, Comparator.reverseOrder())
+                    .thenComparing(PostResponseDto::postId, Comparator.reverseOrder());
+
+    private final PostViewRepository postViewRepository;
+    private final PostMapper postMapper;
+    private final int capacity;
+
+    private final AtomicReference<List<PostResponseDto>> ring = new AtomicReference<>(List.of());
+    // posts being re-read, see refresh()
+    private final Map<Long, PendingReads> pendingReads = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public RecentPostsRing(
+            PostViewRepository postViewRepository,
+            PostMapper postMapper,
+            @Value("${forum.posts.recent-ring-size:100}") int capacity
+    ) {
+        this.postViewRepository = postViewRepository;
+        this.postMapper = postMapper;
+        this.capacity = capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /*
+        Pure memory read, limit is clamped to [1, capacity]
+     */
+    public List<PostResponseDto> newest(int limit) {
+        List<PostResponseDto> snapshot = ring.get();
+        int size = Math.min(Math.max(1, Math.min(limit, capacity)), snapshot.size());
+        return snapshot.subList(0, size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reload() {
+        List<PostResponseDto> seen = ring.get();
+        List<PostResponseDto> newest = postViewRepository.findNewest(capacity)
+                .stream()
+                .map(postMapper::toSimpleDto)
+                .toList();
+        update(current -> current == seen ? newest : merge(newest, seen, current));
+        loaded = true;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPostChanged(PostChangedEvent event) {
+        try {
+            switch (event.type()) {
+                case CREATED -> refresh(event.postId());
+                case DELETED -> {
+                    // the slot has to be refilled with the next older post, deletes are rare enough to reload
+                    if (contains(event.postId())) {
+                        reload();
+                    }
+                }
+                // edits never change createdAt, so only posts already in the ring matter
+                default -> refreshIfCached(event.postId());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not update recent posts ring for post {}", event.postId(), e);
+        }
+    }
+
+    /*
+        Likes re-read the post like every other change. Patching the cached count
+        with the delta would race with the re-reads: a read from before the like
+        could overwrite the patched count, or the delta be added to a count that
+        already holds it.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onLikesChanged(PostLikesChangedEvent event) {
+        try {
+            refreshIfCached(event.postId());
+        } catch (RuntimeException e) {
+            log.warn("Could not update the likes of post {} in the recent posts ring", event.postId(), e);
+        }
+    }
+
+    /*
+        A post still being read (just created) is not in the ring yet, but its
+        read may predate this change and must be superseded too
+     */
+    private void refreshIfCached(Long postId) {
+        if (contains(postId) || pendingReads.containsKey(postId)) {
+            refresh(postId);
+        }
+    }
+
+    /*
+        Reads of the same post can finish out of order, so only the one started
+        last is applied: it began after every change announced so far had
+        committed, so it saw them all. The check is part of the compare-and-set,
+        an older read cannot land after a newer one.
+     */
+    private void refresh(Long postId) {
+        long read = pendingReads.compute(postId, (id, pending) -> pending == null
+                ? new PendingReads(1, 1)
+                : new PendingReads(pending.newest() + 1, pending.running() + 1)).newest();
+        try {
+            postViewRepository.findById(postId, null)
+                    .map(postMapper::toSimpleDto)
+                    .ifPresent(dto -> update(current ->
+                            pendingReads.get(postId).newest() == read ? upsert(current, dto) : current));
+        } finally {
+            pendingReads.computeIfPresent(postId, (id, pending) -> pending.running() == 1
+                    ? null
+                    : new PendingReads(pending.newest(), pending.running() - 1));
+        }
+    }
+
+    private List<PostResponseDto> upsert(List<PostResponseDto> current, PostResponseDto dto) {
+        List<PostResponseDto> next = new ArrayList<>(current.size() + 1);
+        for (PostResponseDto p : current) {
+            if (!p.postId().equals(dto.postId())) {
+                next.add(p);
+            }
+        }
+        next.add(dto);
+        next.sort(NEWEST_FIRST);
+
+        return List.copyOf(next.size() > capacity ? next.subList(0, capacity) : next);
+    }
+
+    /*
+        The ring changed while the reload read the database: what the concurrent
+        updates wrote since `seen` wins over the rows read, which may be older,
+        and posts they removed stay removed
+     */
+    private List<PostResponseDto> merge(List<PostResponseDto> read, List<PostResponseDto> seen,
+                                        List<PostResponseDto> current) {
+        Set<PostResponseDto> unchanged = Collections.newSetFromMap(new IdentityHashMap<>());
+        unchanged.addAll(seen);
+        Set<Long> kept = new HashSet<>();
+        for (PostResponseDto p : current) {
+            kept.add(p.postId());
+        }
+
+        Map<Long, PostResponseDto> byId = new HashMap<>();
+        for (PostResponseDto p : read) {
+            byId.put(p.postId(), p);
+        }
+        for (PostResponseDto p : seen) {
+            if (!kept.contains(p.postId())) {
+                byId.remove(p.postId());
+            }
+        }
+        for (PostResponseDto p : current) {
+            if (!unchanged.contains(p)) {
+                byId.put(p.postId(), p);
+            }
+        }
+
+        List<PostResponseDto> next = new ArrayList<>(byId.values());
+        next.sort(NEWEST_FIRST);
+        return List.copyOf(next.size() > capacity ? next.subList(0, capacity) : next);
+    }
+
+    /*
+        Number of the newest read started for a post, and how many are still running
+     */
+    private record PendingReads(long newest, int running) {
+    }
+
+    private boolean contains(Long postId) {
+        for (PostResponseDto p : ring.get()) {
+            if (p.postId().equals(postId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void update(UnaryOperator<List<PostResponseDto>> change) {
+        List<PostResponseDto> current;
+        List<PostResponseDto> next;
+        do {
+            current = ring.get();
+            next = change.apply(current);
+        } while (!ring.compareAndSet(current, next));
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.forumstartup.cache;
+
+import org.example.forumstartup.events.CommentCountChangedEvent;
+import org.example.forumstartup.events.PostChangedEvent;
+import org.example.forumstartup.events.PostLikesChangedEvent;
+import org.example.forumstartup.events.TagsCreatedEvent;
+import org.example.forumstartup.events.UserChangedEvent;
+import org.example.forumstartup.events.UserCreatedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+    A version counter per CachedResource, bumped by the write events of the
+    services, from which the public endpoints derive their ETags.
+
+    Versions move in AFTER_COMPLETION, which runs once every AFTER_COMMIT listener
+    has updated its in-memory copy, so a request that sees a new version also
+    reads the new data. A rolled back write only costs clients a revalidation.
+ */
+@Component
+public class ResourceVersions {
+
+    // counters start over on restart, the epoch keeps ETags of a previous run from matching
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versions = new AtomicLongArray(CachedResource.values().length);
+
+    /*
+        Strong ETag covering the current version of every given resource
+     */
+    public String etag(CachedResource... resources) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch);
+        for (CachedResource resource : resources) {
+            etag.append('-')
+                    .append(resource.name().charAt(0))
+                    .append(versions.get(resource.ordinal()));
+        }
+        return etag.append('"').toString();
+    }
+
+    public void bump(CachedResource... resources) {
+        for (CachedResource resource : resources) {
+            versions.incrementAndGet(resource.ordinal());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onPostChanged(PostChangedEvent event) {
+        bump(CachedResource.POSTS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onPostLikesChanged(PostLikesChangedEvent event) {
+        bump(CachedResource.POSTS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onCommentCountChanged(CommentCountChangedEvent event) {
+        bump(CachedResource.POSTS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onTagsCreated(TagsCreatedEvent event) {
+        bump(CachedResource.TAGS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onUserCreated(UserCreatedEvent event) {
+        bump(CachedResource.USERS);
+    }
+
+    // usernames are shown on posts, and deleted users take their posts along
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onUserChanged(UserChangedEvent event) {
+        bump(CachedResource.USERS, CachedResource.POSTS);
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.forumstartup.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.forumstartup.events.TagsCreatedEvent;
+import org.example.forumstartup.models.Tag;
+import org.example.forumstartup.repositories.TagRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+    Every tag name with its id, plus the names in alphabetical order for listing.
+
+    Tags are never renamed or deleted and there are few of them, so the whole
+    table lives in memory: an immutable snapshot swapped on every change.
+    Filled on startup and extended after commit by TagsCreatedEvents. Tags
+    created by other instances are picked up by re-reading the table every
+    `refresh-interval-ms`; until then a name missing here is looked up in the
+    database, but listings do not show it yet.
+ */
+@Slf4j
+@Component
+public class TagDictionary {
+
+    private final TagRepository tagRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), List.of());
+
+    public TagDictionary(TagRepository tagRepository) {
+        this.tagRepository = tagRepository;
+    }
+
+    /*
+        Id of a normalized tag name, empty when unknown
+     */
+    public Optional<Long> idOf(String name) {
+        return Optional.ofNullable(snapshot.ids.get(name));
+    }
+
+    /*
+        Name of a tag id, or null when unknown
+     */
+    public String nameOf(Long id) {
+        return snapshot.names.get(id);
+    }
+
+    public List<String> sortedNames() {
+        return snapshot.sortedNames;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reload() {
+        Map<String, Long> ids = new HashMap<>();
+        for (Tag tag : tagRepository.findAll()) {
+            ids.put(tag.getName(), tag.getId());
+        }
+        snapshot = Snapshot.of(ids);
+        log.info("Loaded {} tags", ids.size());
+    }
+
+    /*
+        Adds the tags other instances created. Nothing is ever removed, so unlike
+        reload() this cannot drop a tag added while the table was being read.
+     */
+    @Scheduled(
+            initialDelayString = "${forum.tags.refresh-interval-ms:60000}",
+            fixedDelayString = "${forum.tags.refresh-interval-ms:60000}"
+    )
+    @Transactional(readOnly = true)
+    public void refresh() {
+        try {
+            Map<String, Long> ids = new HashMap<>();
+            for (Tag tag : tagRepository.findAll()) {
+                ids.put(tag.getName(), tag.getId());
+            }
+            addAll(ids);
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh tags", e);
+        }
+    }
+
+    /*
+        Names read from the database are committed rows, they may be added right away
+     */
+    public void addAll(Map<String, Long> idsByName) {
+        if (idsByName.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            Snapshot current = snapshot;
+            if (current.ids.keySet().containsAll(idsByName.keySet())) {
+                return;
+            }
+            Map<String, Long> ids = new HashMap<>(current.ids);
+            ids.putAll(idsByName);
+            snapshot = Snapshot.of(ids);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTagsCreated(TagsCreatedEvent event) {
+        addAll(event.idsByName());
+    }
+
+    private record Snapshot(Map<String, Long> ids, Map<Long, String> names, List<String> sortedNames) {
+
+        private static Snapshot of(Map<String, Long> ids) {
+            Map<Long, String> names = new HashMap<>();
+            ids.forEach((name, id) -> names.put(id, name));
+            List<String> sorted = new ArrayList<>(ids.keySet());
+            sorted.sort(null);
+            return new Snapshot(Map.copyOf(ids), Map.copyOf(names), List.copyOf(sorted));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.example.forumstartup.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.forumstartup.events.CommentCountChangedEvent;
+import org.example.forumstartup.events.PostChangedEvent;
+import org.example.forumstartup.repositories.PostRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/*
+    Incrementally maintained "most commented posts" ranking
+    (comments_count desc, createdAt desc, id desc), capped at `capacity` entries.
+
+    Only the head of the ranking is tracked, with the invariant that every
+    untracked post ranks after every tracked one. Updates that cannot keep that
+    invariant drop the entry instead; if the board then gets shorter than a
+    caller needs, it is reloaded from the indexed comments_count column.
+ */
+@Slf4j
+@Component
+public class TopCommentedLeaderboard {
+
+    private static final Comparator<PostCommentCount> RANKING =
+            Comparator.comparingInt(PostCommentCount::commentsCount).reversed()
+                    .thenComparing(PostCommentCount::createdAt, Comparator.reverseOrder())
+                    .thenComparing(PostCommentCount::postId, Comparator.reverseOrder());
+
+    private final PostRepository postRepository;
+    private final ResourceVersions resourceVersions;
+    private final int capacity;
+
+    private final TreeSet<PostCommentCount> ranking = new TreeSet<>(RANKING);
+    private final Map<Long, PostCommentCount> byPost = new HashMap<>();
+
+    private boolean loaded;
+    // true when the board holds every post there is
+    private boolean exhaustive;
+
+    public TopCommentedLeaderboard(
+            PostRepository postRepository,
+            ResourceVersions resourceVersions,
+            @Value("${forum.posts.top-commented-size:50}") int capacity
+    ) {
+        this.postRepository = postRepository;
+        this.resourceVersions = resourceVersions;
+        this.capacity = capacity;
+    }
+
+    /*
+        Post ids of the `limit` most commented posts, best first
+     */
+    public synchronized List<Long> top(int limit) {
+        int wanted = Math.min(limit, capacity);
+        if (!loaded || (!exhaustive && ranking.size() < wanted)) {
+            reload();
+        }
+
+        List<Long> ids = new ArrayList<>(wanted);
+        for (PostCommentCount entry : ranking) {
+            if (ids.size() == wanted) {
+                break;
+            }
+            ids.add(entry.postId());
+        }
+        return ids;
+    }
+
+    /*
+        Reloads the board from comments_count, e.g. after it was repaired, and
+        moves the POSTS version if the ranking or a count on it changed
+     */
+    public synchronized void invalidate() {
+        List<PostCommentCount> before = loaded ? new ArrayList<>(ranking) : null;
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Could not reload top commented leaderboard", e);
+            loaded = false;
+            return;
+        }
+        if (!new ArrayList<>(ranking).equals(before)) {
+            resourceVersions.bump(CachedResource.POSTS);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public synchronized void onCommentCountChanged(CommentCountChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+
+        // read after the commit and under the lock, so a listener running late cannot store an older count
+        try {
+            postRepository.findCommentCountById(event.postId())
+                    .ifPresentOrElse(this::offer, () -> drop(event.postId()));
+        } catch (RuntimeException e) {
+            log.warn("Could not update top commented leaderboard for post {}", event.postId(), e);
+            loaded = false;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public synchronized void onPostChanged(PostChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+
+        try {
+            switch (event.type()) {
+                case DELETED -> drop(event.postId());
+                case CREATED -> {
+                    // a new post has no comments, it can only enter a board whose tail has none either
+                    if (exhaustive || ranking.isEmpty() || ranking.last().commentsCount() == 0) {
+                        postRepository.findCommentCountById(event.postId()).ifPresent(this::offer);
+                    }
+                }
+                default -> {
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not update top commented leaderboard for post {}", event.postId(), e);
+            loaded = false;
+        }
+    }
+
+    private void reload() {
+        List<PostCommentCount> top = postRepository.findTopCommented(PageRequest.of(0, capacity));
+
+        ranking.clear();
+        byPost.clear();
+        for (PostCommentCount entry : top) {
+            ranking.add(entry);
+            byPost.put(entry.postId(), entry);
+        }
+        exhaustive = top.size() < capacity;
+        loaded = true;
+    }
+
+    private void offer(PostCommentCount entry) {
+        boolean tracked = drop(entry.postId());
+
+        if (exhaustive) {
+            add(entry);
+            return;
+        }
+
+        if (ranking.isEmpty() || RANKING.compare(entry, ranking.last()) >= 0) {
+            // ranks at or after the tail: untracked posts could be ahead of it, leave it out
+            if (tracked) {
+                log.debug("Post {} fell out of the tracked top commented posts", entry.postId());
+            }
+            return;
+        }
+        add(entry);
+    }
+
+    private void add(PostCommentCount entry) {
+        ranking.add(entry);
+        byPost.put(entry.postId(), entry);
+
+        if (ranking.size() > capacity) {
+            PostCommentCount evicted = ranking.pollLast();
+            byPost.remove(evicted.postId());
+            exhaustive = false;
+        }
+    }
+
+    private boolean drop(Long postId) {
+        PostCommentCount existing = byPost.remove(postId);
+        if (existing == null) {
+            return false;
+        }
+        ranking.remove(existing);
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.forumstartup.cache;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+    Marks a GET handler whose response only changes when one of these resources
+    does, so ConditionalGetInterceptor can answer it with ETags
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface VersionedBy {
+
+    CachedResource[] value();
+}
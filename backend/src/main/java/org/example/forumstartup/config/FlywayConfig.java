@@ -0,0 +1,23 @@
+package org.example.forumstartup.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+    The schema is owned by the migrations in resources/db/migration.
+
+    V1 is the old db/schema.sql as it was released. A non-empty database
+    without a history table was created from that file, so it is baselined at
+    V1 and gets every later migration, V2 adds comments_count and the indexes.
+ */
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayConfigurationCustomizer baselineExistingSchema() {
+        return configuration -> configuration
+                .baselineOnMigrate(true)
+                .baselineVersion("1");
+    }
+}
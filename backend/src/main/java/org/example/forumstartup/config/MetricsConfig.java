@@ -0,0 +1,48 @@
+package org.example.forumstartup.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Latency histograms for the timers of the hot paths: requests per route,
+    service and repository calls, authentication and the wait for a pooled
+    connection. Exported as Prometheus buckets, so percentiles can be
+    aggregated over instances and time, plus client-side p50/p95/p99.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final List<String> HISTOGRAMS = List.of(
+            "http.server.requests",
+            "forum.service.calls",
+            "spring.data.repository.invocations",
+            "forum.auth.filter",
+            "hikaricp.connections.acquire"
+    );
+
+    @Bean
+    public MeterFilter latencyHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!HISTOGRAMS.contains(id.getName())) {
+                    return config;
+                }
+                // 100µs to 10s keeps it to about 75 buckets per timer
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .percentiles(0.5, 0.95, 0.99)
+                        .minimumExpectedValue((double) TimeUnit.MICROSECONDS.toNanos(100))
+                        .maximumExpectedValue((double) TimeUnit.SECONDS.toNanos(10))
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.forumstartup.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.forumstartup.monitoring.QueryCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+    Hooks QueryCounter into Hibernate: as the statement inspector of every
+    session, and as a listener of entity and lazy collection loads
+ */
+@Configuration
+public class QueryCountingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(QueryCounter queryCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+    }
+
+    @Bean
+    public SmartInitializingSingleton loadListenerRegistration(
+            EntityManagerFactory entityManagerFactory,
+            QueryCounter queryCounter
+    ) {
+        return () -> {
+            EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .requireService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_LOAD, queryCounter);
+            registry.appendListeners(EventType.INIT_COLLECTION, queryCounter);
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.forumstartup.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/*
+    Enables the periodic maintenance jobs in the jobs package
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,6 +1,7 @@
 package org.example.forumstartup.config;
 
 import org.example.forumstartup.security.JwtAuthenticationFilter;
+import org.example.forumstartup.security.ScrapeTokenFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -57,7 +58,8 @@ public class SecurityConfig {
     public SecurityFilterChain apiFilterChain(
             AuthenticationProvider authenticationProvider,
             HttpSecurity http,
-            JwtAuthenticationFilter jwtFilter
+            JwtAuthenticationFilter jwtFilter,
+            ScrapeTokenFilter scrapeTokenFilter
     ) throws Exception {
         http
                 .securityMatcher("/api/**")                               // apply only to API URLs
@@ -67,11 +69,13 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/public/**").permitAll()
                         .requestMatchers("/api/private/**").hasRole("USER")
+                        .requestMatchers(ScrapeTokenFilter.SCRAPE_PATH).hasAnyRole("ADMIN", "METRICS")
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .anyRequest().denyAll()
                 )
                 .authenticationProvider(authenticationProvider)
-                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(scrapeTokenFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 }
@@ -0,0 +1,22 @@
+package org.example.forumstartup.config;
+
+import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.cache.ConditionalGetInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/*
+    ETags and Cache-Control for the public read endpoints
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGetInterceptor).addPathPatterns("/api/public/**");
+    }
+}
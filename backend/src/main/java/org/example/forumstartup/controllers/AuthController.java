@@ -8,6 +8,7 @@ import org.example.forumstartup.dtos.auth.RegisterUserDto;
 import org.example.forumstartup.dtos.user.UserResponseDto;
 import org.example.forumstartup.models.User;
 import org.example.forumstartup.security.JwtUtils;
+import org.example.forumstartup.security.TokenRevocations;
 import org.example.forumstartup.services.UserService;
 import org.example.forumstartup.mappers.UserMapper;
 import org.example.forumstartup.utils.AuthenticationUtils;
@@ -32,6 +33,7 @@ public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwt;
+    private final TokenRevocations revocations;
     private final UserService userService;
     private final UserMapper mapper;
     private final AuthenticationUtils authenticationUtils;
@@ -55,6 +57,7 @@ public class AuthController {
         User user = userService.getUserByUsername(dto.username());
 
         String token = jwt.generateToken(
+                user.getId(),
                 user.getUsername(),
                 user.getRoles().stream().map(r -> r.getName().name()).collect(Collectors.toSet())
         );
@@ -88,7 +91,17 @@ public class AuthController {
 
     @PostMapping("private/auth/logout")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Void> logout(HttpServletResponse response) {
+    public ResponseEntity<Void> logout(
+            @CookieValue(name = "jwt", required = false) String token,
+            HttpServletResponse response
+    ) {
+
+        /*
+            The token stays valid until it expires, revoke it so a copy of it is useless too
+         */
+        if (token != null) {
+            jwt.parse(token).ifPresent(revocations::revoke);
+        }
 
         /*
             Clear the JWT cookie by setting one that expires immediately
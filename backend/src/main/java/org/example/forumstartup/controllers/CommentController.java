@@ -2,12 +2,18 @@ package org.example.forumstartup.controllers;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.dtos.comment.CommentLikesResponseDto;
+import org.example.forumstartup.dtos.comment.CommentRepliesCountDto;
 import org.example.forumstartup.dtos.comment.CommentResponseDto;
+import org.example.forumstartup.dtos.comment.CommentThreadNodeDto;
+import org.example.forumstartup.dtos.comment.CommentTreeEntryDto;
 import org.example.forumstartup.dtos.comment.CreateCommentDto;
 import org.example.forumstartup.dtos.comment.UpdateCommentDto;
+import org.example.forumstartup.dtos.common.CursorPageDto;
 import org.example.forumstartup.mappers.CommentMapper;
 import org.example.forumstartup.models.Comment;
 import org.example.forumstartup.models.User;
+import org.example.forumstartup.monitoring.QueryBudget;
 import org.example.forumstartup.services.CommentService;
 import org.example.forumstartup.utils.AuthenticationUtils;
 import org.example.forumstartup.utils.PageableUtils;
@@ -37,6 +43,7 @@ public class CommentController {
     /* ================= Public ================= */
 
     @GetMapping("/private/posts/{postId}/comments")
+    @QueryBudget(3)
     public ResponseEntity<Page<CommentResponseDto>> listByPost(
             @PathVariable Long postId,
             @RequestParam(defaultValue = "0") int page,
@@ -48,6 +55,50 @@ public class CommentController {
         return ResponseEntity.ok(comments.map(mapper::toDto));
     }
 
+    // oldest first, pass nextCursor of the previous page to continue
+    @GetMapping("/private/posts/{postId}/comments/feed")
+    @QueryBudget(2)
+    public ResponseEntity<CursorPageDto<CommentResponseDto>> feedByPost(
+            @PathVariable Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        CursorPageDto<Comment> comments = commentService.listCommentsByPost(postId, cursor, size);
+        return ResponseEntity.ok(comments.map(mapper::toDto));
+    }
+
+    /*
+        Reply tree of a post. Without parentId it pages the top-level comments,
+        with it the replies of that comment (a repliesCursor or a depth cut-off
+        of a previous response). depth counts the levels returned, the first included.
+     */
+    @GetMapping("/private/posts/{postId}/comments/thread")
+    public ResponseEntity<CursorPageDto<CommentThreadNodeDto>> thread(
+            @PathVariable Long postId,
+            @RequestParam(required = false) Long parentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "3") int depth,
+            @RequestParam(defaultValue = "5") int replies
+    ) {
+        return ResponseEntity.ok(commentService.getThread(postId, parentId, cursor, size, depth, replies));
+    }
+
+    // depth-first, pass nextCursor of the previous page to continue
+    @GetMapping("/private/comments/{id}/subtree")
+    public ResponseEntity<CursorPageDto<CommentTreeEntryDto>> subtree(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(commentService.getSubtree(id, cursor, size));
+    }
+
+    @GetMapping("/private/comments/{id}/replies/count")
+    public ResponseEntity<CommentRepliesCountDto> countReplies(@PathVariable Long id) {
+        return ResponseEntity.ok(new CommentRepliesCountDto(id, commentService.countReplies(id)));
+    }
+
     /* ================= Private ================= */
 
     @PostMapping("/private/posts/{postId}/comments")
@@ -94,17 +145,17 @@ public class CommentController {
 
     @PostMapping("/private/comments/{id}/likes")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<CommentResponseDto> like(@PathVariable Long id) {
+    public ResponseEntity<CommentLikesResponseDto> like(@PathVariable Long id) {
         User user = authenticationUtils.getAuthenticatedUser();
-        Comment c = commentService.likeComment(id, user);
-        return ResponseEntity.ok(mapper.toDto(c));
+        int likesCount = commentService.likeComment(id, user);
+        return ResponseEntity.ok(new CommentLikesResponseDto(id, likesCount, true));
     }
 
     @DeleteMapping("/private/comments/{id}/likes")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<CommentResponseDto> unlike(@PathVariable Long id) {
+    public ResponseEntity<CommentLikesResponseDto> unlike(@PathVariable Long id) {
         User user = authenticationUtils.getAuthenticatedUser();
-        Comment c = commentService.unlikeComment(id, user);
-        return ResponseEntity.ok(mapper.toDto(c));
+        int likesCount = commentService.unlikeComment(id, user);
+        return ResponseEntity.ok(new CommentLikesResponseDto(id, likesCount, false));
     }
 }
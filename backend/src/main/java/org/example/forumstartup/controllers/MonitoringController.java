@@ -0,0 +1,99 @@
+package org.example.forumstartup.controllers;
+
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.monitoring.EndpointQueryStats;
+import org.example.forumstartup.monitoring.ProfilingRecorder;
+import org.example.forumstartup.monitoring.QueryStatistics;
+import org.example.forumstartup.monitoring.RecordingStatus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/monitoring")
+@RequiredArgsConstructor
+@CrossOrigin(
+        origins = "http://localhost:5173",
+        allowCredentials = "true"
+)
+public class MonitoringController {
+
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final QueryStatistics queryStatistics;
+    private final ObjectProvider<PrometheusMeterRegistry> prometheusRegistry;
+    private final ProfilingRecorder profilingRecorder;
+
+    /**
+     * SQL statements and entity loads per endpoint, most expensive first
+     */
+    @GetMapping("/queries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<EndpointQueryStats>> getQueryStats() {
+        return ResponseEntity.ok(queryStatistics.snapshot());
+    }
+
+    /**
+     * Start counting again, e.g. before measuring a change
+     */
+    @DeleteMapping("/queries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> resetQueryStats() {
+        queryStatistics.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Every meter in the Prometheus text format, for a scraper sending the
+     * forum.metrics.scrape-token as bearer token (see ScrapeTokenFilter)
+     */
+    @GetMapping(value = "/prometheus", produces = PROMETHEUS_TEXT)
+    @PreAuthorize("hasAnyRole('ADMIN', 'METRICS')")
+    public ResponseEntity<String> scrape() {
+        PrometheusMeterRegistry registry = prometheusRegistry.getIfAvailable();
+        if (registry == null) {
+            // management.prometheus.metrics.export.enabled=false
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(registry.scrape());
+    }
+
+    /**
+     * Start a JFR recording of this node, it stops by itself after `seconds`
+     */
+    @PostMapping("/recording")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RecordingStatus> startRecording(@RequestParam(defaultValue = "60") long seconds) {
+        return ResponseEntity.ok(profilingRecorder.start(Duration.ofSeconds(seconds)));
+    }
+
+    @GetMapping("/recording")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RecordingStatus> getRecording() {
+        return ResponseEntity.ok(profilingRecorder.status());
+    }
+
+    /**
+     * Stop the recording if still running and download it as a .jfr file
+     */
+    @PostMapping("/recording/stop")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Resource> stopRecording() {
+        ProfilingRecorder.RecordingDump dump = profilingRecorder.stop();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(dump.fileName()).build().toString())
+                .body(new InputStreamResource(dump.data()));
+    }
+}
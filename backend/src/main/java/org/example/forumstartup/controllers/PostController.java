@@ -5,15 +5,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.cache.CachedResource;
+import org.example.forumstartup.cache.VersionedBy;
+import org.example.forumstartup.dtos.common.CursorPageDto;
 import org.example.forumstartup.dtos.post.PostCreateDto;
 import org.example.forumstartup.dtos.post.PostResponseDto;
 import org.example.forumstartup.dtos.post.PostUpdateDto;
 import org.example.forumstartup.dtos.post.PostWithLikeStatusResponseDto;
 import org.example.forumstartup.dtos.tags.AddTagsDto;
 import org.example.forumstartup.dtos.tags.RemoveTagDto;
+import org.example.forumstartup.dtos.tags.TagFacetsResponseDto;
+import org.example.forumstartup.enums.TagMatch;
 import org.example.forumstartup.mappers.PostMapper;
 import org.example.forumstartup.models.Post;
 import org.example.forumstartup.models.User;
+import org.example.forumstartup.monitoring.QueryBudget;
 import org.example.forumstartup.services.PostService;
 import org.example.forumstartup.utils.AuthenticationUtils;
 import org.springframework.data.domain.Page;
@@ -26,6 +32,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.example.forumstartup.utils.PageableUtils.parseSort;
 
@@ -44,6 +51,7 @@ public class PostController {
     private final PostMapper postMapper;
 
     @GetMapping("/public/posts/count")
+    @VersionedBy(CachedResource.POSTS)
     public ResponseEntity<?> getTotalUserCount() {
         return ResponseEntity
                 .status(HttpStatus.OK)
@@ -51,23 +59,25 @@ public class PostController {
     }
 
     @GetMapping("/public/posts/recent")
+    @VersionedBy(CachedResource.POSTS)
     @Operation(summary = "Get most recent posts")
     public ResponseEntity<List<PostResponseDto>> getRecent(
             @RequestParam(defaultValue = "10") int limit
     ) {
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(postMapper.toSimpleDtoList(service.mostRecent(limit)));
+                .body(service.mostRecent(limit));
     }
 
     @GetMapping("/public/posts/top-commented")
+    @VersionedBy(CachedResource.POSTS)
     @Operation(summary = "Get most commented posts")
     public ResponseEntity<List<PostResponseDto>> topCommented(
             @RequestParam(defaultValue = "10") int limit
     ) {
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(postMapper.toSimpleDtoList(service.topCommented(limit)));
+                .body(service.topCommented(limit));
     }
 
     @GetMapping("/public/posts/search")
@@ -78,7 +88,7 @@ public class PostController {
     ) {
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(postMapper.toSimpleDtoList(service.search(query, limit)));
+                .body(service.search(query, limit));
     }
 
 // ===================== PRIVATE READ ENDPOINTS =====================
@@ -90,16 +100,42 @@ public class PostController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             @RequestParam(defaultValue = "createdAt,desc") String sort,
-            @RequestParam(required = false) String searchQuery
+            @RequestParam(required = false) String searchQuery,
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(defaultValue = "ALL") TagMatch match,
+            @RequestParam(defaultValue = "false") boolean excerpt
     ) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(parseSort(sort)));
-
-        Page<Post> posts = service.filterPosts(searchQuery, pageable);
         User current = authenticationUtils.getAuthenticatedUser();
 
-        return ResponseEntity.ok(
-                posts.map(p -> postMapper.toAuthenticatedDto(p, current))
-        );
+        return ResponseEntity.ok(service.filterPosts(searchQuery, tags, match, pageable, current, excerpt));
+    }
+
+    @Operation(
+            summary = "Tag facets",
+            description = "Number of posts per tag among the posts carrying all (or any) of the selected tags."
+    )
+    @GetMapping("/private/posts/tag-facets")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<TagFacetsResponseDto> tagFacets(
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(defaultValue = "ALL") TagMatch match,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(service.tagFacets(tags, match, limit));
+    }
+
+    @Operation(summary = "Get the post feed, newest first, paged with the cursor of the previous page")
+    @GetMapping("/private/posts/feed")
+    @QueryBudget(2)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CursorPageDto<PostWithLikeStatusResponseDto>> feed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "false") boolean excerpt
+    ) {
+        User current = authenticationUtils.getAuthenticatedUser();
+        return ResponseEntity.ok(service.feed(cursor, size, current, excerpt));
     }
 
     @Operation(
@@ -109,14 +145,14 @@ public class PostController {
     @ApiResponse(responseCode = "200", description = "Post returned successfully")
     @ApiResponse(responseCode = "404", description = "Post not found")
     @GetMapping("/private/posts/{postId}")
+    @QueryBudget(2)
     @PreAuthorize("hasAnyRole('USER')")
     public ResponseEntity<PostWithLikeStatusResponseDto> getById(@PathVariable long postId) {
         User actingUser = authenticationUtils.getAuthenticatedUser();
-        Post post = service.getById(postId);
 
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(postMapper.toAuthenticatedDto(post, actingUser));
+                .body(service.getView(postId, actingUser));
     }
 
     @Operation(
@@ -127,13 +163,14 @@ public class PostController {
     @PreAuthorize("hasAnyRole('USER')")
     public ResponseEntity<List<PostWithLikeStatusResponseDto>> getByCreatorId(
             @PathVariable long creatorId,
-            @RequestParam(defaultValue = "10") int limit
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean excerpt
     ) {
         User actingUser = authenticationUtils.getAuthenticatedUser();
 
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(postMapper.toAuthenticatedDtoList(service.findByCreatorId(creatorId, limit), actingUser));
+                .body(service.findByCreatorId(creatorId, limit, actingUser, excerpt));
     }
 
     // ===================== PRIVATE WRITE ENDPOINTS =====================
@@ -147,7 +184,7 @@ public class PostController {
 
         return ResponseEntity
                 .status(HttpStatus.CREATED)
-                .body(postMapper.toAuthenticatedDto(created, currentUser));
+                .body(postMapper.toAuthenticatedDto(created, false));
     }
 
     @PutMapping("/private/posts/{postId}")
@@ -162,7 +199,7 @@ public class PostController {
 
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(postMapper.toAuthenticatedDto(updated, currentUser));
+                .body(postMapper.toAuthenticatedDto(updated, service.isLikedBy(postId, currentUser)));
     }
 
     @DeleteMapping("/private/posts/{postId}")
@@ -217,18 +254,28 @@ public class PostController {
                 .build();
     }
 
+    @PostMapping("/admin/posts/search-index/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Rebuild the post search index from the database")
+    public ResponseEntity<Map<String, Integer>> rebuildSearchIndex() {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(Map.of("indexedPosts", service.rebuildSearchIndex()));
+    }
+
     // ================= TAG OPERATIONS =================
 
     @GetMapping("/private/posts/by-tag/{tagName}")
     @PreAuthorize("hasAnyRole('USER')")
     public ResponseEntity<List<PostWithLikeStatusResponseDto>> getPostsByTag(
             @PathVariable String tagName,
-            @RequestParam(defaultValue = "10") int limit
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean excerpt
     ) {
         User actingUser = authenticationUtils.getAuthenticatedUser();
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(postMapper.toAuthenticatedDtoList(service.findByTag(tagName, limit), actingUser));
+                .body(service.findByTag(tagName, limit, actingUser, excerpt));
     }
 
     @PostMapping("/private/posts/{postId}/tags")
@@ -258,5 +305,4 @@ public class PostController {
                 .status(HttpStatus.NO_CONTENT)
                 .build();
     }
-
-}
\ No newline at end of file
+}
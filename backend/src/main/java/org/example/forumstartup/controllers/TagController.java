@@ -1,6 +1,8 @@
 package org.example.forumstartup.controllers;
 
 import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.cache.CachedResource;
+import org.example.forumstartup.cache.VersionedBy;
 import org.example.forumstartup.models.Tag;
 import org.example.forumstartup.services.TagService;
 import org.springframework.http.ResponseEntity;
@@ -23,15 +25,9 @@ public class TagController {
      * List all tags alphabetically
      */
     @GetMapping
+    @VersionedBy(CachedResource.TAGS)
     public ResponseEntity<List<String>> listAllTags() {
-        List<String> tags = tagService
-                .getAll()
-                .stream()
-                .map(Tag::getName)
-                .sorted()
-                .toList();
-
-        return ResponseEntity.ok(tags);
+        return ResponseEntity.ok(tagService.getAllNames());
     }
 
     /**
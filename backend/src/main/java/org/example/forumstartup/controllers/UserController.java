@@ -2,14 +2,19 @@ package org.example.forumstartup.controllers;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.cache.CachedResource;
+import org.example.forumstartup.cache.VersionedBy;
 import org.example.forumstartup.dtos.user.AdminSelfUpdateDto;
 import org.example.forumstartup.dtos.user.ProfileResponseDto;
 import org.example.forumstartup.dtos.user.UserResponseDtoForAdmin;
 import org.example.forumstartup.dtos.user.UserSelfUpdateDto;
 import org.example.forumstartup.exceptions.EntityNotFoundException;
 import org.example.forumstartup.models.User;
+import org.example.forumstartup.monitoring.QueryBudget;
 import org.example.forumstartup.services.UserService;
 import org.example.forumstartup.mappers.UserMapper;
+import org.example.forumstartup.security.PrincipalCache;
+import org.example.forumstartup.security.PrincipalCacheStats;
 import org.example.forumstartup.utils.AuthenticationUtils;
 import org.example.forumstartup.utils.PageableUtils;
 import org.springframework.data.domain.Page;
@@ -35,10 +40,12 @@ public class UserController {
     private final UserService userService;
     private final UserMapper mapper;
     private final AuthenticationUtils authenticationUtils;
+    private final PrincipalCache principalCache;
 
     /* ------------------------- User part ------------------------- */
 
     @GetMapping("/public/users/count")
+    @VersionedBy(CachedResource.USERS)
     public ResponseEntity<?> getTotalUserCount() {
         return ResponseEntity
                 .status(HttpStatus.OK)
@@ -46,9 +53,10 @@ public class UserController {
     }
 
     @GetMapping("/private/users/profile")
+    @QueryBudget(2)
     public ResponseEntity<?> getProfile() {
         try {
-            User actingUser = authenticationUtils.getAuthenticatedUser();
+            User actingUser = userService.getUserById(authenticationUtils.getAuthenticatedUser().getId());
             ProfileResponseDto response = mapper.userToProfileResponseDto(actingUser);
             return ResponseEntity.ok(response);
         } catch (EntityNotFoundException e) {
@@ -73,6 +81,12 @@ public class UserController {
 
     /* ------------------------- Admin part ------------------------- */
 
+    @GetMapping("/admin/users/principal-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PrincipalCacheStats> getPrincipalCacheStats() {
+        return ResponseEntity.ok(principalCache.stats());
+    }
+
     @GetMapping("/admin/users/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<UserResponseDtoForAdmin> getUserById(@PathVariable Long id) {
@@ -0,0 +1,11 @@
+package org.example.forumstartup.dtos.comment;
+
+/*
+    Answer to like/unlike. The count already includes the caller's change,
+    even if it has not been written to the database yet.
+ */
+public record CommentLikesResponseDto(
+        Long commentId,
+        Integer likesCount,
+        Boolean liked
+) { }
@@ -0,0 +1,9 @@
+package org.example.forumstartup.dtos.comment;
+
+/*
+    Replies at any depth below the comment
+ */
+public record CommentRepliesCountDto(
+        Long commentId,
+        long replies
+) { }
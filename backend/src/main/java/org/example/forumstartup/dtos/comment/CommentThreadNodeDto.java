@@ -0,0 +1,18 @@
+package org.example.forumstartup.dtos.comment;
+
+import java.util.List;
+
+/*
+    A comment with the first of its replies, each with their own replies
+    down to the requested depth.
+
+    replyCount is the number of direct replies, shown or not. When only some
+    are shown, repliesCursor continues after the last one; when none are shown
+    (depth limit) they are loaded with the comment's id as parentId.
+ */
+public record CommentThreadNodeDto(
+        CommentResponseDto comment,
+        List<CommentThreadNodeDto> replies,
+        int replyCount,
+        String repliesCursor
+) { }
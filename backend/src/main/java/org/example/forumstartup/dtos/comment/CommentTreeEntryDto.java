@@ -0,0 +1,10 @@
+package org.example.forumstartup.dtos.comment;
+
+/*
+    A comment of a depth-first listing. depth is relative to the listed
+    subtree, 0 for its root comment.
+ */
+public record CommentTreeEntryDto(
+        CommentResponseDto comment,
+        int depth
+) { }
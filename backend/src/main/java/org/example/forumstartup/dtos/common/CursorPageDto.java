@@ -0,0 +1,33 @@
+package org.example.forumstartup.dtos.common;
+
+import org.example.forumstartup.utils.Cursor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/*
+    One page of a keyset paginated listing. There is no total count on purpose,
+    nextCursor is null on the last page.
+ */
+public record CursorPageDto<T>(
+        List<T> items,
+        String nextCursor,
+        boolean hasNext
+) {
+    /*
+        `rows` were fetched with a limit of size + 1, the extra row only tells
+        whether another page exists
+     */
+    public static <T> CursorPageDto<T> of(List<T> rows, int size, Function<? super T, Cursor> position) {
+        if (rows.size() <= size) {
+            return new CursorPageDto<>(rows, null, false);
+        }
+
+        List<T> items = rows.subList(0, size);
+        return new CursorPageDto<>(List.copyOf(items), position.apply(items.get(size - 1)).encode(), true);
+    }
+
+    public <R> CursorPageDto<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPageDto<>(items.stream().<R>map(mapper).toList(), nextCursor, hasNext);
+    }
+}
@@ -0,0 +1,6 @@
+package org.example.forumstartup.dtos.tags;
+
+public record TagCountDto(
+        String name,
+        int posts
+) { }
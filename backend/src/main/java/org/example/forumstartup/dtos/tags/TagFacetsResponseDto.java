@@ -0,0 +1,12 @@
+package org.example.forumstartup.dtos.tags;
+
+import java.util.List;
+
+/*
+    Posts matching the selected tags, and for every other tag how many of
+    those posts carry it (most used first)
+ */
+public record TagFacetsResponseDto(
+        long matchingPosts,
+        List<TagCountDto> tags
+) { }
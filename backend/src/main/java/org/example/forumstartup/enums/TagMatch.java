@@ -0,0 +1,11 @@
+package org.example.forumstartup.enums;
+
+/*
+    How a multi-tag filter combines its tags
+ */
+public enum TagMatch {
+    // posts carrying every tag
+    ALL,
+    // posts carrying at least one of the tags
+    ANY
+}
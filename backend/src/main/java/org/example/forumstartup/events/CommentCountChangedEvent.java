@@ -0,0 +1,9 @@
+package org.example.forumstartup.events;
+
+/*
+    Published by CommentServiceImpl after a post's comments_count was adjusted.
+    Carries no count: listeners of concurrent transactions run in any order,
+    so they read the committed count themselves.
+ */
+public record CommentCountChangedEvent(Long postId) {
+}
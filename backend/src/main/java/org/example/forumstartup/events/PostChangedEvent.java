@@ -0,0 +1,16 @@
+package org.example.forumstartup.events;
+
+/*
+    Published by PostServiceImpl whenever a post is written.
+    Listeners that keep in-memory read structures in sync should
+    consume it with @TransactionalEventListener so they only see committed data.
+ */
+public record PostChangedEvent(Long postId, Type type) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        TAGS_CHANGED,
+        DELETED
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.forumstartup.events;
+
+/*
+    Published when a like or unlike actually changed likes_count.
+    Carries the delta so listeners can patch cached copies without a query.
+ */
+public record PostLikesChangedEvent(Long postId, int delta) {
+}
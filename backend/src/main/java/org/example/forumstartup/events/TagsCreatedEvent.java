@@ -0,0 +1,9 @@
+package org.example.forumstartup.events;
+
+import java.util.Map;
+
+/*
+    Published when tags were inserted, with their ids by normalized name
+ */
+public record TagsCreatedEvent(Map<String, Long> idsByName) {
+}
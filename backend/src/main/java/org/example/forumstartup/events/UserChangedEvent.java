@@ -0,0 +1,8 @@
+package org.example.forumstartup.events;
+
+/*
+    Published when anything authentication depends on changed for a user
+    (roles, blocked flag, username, password) or the user was deleted.
+ */
+public record UserChangedEvent(String username) {
+}
@@ -0,0 +1,7 @@
+package org.example.forumstartup.events;
+
+/*
+    Published by UserServiceImpl when an account was registered or created by an admin
+ */
+public record UserCreatedEvent(Long userId) {
+}
@@ -0,0 +1,8 @@
+package org.example.forumstartup.events;
+
+/*
+    Published by UserServiceImpl when an account was deleted, together with
+    the UserChangedEvent that evicts it from the principal cache
+ */
+public record UserDeletedEvent(Long userId) {
+}
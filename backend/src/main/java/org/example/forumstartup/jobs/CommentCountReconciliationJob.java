@@ -0,0 +1,48 @@
+package org.example.forumstartup.jobs;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.forumstartup.cache.CachedResource;
+import org.example.forumstartup.cache.ResourceVersions;
+import org.example.forumstartup.cache.TopCommentedLeaderboard;
+import org.example.forumstartup.repositories.PostRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+    Repairs drift in posts.comments_count (failed events, manual SQL, rows created
+    before the column existed) by recomputing it from the comments table,
+    one primary key range per transaction so no long locks are held.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CommentCountReconciliationJob {
+
+    private static final long BATCH_SIZE = 1000;
+
+    private final PostRepository postRepository;
+    private final TopCommentedLeaderboard leaderboard;
+    private final ResourceVersions resourceVersions;
+
+    @Scheduled(
+            initialDelayString = "${forum.jobs.comment-count-reconciliation.initial-delay-ms:60000}",
+            fixedDelayString = "${forum.jobs.comment-count-reconciliation.interval-ms:3600000}"
+    )
+    public void reconcile() {
+        long maxId = postRepository.findMaxId();
+        int repaired = 0;
+
+        for (long fromId = 0; fromId < maxId; fromId += BATCH_SIZE) {
+            repaired += postRepository.reconcileCommentsCount(fromId, fromId + BATCH_SIZE);
+        }
+
+        if (repaired > 0) {
+            log.info("Repaired comments_count of {} posts", repaired);
+            // the repaired counts are on the cached post lists
+            resourceVersions.bump(CachedResource.POSTS);
+        }
+        // also drops whatever the board got wrong since the last run
+        leaderboard.invalidate();
+    }
+}
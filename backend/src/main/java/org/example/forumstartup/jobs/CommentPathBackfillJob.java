@@ -0,0 +1,80 @@
+package org.example.forumstartup.jobs;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.forumstartup.repositories.CommentPathBatchRepository;
+import org.example.forumstartup.repositories.CommentPathBatchRepository.PendingPath;
+import org.example.forumstartup.utils.CommentPaths;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Computes comments.path for rows written before the column existed, on startup.
+
+    One pass in id order: a parent is always older than its replies, so by the time
+    a reply is reached its parent's path is either stored (earlier batch) or was
+    computed in the current batch. Every batch is written as one JDBC batch.
+    Comments created meanwhile get their path on insert, a reply below a comment
+    the pass has not reached yet builds it from the ancestors, so one pass is enough.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CommentPathBackfillJob {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final CommentPathBatchRepository repository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        int filled = backfill();
+        if (filled > 0) {
+            log.info("Backfilled the path of {} comments", filled);
+        }
+    }
+
+    public synchronized int backfill() {
+        int filled = 0;
+        int skipped = 0;
+        long afterId = 0;
+
+        List<PendingPath> batch;
+        do {
+            batch = repository.findWithoutPath(afterId, BATCH_SIZE);
+            Map<Long, String> paths = new HashMap<>();
+
+            for (PendingPath row : batch) {
+                String parentPath = row.parentPath() != null ? row.parentPath() : paths.get(row.parentId());
+                if (row.parentId() != null && parentPath == null) {
+                    // the parent could not get a path either
+                    skipped++;
+                    continue;
+                }
+
+                String path = CommentPaths.childOf(parentPath, row.commentId());
+                if (path.length() > CommentPaths.MAX_LENGTH) {
+                    skipped++;
+                    continue;
+                }
+                paths.put(row.commentId(), path);
+            }
+
+            repository.setPaths(paths);
+            filled += paths.size();
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).commentId();
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        if (skipped > 0) {
+            log.warn("{} comments are nested too deeply to get a path", skipped);
+        }
+        return filled;
+    }
+}
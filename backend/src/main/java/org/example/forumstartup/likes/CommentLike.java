@@ -0,0 +1,7 @@
+package org.example.forumstartup.likes;
+
+/*
+    One (comment, user) pair of the comments_likes join table
+ */
+public record CommentLike(Long commentId, Long userId) {
+}
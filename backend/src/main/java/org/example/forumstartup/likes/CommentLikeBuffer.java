@@ -0,0 +1,366 @@
+package org.example.forumstartup.likes;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.forumstartup.exceptions.AuthorizationException;
+import org.example.forumstartup.exceptions.EntityNotFoundException;
+import org.example.forumstartup.repositories.CommentLikeBatchRepository;
+import org.example.forumstartup.repositories.CommentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.example.forumstartup.utils.StringConstants.OWN_COMMENT_LIKE_EXCEPTION_MESSAGE;
+
+/*
+    Write-behind buffer for comment likes.
+
+    Like/unlike requests only record the wanted state of a (comment, user) pair in
+    a striped in-memory map and return the comment's like count including that
+    change. A scheduled flush writes the pairs to comments_likes in JDBC batches and
+    moves comments.likes_count by the rows that really changed, in one transaction.
+    The flush runs every `flush-interval-ms` on a thread of its own.
+
+    Pairs are striped by (comment, user), not by comment, so a viral comment spreads
+    over every stripe. Toggling a pair back before it is flushed cancels the pending
+    write. Counts of comments with buffered activity live in memory, so they already
+    include buffered changes; the database catches up within one flush interval.
+
+    Assumes this instance is the only writer of comment likes, like the other
+    in-memory caches of the application.
+ */
+@Slf4j
+@Component
+public class CommentLikeBuffer {
+
+    private final CommentRepository commentRepository;
+    private final CommentLikeBatchRepository batchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long idleMillis;
+    private final long flushIntervalMillis;
+
+    private final Stripe[] stripes;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // not the shared @Scheduled thread: a flush every few ms would delay the other jobs and be delayed by them
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "comment-like-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CommentLikeBuffer(
+            CommentRepository commentRepository,
+            CommentLikeBatchRepository batchRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${forum.comments.likes.stripes:64}") int stripes,
+            @Value("${forum.comments.likes.counter-idle-ms:60000}") long idleMillis,
+            @Value("${forum.comments.likes.flush-interval-ms:5}") long flushIntervalMillis
+    ) {
+        this.commentRepository = commentRepository;
+        this.batchRepository = batchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.idleMillis = idleMillis;
+        this.flushIntervalMillis = flushIntervalMillis;
+
+        this.stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /*
+        Returns the comment's like count after the like
+     */
+    public int like(Long commentId, Long userId) {
+        return submit(commentId, userId, true);
+    }
+
+    /*
+        Returns the comment's like count after the unlike
+     */
+    public int unlike(Long commentId, Long userId) {
+        return submit(commentId, userId, false);
+    }
+
+    /*
+        Number of (comment, user) pairs waiting to be written
+     */
+    public int pending() {
+        int pending = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                pending += stripe.pending.size() + stripe.inFlight.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return pending;
+    }
+
+    @PostConstruct
+    public void startFlushing() {
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+            evictIdleCounters();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+        if (pending() > 0) {
+            log.warn("{} comment likes could not be written before shutdown", pending());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // an exception would cancel the periodic task
+            log.error("Comment like flush failed", e);
+        }
+    }
+
+    private int submit(Long commentId, Long userId, boolean liked) {
+        Counter counter = pin(commentId);
+        counter.lastUsed = System.currentTimeMillis();
+
+        int released = 1;
+        try {
+            if (liked && counter.creatorId.equals(userId)) {
+                throw new AuthorizationException(OWN_COMMENT_LIKE_EXCEPTION_MESSAGE);
+            }
+
+            CommentLike key = new CommentLike(commentId, userId);
+            Stripe stripe = stripeFor(key);
+
+            // the stored state of a pair that is not buffered is read without holding the stripe
+            Boolean stored = null;
+            long storedAsOf = -1;
+            while (true) {
+                stripe.lock.lock();
+                try {
+                    Boolean pending = stripe.pending.get(key);
+                    Boolean inFlight = stripe.inFlight.get(key);
+                    if (pending != null || inFlight != null || (stored != null && storedAsOf == stripe.flushes)) {
+                        boolean current = pending != null ? pending : inFlight != null ? inFlight : stored;
+                        released = apply(stripe, key, counter, pending, current, liked);
+                        break;
+                    }
+                    // a flush completing before we are back may have written this pair
+                    storedAsOf = stripe.flushes;
+                } finally {
+                    stripe.lock.unlock();
+                }
+                stored = commentRepository.countLike(commentId, userId) > 0;
+            }
+            return counter.likes.get();
+        } finally {
+            counter.pins.addAndGet(-released);
+        }
+    }
+
+    /*
+        Records the wanted state, called under the stripe lock. Returns the
+        number of pins the request gives back.
+     */
+    private static int apply(Stripe stripe, CommentLike key, Counter counter, Boolean pending, boolean current, boolean liked) {
+        if (current == liked) {
+            return 1;
+        }
+        counter.likes.addAndGet(liked ? 1 : -1);
+        if (pending == null) {
+            // the pending pair keeps our pin until it is flushed
+            stripe.pending.put(key, liked);
+            return 0;
+        }
+        // toggled back before the flush, nothing left to write
+        stripe.pending.remove(key);
+        return 2;
+    }
+
+    /*
+        The comment's counter, pinned while we work on it so an idle eviction cannot
+        drop it underneath us. A missing counter is read without holding the map's
+        bin lock, which would stall every comment hashed to the same bin for the
+        whole query; if another request cached one meanwhile, that one is used.
+     */
+    private Counter pin(Long commentId) {
+        Counter loaded = null;
+        while (true) {
+            Counter candidate = loaded;
+            Counter counter = counters.compute(commentId, (id, existing) -> {
+                Counter c = existing != null ? existing : candidate;
+                if (c != null) {
+                    c.pins.incrementAndGet();
+                }
+                return c;
+            });
+            if (counter != null) {
+                return counter;
+            }
+            loaded = load(commentId);
+        }
+    }
+
+    private Counter load(Long commentId) {
+        CommentLikeTarget target = commentRepository.findLikeTarget(commentId)
+                .orElseThrow(() -> new EntityNotFoundException("Comment", "id", commentId.toString()));
+        return new Counter(target.creatorId(), target.likesCount());
+    }
+
+    private void flushPending() {
+        List<CommentLike> likes = new ArrayList<>();
+        List<CommentLike> unlikes = new ArrayList<>();
+
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                if (stripe.pending.isEmpty()) {
+                    continue;
+                }
+                stripe.inFlight = stripe.pending;
+                stripe.pending = new HashMap<>();
+                stripe.inFlight.forEach((key, liked) -> (liked ? likes : unlikes).add(key));
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        if (likes.isEmpty() && unlikes.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> applied;
+        try {
+            applied = transactionTemplate.execute(status -> batchRepository.apply(likes, unlikes));
+        } catch (RuntimeException e) {
+            log.warn("Could not flush {} comment likes, retrying with the next flush",
+                    likes.size() + unlikes.size(), e);
+            requeueInFlight();
+            return;
+        }
+
+        correctCounters(likes, unlikes, applied);
+        releaseInFlight();
+    }
+
+    /*
+        The buffer already counted every pair as a change. If the database disagrees
+        (comment deleted meanwhile, rows written by someone else) its answer wins.
+     */
+    private void correctCounters(List<CommentLike> likes, List<CommentLike> unlikes, Map<Long, Integer> applied) {
+        Map<Long, Integer> expected = new HashMap<>();
+        likes.forEach(like -> expected.merge(like.commentId(), 1, Integer::sum));
+        unlikes.forEach(unlike -> expected.merge(unlike.commentId(), -1, Integer::sum));
+
+        expected.forEach((commentId, delta) -> {
+            int drift = applied.getOrDefault(commentId, 0) - delta;
+            Counter counter = counters.get(commentId);
+            if (drift != 0 && counter != null) {
+                log.debug("Comment {} like count drifted by {}", commentId, drift);
+                counter.likes.addAndGet(drift);
+            }
+        });
+    }
+
+    private void releaseInFlight() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.inFlight.keySet().forEach(key -> unpin(key.commentId(), 1));
+                stripe.inFlight = Map.of();
+                stripe.flushes++;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private void requeueInFlight() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.inFlight.forEach((key, liked) -> {
+                    if (stripe.pending.containsKey(key)) {
+                        // toggled back while the failed write was in flight: stored state is already right
+                        stripe.pending.remove(key);
+                        unpin(key.commentId(), 2);
+                    } else {
+                        stripe.pending.put(key, liked);
+                    }
+                });
+                stripe.inFlight = Map.of();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private void unpin(Long commentId, int pins) {
+        Counter counter = counters.get(commentId);
+        if (counter != null) {
+            counter.pins.addAndGet(-pins);
+        }
+    }
+
+    private void evictIdleCounters() {
+        long idleSince = System.currentTimeMillis() - idleMillis;
+        for (Long commentId : counters.keySet()) {
+            counters.computeIfPresent(commentId, (id, counter) ->
+                    counter.pins.get() == 0 && counter.lastUsed < idleSince ? null : counter);
+        }
+    }
+
+    private Stripe stripeFor(CommentLike key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        // wanted state per pair; a pair is only present while it differs from the stored state
+        private Map<CommentLike, Boolean> pending = new HashMap<>();
+        private Map<CommentLike, Boolean> inFlight = Map.of();
+        // completed flushes, a stored state read before one may be outdated
+        private long flushes;
+    }
+
+    private static final class Counter {
+        private final Long creatorId;
+        private final AtomicInteger likes;
+        // in-progress requests plus pending or in-flight pairs of this comment
+        private final AtomicInteger pins = new AtomicInteger();
+        private volatile long lastUsed;
+
+        private Counter(Long creatorId, int likes) {
+            this.creatorId = creatorId;
+            this.likes = new AtomicInteger(likes);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.forumstartup.likes;
+
+/*
+    The columns of a comment the like pipeline needs: who wrote it and the stored count
+ */
+public record CommentLikeTarget(Long creatorId, int likesCount) {
+}
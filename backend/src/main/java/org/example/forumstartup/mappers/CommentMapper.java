@@ -5,6 +5,7 @@ import org.example.forumstartup.dtos.comment.CreateCommentDto;
 import org.example.forumstartup.models.Comment;
 import org.example.forumstartup.models.Post;
 import org.example.forumstartup.models.User;
+import org.example.forumstartup.readmodel.CommentView;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -30,6 +31,24 @@ public class CommentMapper {
         );
     }
 
+    public CommentResponseDto toDto(CommentView c) {
+        return new CommentResponseDto(
+                c.id(),
+                c.postId(),
+                c.creatorId(),
+                c.creatorUsername(),
+                c.deleted() ? null : c.content(),  // hide content when deleted
+                c.parentId(),
+                c.likesCount(),
+                c.deleted(),
+                c.deletedAt(),
+                c.deletedById(),
+                c.deletedByUsername(),
+                c.createdAt(),
+                c.updatedAt()
+        );
+    }
+
     public List<CommentResponseDto> toDtoList(List<Comment> comments) {
         return comments.stream()
                 .map(this::toDto)
@@ -7,11 +7,10 @@ import org.example.forumstartup.dtos.post.PostWithLikeStatusResponseDto;
 import org.example.forumstartup.models.Post;
 import org.example.forumstartup.dtos.post.PostResponseDto;
 import org.example.forumstartup.models.Tag;
-import org.example.forumstartup.models.User;
+import org.example.forumstartup.readmodel.PostView;
 import org.example.forumstartup.utils.AuthenticationUtils;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.List;
 @Component
 @RequiredArgsConstructor
@@ -53,29 +52,13 @@ public class PostMapper {
         );
     }
 
-    public List<PostResponseDto> toSimpleDtoList(List<Post> posts) {
-        List<PostResponseDto> list = new ArrayList<>();
-        for (Post p : posts) {
-            list.add(toSimpleDto(p));
-        }
-        return list;
-    }
-
     // Post Response when user logged in (includes information if a user has liked the post or not)
-    public List<PostWithLikeStatusResponseDto> toAuthenticatedDtoList(List<Post> posts, User currentUser) {
-        return posts.stream()
-                .map(post -> toAuthenticatedDto(post, currentUser))
-                .toList();
-    }
-
-    public PostWithLikeStatusResponseDto toAuthenticatedDto(Post post, User currentUser) {
+    public PostWithLikeStatusResponseDto toAuthenticatedDto(Post post, boolean liked) {
         List<String> tags = post.getTags().stream()
                 .map(Tag::getName)
                 .sorted()
                 .toList();
 
-        boolean liked = post.getLikedBy().contains(currentUser);
-
         return new PostWithLikeStatusResponseDto(
                 post.getId(),
                 post.getCreator().getId(),
@@ -89,4 +72,41 @@ public class PostMapper {
                 post.getUpdatedAt()
         );
     }
+
+    // Read model rows, see PostViewRepository
+    public PostResponseDto toSimpleDto(PostView view) {
+        return new PostResponseDto(
+                view.postId(),
+                view.creatorId(),
+                view.creatorUsername(),
+                view.title(),
+                view.content(),
+                view.likesCount(),
+                tagNames(view),
+                view.createdAt(),
+                view.updatedAt()
+        );
+    }
+
+    public PostWithLikeStatusResponseDto toAuthenticatedDto(PostView view) {
+        return new PostWithLikeStatusResponseDto(
+                view.postId(),
+                view.creatorId(),
+                view.creatorUsername(),
+                view.title(),
+                view.content(),
+                view.likesCount(),
+                Boolean.TRUE.equals(view.liked()),
+                tagNames(view),
+                view.createdAt(),
+                view.updatedAt()
+        );
+    }
+
+    private List<String> tagNames(PostView view) {
+        if (view.tagNames() == null || view.tagNames().isEmpty()) {
+            return List.of();
+        }
+        return List.of(view.tagNames().split(","));
+    }
 }
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.example.forumstartup.utils.CommentPaths;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -14,7 +15,13 @@ import java.util.Set;
 import static org.example.forumstartup.utils.StringConstants.COMMENT_SIZE_CONSTRAINT_MESSAGE;
 
 @Entity
-@Table(name = "comments")
+@Table(
+        name = "comments",
+        indexes = {
+                // keyset pagination of a post's comments
+                @Index(name = "idx_comments_post_created_at", columnList = "post_id, created_at, comment_id")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -28,10 +35,18 @@ public class Comment {
 
     // self-reference for tree-like comment structure
     // when we have replies on a comment
-    @ManyToOne
+    // lazy: loading a reply must not walk up the whole thread
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_comment_id")
     private Comment parent;
 
+    /*
+        Ids from the top-level comment down to this one (see CommentPaths),
+        null until set after insert or by the backfill job
+     */
+    @Column(name = "path", length = CommentPaths.MAX_LENGTH)
+    private String path;
+
     @ManyToOne
     @JoinColumn(name = "post_id", nullable = false)
     private Post post;
@@ -44,7 +59,10 @@ public class Comment {
     @Size(min = 1, max = 1000, message = COMMENT_SIZE_CONSTRAINT_MESSAGE)
     private String content;
 
-    @Column(name = "likes_count", nullable = false)
+    /*
+        Written on insert, afterwards only by the batched like flush (CommentLikeBuffer)
+     */
+    @Column(name = "likes_count", nullable = false, updatable = false)
     private Integer likesCount = 0;
 
     @ManyToMany(fetch = FetchType.LAZY)
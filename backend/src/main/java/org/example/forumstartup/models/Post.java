@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -15,7 +16,16 @@ import static org.example.forumstartup.utils.StringConstants.CONTENT_SIZE_CONSTR
 import static org.example.forumstartup.utils.StringConstants.TITLE_SIZE_CONSTRAINT_MESSAGE;
 
 @Entity
-@Table(name = "posts")
+@Table(
+        name = "posts",
+        indexes = {
+                @Index(name = "idx_posts_comments_count", columnList = "comments_count, created_at"),
+                // keyset pagination of the feed
+                @Index(name = "idx_posts_created_at", columnList = "created_at, post_id"),
+                // newest posts of a creator
+                @Index(name = "idx_posts_user_created_at", columnList = "user_id, created_at, post_id")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -39,9 +49,20 @@ public class Post {
     @Size(min = 32, max = 8192, message = CONTENT_SIZE_CONSTRAINT_MESSAGE)
     private String content;
 
-    @Column(name = "likes_count")
+    /*
+        Written on insert, afterwards only by the atomic like/unlike statements
+     */
+    @Column(name = "likes_count", updatable = false)
     private Integer likesCount = 0;
 
+    /*
+        Denormalized count of non-deleted comments, only ever written
+        with atomic UPDATE statements (see PostRepository)
+     */
+    @ColumnDefault("0")
+    @Column(name = "comments_count", nullable = false, insertable = false, updatable = false)
+    private Integer commentsCount = 0;
+
     // if we want we can create a separate PostLike Entity later
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
@@ -65,7 +86,9 @@ public class Post {
             name = "posts_tags",
             joinColumns = @JoinColumn(name = "post_id"),
             inverseJoinColumns = @JoinColumn(name = "tag_id"),
-            uniqueConstraints = @UniqueConstraint(columnNames = {"post_id", "tag_id"})
+            uniqueConstraints = @UniqueConstraint(columnNames = {"post_id", "tag_id"}),
+            // posts of a tag; the unique constraint only serves lookups by post
+            indexes = @Index(name = "idx_posts_tags_tag_post", columnList = "tag_id, post_id")
     )
     private Set<Tag> tags = new HashSet<>();
 
@@ -74,6 +74,13 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /*
+        Last change of roles, blocked flag, username or password,
+        tokens issued before it are not trusted (see TokenRevocations)
+     */
+    @Column(name = "security_changed_at")
+    private LocalDateTime securityChangedAt;
+
     /*
         Regular user
      */
@@ -0,0 +1,25 @@
+package org.example.forumstartup.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("forum.Authentication")
+@Label("Authentication")
+@Category({"Forum", "Security"})
+@Description("JWT authentication of a private or admin request")
+@StackTrace(false)
+public class AuthenticationEvent extends jdk.jfr.Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Outcome")
+    @Description("authenticated, anonymous or rejected")
+    public String outcome;
+
+    @Label("User Id")
+    public long userId;
+}
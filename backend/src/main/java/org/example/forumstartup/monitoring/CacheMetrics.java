@@ -0,0 +1,77 @@
+package org.example.forumstartup.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.forumstartup.cache.ConditionalGetInterceptor;
+import org.example.forumstartup.security.JwtUtils;
+import org.example.forumstartup.security.PrincipalCache;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/*
+    Hits and misses of the caches on the request path, under the usual
+    cache.gets / cache.size names so cache dashboards work as they are:
+
+        principal     PrincipalCache, users loaded for stale or old tokens
+        jwt-verified  tokens whose signature JwtUtils already checked
+        http-etag     public GETs answered with a 304 by ConditionalGetInterceptor
+
+    forum.cache.hit.ratio is the ratio since startup, rate(cache_gets_total)
+    gives the recent one.
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    private final PrincipalCache principalCache;
+    private final JwtUtils jwtUtils;
+    private final ConditionalGetInterceptor conditionalGets;
+
+    public CacheMetrics(PrincipalCache principalCache, JwtUtils jwtUtils, ConditionalGetInterceptor conditionalGets) {
+        this.principalCache = principalCache;
+        this.jwtUtils = jwtUtils;
+        this.conditionalGets = conditionalGets;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "principal", principalCache, c -> c.stats().hits(), c -> c.stats().misses());
+        Gauge.builder("cache.size", principalCache, c -> c.stats().size())
+                .tag("cache", "principal")
+                .register(registry);
+
+        bind(registry, "jwt-verified", jwtUtils, JwtUtils::verifiedCacheHits, JwtUtils::verifiedCacheMisses);
+        Gauge.builder("cache.size", jwtUtils, JwtUtils::verifiedCacheSize)
+                .tag("cache", "jwt-verified")
+                .register(registry);
+
+        bind(registry, "http-etag", conditionalGets,
+                ConditionalGetInterceptor::notModified, ConditionalGetInterceptor::served);
+    }
+
+    private static <T> void bind(
+            MeterRegistry registry,
+            String cache,
+            T source,
+            ToDoubleFunction<T> hits,
+            ToDoubleFunction<T> misses
+    ) {
+        FunctionCounter.builder("cache.gets", source, hits)
+                .tag("cache", cache)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", source, misses)
+                .tag("cache", cache)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("forum.cache.hit.ratio", source, s -> {
+                    double hit = hits.applyAsDouble(s);
+                    double lookups = hit + misses.applyAsDouble(s);
+                    return lookups == 0 ? 0 : hit / lookups;
+                })
+                .tag("cache", cache)
+                .register(registry);
+    }
+}
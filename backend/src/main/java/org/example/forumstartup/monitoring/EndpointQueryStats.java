@@ -0,0 +1,14 @@
+package org.example.forumstartup.monitoring;
+
+public record EndpointQueryStats(
+        String endpoint,
+        long requests,
+        double avgStatements,
+        int maxStatements,
+        double avgEntityLoads,
+        double avgCollectionLoads,
+        long overBudget,
+        long repeatedStatements,
+        String lastRepeatedSql
+) {
+}
@@ -0,0 +1,143 @@
+package org.example.forumstartup.monitoring;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.example.forumstartup.exceptions.InvalidOperationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/*
+    One JFR recording at a time, started and fetched through the admin API to
+    profile a live node without restarting it with -XX:StartFlightRecording.
+
+    Uses the JDK "profile" settings plus the forum events. A recording stops by
+    itself after its duration, at most `max-duration-seconds`, and keeps at
+    most `max-size-mb` on disk, so a forgotten one cannot fill the disk.
+ */
+@Slf4j
+@Component
+public class ProfilingRecorder {
+
+    private static final DateTimeFormatter NAME_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+            .withZone(ZoneOffset.UTC);
+
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+    private final Duration eventThreshold;
+
+    // guarded by this
+    private Recording recording;
+
+    public ProfilingRecorder(
+            @Value("${forum.jfr.max-duration-seconds:300}") long maxDurationSeconds,
+            @Value("${forum.jfr.max-size-mb:200}") long maxSizeMb,
+            @Value("${forum.jfr.event-threshold-ms:0}") long eventThresholdMs
+    ) {
+        this.maxDuration = Duration.ofSeconds(maxDurationSeconds);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.eventThreshold = Duration.ofMillis(eventThresholdMs);
+    }
+
+    public synchronized RecordingStatus start(Duration duration) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new InvalidOperationException("A recording is already running");
+        }
+        if (recording != null) {
+            // finished but never fetched
+            recording.close();
+        }
+
+        Recording started;
+        try {
+            started = new Recording(Configuration.getConfiguration("profile"));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("JFR profile settings are not available", e);
+        }
+        started.enable(ServiceCallEvent.class).withThreshold(eventThreshold);
+        started.enable(AuthenticationEvent.class).withThreshold(eventThreshold);
+        started.enable(TransactionEvent.class).withThreshold(eventThreshold);
+        started.setName("forum-" + NAME_TIME.format(Instant.now()));
+        started.setDuration(duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0
+                ? maxDuration
+                : duration);
+        started.setMaxSize(maxSizeBytes);
+        started.setToDisk(true);
+        started.start();
+        recording = started;
+
+        log.info("Started JFR recording {} for {}s", started.getName(), started.getDuration().toSeconds());
+        return status();
+    }
+
+    public synchronized RecordingStatus status() {
+        if (recording == null) {
+            return RecordingStatus.none();
+        }
+        return new RecordingStatus(
+                recording.getName(),
+                recording.getState().name(),
+                recording.getStartTime(),
+                recording.getDuration().toSeconds(),
+                recording.getSize()
+        );
+    }
+
+    /*
+        Stops the recording if it still runs and hands over its data. Closing
+        the stream deletes the recording.
+     */
+    public synchronized RecordingDump stop() {
+        if (recording == null) {
+            throw new InvalidOperationException("There is no recording to stop");
+        }
+        Recording stopped = recording;
+        recording = null;
+        if (stopped.getState() == RecordingState.RUNNING) {
+            stopped.stop();
+        }
+        log.info("Stopped JFR recording {}, {} bytes", stopped.getName(), stopped.getSize());
+
+        try {
+            InputStream data = stopped.getStream(null, null);
+            return new RecordingDump(stopped.getName() + ".jfr", new ClosingRecording(
+                    data == null ? InputStream.nullInputStream() : data, stopped));
+        } catch (IOException e) {
+            stopped.close();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public record RecordingDump(String fileName, InputStream data) {
+    }
+
+    private static final class ClosingRecording extends FilterInputStream {
+
+        private final Recording recording;
+
+        private ClosingRecording(InputStream data, Recording recording) {
+            super(data);
+            this.recording = recording;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                recording.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.forumstartup.monitoring;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+    Most SQL statements one request to this handler should need, instead of
+    forum.sql.budget.default-statements. QueryCountingFilter logs the requests
+    that go over it.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int value();
+}
@@ -0,0 +1,79 @@
+package org.example.forumstartup.monitoring;
+
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Counts the statements Hibernate prepares and the entities and collections
+    it loads on the current thread, into every scope open on that thread.
+    Scopes nest: a test measuring a MockMvc call also sees what the request
+    scope of QueryCountingFilter counts inside it.
+
+    Registered with Hibernate by QueryCountingConfig. Statements sent through
+    JdbcTemplate bypass Hibernate and are not counted.
+ */
+@Component
+public class QueryCounter implements StatementInspector, PostLoadEventListener, InitializeCollectionEventListener {
+
+    private static final ThreadLocal<List<QueryCounts>> SCOPES = new ThreadLocal<>();
+
+    public QueryCounts open() {
+        List<QueryCounts> scopes = SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayList<>(2);
+            SCOPES.set(scopes);
+        }
+        QueryCounts counts = new QueryCounts();
+        scopes.add(counts);
+        return counts;
+    }
+
+    public void close(QueryCounts counts) {
+        List<QueryCounts> scopes = SCOPES.get();
+        if (scopes == null) {
+            return;
+        }
+        scopes.removeIf(open -> open == counts);
+        if (scopes.isEmpty()) {
+            SCOPES.remove();
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<QueryCounts> scopes = SCOPES.get();
+        if (scopes != null) {
+            for (QueryCounts counts : scopes) {
+                counts.statement(sql);
+            }
+        }
+        return sql;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        List<QueryCounts> scopes = SCOPES.get();
+        if (scopes != null) {
+            for (QueryCounts counts : scopes) {
+                counts.entityLoaded();
+            }
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        List<QueryCounts> scopes = SCOPES.get();
+        if (scopes != null) {
+            for (QueryCounts counts : scopes) {
+                counts.collectionLoaded();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.forumstartup.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/*
+    Counts the statements of every request, from the authentication filter to
+    the serialization of the response, where lazy loads in the mappers show up.
+
+    A request running more statements than the budget of its handler, or the
+    same statement `repeated-statement-threshold` times or more, is logged and
+    counted in QueryStatistics. Requests that matched no route are not recorded.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryCountingFilter extends OncePerRequestFilter {
+
+    private final QueryCounter queryCounter;
+    private final QueryStatistics statistics;
+    private final int defaultBudget;
+    private final int repeatedStatementThreshold;
+
+    public QueryCountingFilter(
+            QueryCounter queryCounter,
+            QueryStatistics statistics,
+            @Value("${forum.sql.budget.default-statements:10}") int defaultBudget,
+            @Value("${forum.sql.budget.repeated-statement-threshold:5}") int repeatedStatementThreshold
+    ) {
+        this.queryCounter = queryCounter;
+        this.statistics = statistics;
+        this.defaultBudget = defaultBudget;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    )
+            throws ServletException, IOException {
+
+        QueryCounts counts = queryCounter.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            queryCounter.close(counts);
+            record(request, counts);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryCounts counts) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return;
+        }
+        String endpoint = request.getMethod() + " " + pattern;
+
+        int budget = budget(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+        boolean overBudget = counts.statements() > budget;
+        QueryCounts.RepeatedStatement repeated = counts.mostRepeated();
+        if (repeated != null && repeated.count() < repeatedStatementThreshold) {
+            repeated = null;
+        }
+
+        statistics.record(endpoint, counts, overBudget, repeated);
+
+        if (overBudget) {
+            log.warn("{} ran {} statements, over its budget of {} ({} entities and {} collections loaded)",
+                    endpoint, counts.statements(), budget, counts.entityLoads(), counts.collectionLoads());
+        }
+        if (repeated != null) {
+            log.warn("{} ran the same statement {} times, likely an N+1: {}",
+                    endpoint, repeated.count(), repeated.sql());
+        }
+    }
+
+    private int budget(Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            QueryBudget budget = method.getMethodAnnotation(QueryBudget.class);
+            if (budget != null) {
+                return budget.value();
+            }
+        }
+        return defaultBudget;
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.forumstartup.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    What Hibernate did while one scope of QueryCounter was open. Only touched
+    by the thread that opened it.
+ */
+public final class QueryCounts {
+
+    private final Map<String, Integer> statementsBySql = new HashMap<>();
+    private int statements;
+    private int entityLoads;
+    private int collectionLoads;
+
+    QueryCounts() {
+    }
+
+    void statement(String sql) {
+        statements++;
+        statementsBySql.merge(sql, 1, Integer::sum);
+    }
+
+    void entityLoaded() {
+        entityLoads++;
+    }
+
+    void collectionLoaded() {
+        collectionLoads++;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public int entityLoads() {
+        return entityLoads;
+    }
+
+    // lazy collections initialized one by one, each one its own statement
+    public int collectionLoads() {
+        return collectionLoads;
+    }
+
+    // every distinct statement that ran, in no particular order
+    public Set<String> distinctStatements() {
+        return Set.copyOf(statementsBySql.keySet());
+    }
+
+    /*
+        The statement run most often, the usual sign of an N+1 when its count
+        grows with the size of the page. Null when nothing ran.
+     */
+    public RepeatedStatement mostRepeated() {
+        RepeatedStatement top = null;
+        for (Map.Entry<String, Integer> entry : statementsBySql.entrySet()) {
+            if (top == null || entry.getValue() > top.count()) {
+                top = new RepeatedStatement(entry.getKey(), entry.getValue());
+            }
+        }
+        return top;
+    }
+
+    public record RepeatedStatement(String sql, int count) {
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.forumstartup.monitoring;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Statement and load counts per endpoint since startup or the last reset,
+    keyed by method and route pattern so path variables do not multiply the keys.
+ */
+@Component
+public class QueryStatistics {
+
+    private final Map<String, Totals> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, QueryCounts counts, boolean overBudget, QueryCounts.RepeatedStatement repeated) {
+        Totals totals = endpoints.computeIfAbsent(endpoint, key -> new Totals());
+        totals.requests.increment();
+        totals.statements.add(counts.statements());
+        totals.maxStatements.accumulateAndGet(counts.statements(), Math::max);
+        totals.entityLoads.add(counts.entityLoads());
+        totals.collectionLoads.add(counts.collectionLoads());
+        if (overBudget) {
+            totals.overBudget.increment();
+        }
+        if (repeated != null) {
+            totals.repeatedStatements.increment();
+            totals.lastRepeatedSql = repeated.sql();
+        }
+    }
+
+    /*
+        Endpoints with the most statements overall first
+     */
+    public List<EndpointQueryStats> snapshot() {
+        return endpoints.entrySet().stream()
+                .map(entry -> entry.getValue().toStats(entry.getKey()))
+                .sorted(Comparator.comparingDouble((EndpointQueryStats stats) -> stats.avgStatements() * stats.requests())
+                        .reversed())
+                .toList();
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private static final class Totals {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final AtomicInteger maxStatements = new AtomicInteger();
+        private final LongAdder entityLoads = new LongAdder();
+        private final LongAdder collectionLoads = new LongAdder();
+        private final LongAdder overBudget = new LongAdder();
+        private final LongAdder repeatedStatements = new LongAdder();
+        private volatile String lastRepeatedSql;
+
+        private EndpointQueryStats toStats(String endpoint) {
+            long count = requests.sum();
+            return new EndpointQueryStats(
+                    endpoint,
+                    count,
+                    average(statements, count),
+                    maxStatements.get(),
+                    average(entityLoads, count),
+                    average(collectionLoads, count),
+                    overBudget.sum(),
+                    repeatedStatements.sum(),
+                    lastRepeatedSql
+            );
+        }
+
+        private static double average(LongAdder total, long count) {
+            return count == 0 ? 0 : (double) total.sum() / count;
+        }
+    }
+}
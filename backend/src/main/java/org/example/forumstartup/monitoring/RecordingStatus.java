@@ -0,0 +1,10 @@
+package org.example.forumstartup.monitoring;
+
+import java.time.Instant;
+
+public record RecordingStatus(String name, String state, Instant startedAt, long durationSeconds, long sizeBytes) {
+
+    public static RecordingStatus none() {
+        return new RecordingStatus(null, "NONE", null, 0, 0);
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.forumstartup.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("forum.ServiceCall")
+@Label("Service Call")
+@Category({"Forum", "Service"})
+@Description("A call into the services package, with the statements it ran")
+@StackTrace(false)
+class ServiceCallEvent extends jdk.jfr.Event {
+
+    @Label("Service")
+    String service;
+
+    @Label("Method")
+    String method;
+
+    @Label("Post Id")
+    @Description("0 when the call is not about one post")
+    long postId;
+
+    @Label("User Id")
+    @Description("Acting user, 0 when anonymous")
+    long userId;
+
+    @Label("SQL Statements")
+    int statements;
+
+    @Label("Exception")
+    String exception;
+}
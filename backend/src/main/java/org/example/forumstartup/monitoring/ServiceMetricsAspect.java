@@ -0,0 +1,113 @@
+package org.example.forumstartup.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.example.forumstartup.models.Post;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.security.CustomUserDetails;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Times every call into the services package, per class and method, and
+    emits a ServiceCallEvent for it while a JFR recording has the event on.
+    Only then are the statements of the call counted.
+
+    Ordered before the transaction interceptor so the commit is part of the
+    time. Calls between methods of the same service are not seen, they do not
+    go through the proxy.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry registry;
+    private final QueryCounter queryCounter;
+
+    // successful calls, by far the most common, skip the meter lookup
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry registry, QueryCounter queryCounter) {
+        this.registry = registry;
+        this.queryCounter = queryCounter;
+    }
+
+    @Around("within(org.example.forumstartup.services..*)")
+    public Object time(ProceedingJoinPoint call) throws Throwable {
+        Method method = ((MethodSignature) call.getSignature()).getMethod();
+        ServiceCallEvent event = new ServiceCallEvent();
+        QueryCounts counts = event.isEnabled() ? queryCounter.open() : null;
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            Object result = call.proceed();
+            timers.computeIfAbsent(method, m -> timer(call, "none"))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            timer(call, e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            if (counts != null) {
+                queryCounter.close(counts);
+                event.end();
+                if (event.shouldCommit()) {
+                    describe(event, call, counts);
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    private Timer timer(ProceedingJoinPoint call, String exception) {
+        return Timer.builder("forum.service.calls")
+                .description("Calls of the service layer")
+                .tag("service", call.getTarget().getClass().getSimpleName())
+                .tag("method", call.getSignature().getName())
+                .tag("exception", exception)
+                .register(registry);
+    }
+
+    /*
+        The post and the user come from the arguments: a postId parameter or a
+        Post, and a User, falling back to the authenticated user
+     */
+    private static void describe(ServiceCallEvent event, ProceedingJoinPoint call, QueryCounts counts) {
+        event.service = call.getTarget().getClass().getSimpleName();
+        event.method = call.getSignature().getName();
+        event.statements = counts.statements();
+
+        String[] names = ((MethodSignature) call.getSignature()).getParameterNames();
+        Object[] args = call.getArgs();
+        for (int i = 0; i < args.length; i++) {
+            if (names != null && "postId".equals(names[i]) && args[i] instanceof Number id) {
+                event.postId = id.longValue();
+            } else if (args[i] instanceof Post post && post.getId() != null && event.postId == 0) {
+                event.postId = post.getId();
+            } else if (args[i] instanceof User user && user.getId() != null) {
+                event.userId = user.getId();
+            }
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (event.userId == 0 && authentication != null
+                && authentication.getPrincipal() instanceof CustomUserDetails principal
+                && principal.getId() != null) {
+            event.userId = principal.getId();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.forumstartup.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("forum.Transaction")
+@Label("Database Transaction")
+@Category({"Forum", "Database"})
+@StackTrace(false)
+class TransactionEvent extends jdk.jfr.Event {
+
+    @Label("Name")
+    String name;
+
+    @Label("Read Only")
+    boolean readOnly;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("SQL Statements")
+    int statements;
+}
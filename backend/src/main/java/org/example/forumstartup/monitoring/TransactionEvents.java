@@ -0,0 +1,78 @@
+package org.example.forumstartup.monitoring;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/*
+    A TransactionEvent per physical transaction, from begin to commit or
+    rollback, while a JFR recording has the event on. Spring Boot registers
+    the listener with the JPA transaction manager. Participating
+    transactions are part of the outer one and get no event of their own.
+ */
+@Component
+public class TransactionEvents implements TransactionExecutionListener {
+
+    // REQUIRES_NEW suspends the outer transaction, so open ones nest
+    private static final ThreadLocal<Deque<Pending>> OPEN = new ThreadLocal<>();
+
+    private final QueryCounter queryCounter;
+
+    public TransactionEvents(QueryCounter queryCounter) {
+        this.queryCounter = queryCounter;
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        TransactionEvent event = new TransactionEvent();
+        if (beginFailure != null || !event.isEnabled()) {
+            return;
+        }
+        Deque<Pending> open = OPEN.get();
+        if (open == null) {
+            open = new ArrayDeque<>(2);
+            OPEN.set(open);
+        }
+        event.begin();
+        open.push(new Pending(transaction, event, queryCounter.open()));
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        end(transaction, commitFailure == null ? "committed" : "commit failed");
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        end(transaction, "rolled back");
+    }
+
+    private void end(TransactionExecution transaction, String outcome) {
+        Deque<Pending> open = OPEN.get();
+        // begun before the recording started
+        if (open == null || open.peek().transaction() != transaction) {
+            return;
+        }
+        Pending pending = open.pop();
+        if (open.isEmpty()) {
+            OPEN.remove();
+        }
+        queryCounter.close(pending.counts());
+
+        TransactionEvent event = pending.event();
+        event.end();
+        if (event.shouldCommit()) {
+            event.name = transaction.getTransactionName();
+            event.readOnly = transaction.isReadOnly();
+            event.outcome = outcome;
+            event.statements = pending.counts().statements();
+            event.commit();
+        }
+    }
+
+    private record Pending(TransactionExecution transaction, TransactionEvent event, QueryCounts counts) {
+    }
+}
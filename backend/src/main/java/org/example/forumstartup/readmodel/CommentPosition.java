@@ -0,0 +1,7 @@
+package org.example.forumstartup.readmodel;
+
+/*
+    Where a comment sits: its post and materialized path (null until backfilled)
+ */
+public record CommentPosition(Long postId, String path) {
+}
@@ -0,0 +1,53 @@
+package org.example.forumstartup.readmodel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    The comments of one post assembled into their reply tree.
+
+    Built in one pass over the rows, without recursion, so it costs O(n) however
+    deep the thread is. The rows must come oldest first, every reply list then
+    is in (createdAt, id) order as well.
+ */
+public final class CommentTree {
+
+    private final Map<Long, CommentView> byId;
+    // top-level comments are stored under the null key
+    private final Map<Long, List<CommentView>> repliesByParent;
+
+    private CommentTree(Map<Long, CommentView> byId, Map<Long, List<CommentView>> repliesByParent) {
+        this.byId = byId;
+        this.repliesByParent = repliesByParent;
+    }
+
+    public static CommentTree of(List<CommentView> rows) {
+        Map<Long, CommentView> byId = new HashMap<>(rows.size() * 2);
+        rows.forEach(row -> byId.put(row.id(), row));
+
+        Map<Long, List<CommentView>> repliesByParent = new HashMap<>();
+        for (CommentView row : rows) {
+            // a parent outside the rows cannot be shown, its replies become top-level
+            Long parentId = byId.containsKey(row.parentId()) ? row.parentId() : null;
+            repliesByParent.computeIfAbsent(parentId, p -> new ArrayList<>()).add(row);
+        }
+        return new CommentTree(byId, repliesByParent);
+    }
+
+    public boolean contains(Long commentId) {
+        return byId.containsKey(commentId);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /*
+        Direct replies of the comment, or the top-level comments for null
+     */
+    public List<CommentView> repliesOf(Long commentId) {
+        return repliesByParent.getOrDefault(commentId, List.of());
+    }
+}
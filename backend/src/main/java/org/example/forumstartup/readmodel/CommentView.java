@@ -0,0 +1,25 @@
+package org.example.forumstartup.readmodel;
+
+import java.time.LocalDateTime;
+
+/*
+    One comment of a thread as produced by CommentRepository.findThreadByPost,
+    with its author and deleter already resolved
+ */
+public record CommentView(
+        Long id,
+        Long postId,
+        Long parentId,
+        Long creatorId,
+        String creatorUsername,
+        String content,
+        Integer likesCount,
+        Boolean deleted,
+        LocalDateTime deletedAt,
+        Long deletedById,
+        String deletedByUsername,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        String path
+) {
+}
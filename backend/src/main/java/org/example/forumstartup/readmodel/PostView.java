@@ -0,0 +1,22 @@
+package org.example.forumstartup.readmodel;
+
+import java.time.LocalDateTime;
+
+/*
+    One post listing row as produced by PostViewRepository.
+    tagNames is the comma separated, sorted list of tag names (null when untagged),
+    tags cannot contain commas after normalization.
+ */
+public record PostView(
+        Long postId,
+        Long creatorId,
+        String creatorUsername,
+        String title,
+        String content,
+        Integer likesCount,
+        String tagNames,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Boolean liked
+) {
+}
@@ -0,0 +1,250 @@
+package org.example.forumstartup.readmodel;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.example.forumstartup.enums.TagMatch;
+import org.example.forumstartup.exceptions.InvalidOperationException;
+import org.example.forumstartup.utils.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+    Read side of posts: every method is a single SQL statement returning
+    ready-to-map rows (post, creator username, aggregated tag names and the
+    viewer's like flag) instead of Post entities with their lazy associations.
+
+    In excerpt mode only the first `excerptLength` characters of the content
+    are selected, for list views that do not show the full body.
+ */
+@Repository
+public class PostViewRepository {
+
+    private static final String SELECT = """
+            select new org.example.forumstartup.readmodel.PostView(
+                p.id, c.id, c.username, p.title, %s, p.likesCount,
+                (select listagg(t.name, ',') within group (order by t.name)
+                 from Post tp join tp.tags t where tp = p),
+                p.createdAt, p.updatedAt, %s)
+            from Post p join p.creator c
+            """;
+
+    private static final String LIKED_BY_VIEWER = """
+            case when exists (select 1 from Post lp join lp.likedBy u where lp = p and u.id = :viewerId)
+                 then true else false end""";
+
+    private static final String MATCHES_ANY = """
+            lower(c.username) like :pattern
+               or lower(p.title) like :pattern
+               or lower(p.content) like :pattern""";
+
+    private static final String HAS_ANY_TAG = """
+            exists (select 1 from Post tp join tp.tags t where tp = p and t.id in :tagIds)""";
+
+    private static final String HAS_ALL_TAGS = """
+            (select count(t) from Post tp join tp.tags t where tp = p and t.id in :tagIds) = :tagCount""";
+
+    private static final String NEWEST_FIRST = " order by p.createdAt desc, p.id desc";
+
+    // request sort properties that may be used for listings
+    private static final Map<String, String> SORTABLE = Map.of(
+            "id", "p.id",
+            "createdAt", "p.createdAt",
+            "updatedAt", "p.updatedAt",
+            "title", "p.title",
+            "likesCount", "p.likesCount",
+            "commentsCount", "p.commentsCount"
+    );
+
+    private final EntityManager entityManager;
+    private final int excerptLength;
+
+    public PostViewRepository(
+            EntityManager entityManager,
+            @Value("${forum.posts.excerpt-length:280}") int excerptLength
+    ) {
+        this.entityManager = entityManager;
+        this.excerptLength = excerptLength;
+    }
+
+    /*
+        Rows for the given ids, in the order of the ids; missing posts are skipped
+     */
+    public List<PostView> findByIds(List<Long> ids, Long viewerId, boolean excerpt) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<PostView> rows = query(" where p.id in :ids", viewerId, excerpt)
+                .setParameter("ids", ids)
+                .getResultList();
+
+        Map<Long, PostView> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(row.postId(), row));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public Optional<PostView> findById(Long id, Long viewerId) {
+        return findByIds(List.of(id), viewerId, false).stream().findFirst();
+    }
+
+    public List<PostView> findNewest(int limit) {
+        return query(NEWEST_FIRST, null, false)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /*
+        Keyset page of the feed (newest first) starting after `after`, or from the
+        newest post when null. Fetches `limit` rows, callers ask for one extra to
+        learn whether there is a next page. Served by idx_posts_created_at.
+     */
+    public List<PostView> findFeed(Cursor after, int limit, Long viewerId, boolean excerpt) {
+        if (after == null) {
+            return query(NEWEST_FIRST, viewerId, excerpt)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+
+        String where = " where p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id)";
+        return query(where + NEWEST_FIRST, viewerId, excerpt)
+                .setParameter("createdAt", after.createdAt())
+                .setParameter("id", after.id())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /*
+        Served by idx_posts_user_created_at
+     */
+    public List<PostView> findByCreator(Long creatorId, int limit, Long viewerId, boolean excerpt) {
+        return query(" where p.creator.id = :creatorId" + NEWEST_FIRST, viewerId, excerpt)
+                .setParameter("creatorId", creatorId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /*
+        The tag's posts come from idx_posts_tags_tag_post without joining tags
+     */
+    public List<PostView> findByTag(Long tagId, int limit, Long viewerId, boolean excerpt) {
+        String where = " where p.id in (select tp.id from Post tp join tp.tags t where t.id = :tagId)";
+        return query(where + NEWEST_FIRST, viewerId, excerpt)
+                .setParameter("tagId", tagId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /*
+        Title/content substring match, used while the search index is not ready
+     */
+    public List<PostView> search(String word, int limit) {
+        String where = " where lower(p.title) like :pattern or lower(p.content) like :pattern";
+        return query(where + NEWEST_FIRST, null, false)
+                .setParameter("pattern", pattern(word))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /*
+        A page of posts whose creator, title or content contains `searchQuery`
+        (all posts when blank). The count query is skipped when the page itself
+        shows the total, e.g. a first page that is not full.
+     */
+    public Page<PostView> findPage(String searchQuery, Pageable pageable, Long viewerId, boolean excerpt) {
+        return findPage(searchQuery, null, TagMatch.ALL, pageable, viewerId, excerpt);
+    }
+
+    /*
+        Same, restricted to the posts carrying all / any of `tagIds` unless it
+        is null. For sorts the tag index cannot page, or while it is not built.
+     */
+    public Page<PostView> findPage(
+            String searchQuery, Collection<Long> tagIds, TagMatch match, Pageable pageable, Long viewerId, boolean excerpt
+    ) {
+        if (tagIds != null && tagIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        boolean filtered = searchQuery != null && !searchQuery.isBlank();
+        List<String> conditions = new ArrayList<>();
+        if (filtered) {
+            conditions.add("(" + MATCHES_ANY + ")");
+        }
+        if (tagIds != null) {
+            conditions.add(match == TagMatch.ALL ? HAS_ALL_TAGS : HAS_ANY_TAG);
+        }
+        String where = conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+
+        TypedQuery<PostView> query = query(where + orderBy(pageable.getSort()), viewerId, excerpt)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize());
+        bindFilters(query, filtered ? searchQuery : null, tagIds, match);
+
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> {
+            TypedQuery<Long> count = entityManager.createQuery(
+                    "select count(p) from Post p join p.creator c" + where, Long.class);
+            bindFilters(count, filtered ? searchQuery : null, tagIds, match);
+            return count.getSingleResult();
+        });
+    }
+
+    private static void bindFilters(TypedQuery<?> query, String searchQuery, Collection<Long> tagIds, TagMatch match) {
+        if (searchQuery != null) {
+            query.setParameter("pattern", pattern(searchQuery));
+        }
+        if (tagIds != null) {
+            Set<Long> distinct = new HashSet<>(tagIds);
+            query.setParameter("tagIds", distinct);
+            if (match == TagMatch.ALL) {
+                query.setParameter("tagCount", (long) distinct.size());
+            }
+        }
+    }
+
+    private TypedQuery<PostView> query(String rest, Long viewerId, boolean excerpt) {
+        String content = excerpt ? "substring(p.content, 1, " + excerptLength + ")" : "p.content";
+        String liked = viewerId == null ? "false" : LIKED_BY_VIEWER;
+
+        TypedQuery<PostView> query = entityManager.createQuery(SELECT.formatted(content, liked) + rest, PostView.class);
+        if (viewerId != null) {
+            query.setParameter("viewerId", viewerId);
+        }
+        return query;
+    }
+
+    private static String orderBy(Sort sort) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String path = SORTABLE.get(order.getProperty());
+            if (path == null) {
+                throw new InvalidOperationException("Posts cannot be sorted by " + order.getProperty());
+            }
+            orders.add(path + (order.isAscending() ? " asc" : " desc"));
+        }
+        // stable order between pages
+        orders.add("p.id desc");
+        return " order by " + String.join(", ", orders);
+    }
+
+    private static String pattern(String value) {
+        return "%" + value.trim().toLowerCase() + "%";
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.forumstartup.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.likes.CommentLike;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+    Plain JDBC batches for the comment like write-behind buffer.
+    Spring Data has no batched native statements, and these run every few
+    milliseconds, so they go straight through JdbcTemplate.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CommentLikeBatchRepository {
+
+    private static final Comparator<CommentLike> KEY_ORDER =
+            Comparator.comparing(CommentLike::commentId).thenComparing(CommentLike::userId);
+
+    private final JdbcTemplate jdbc;
+
+    /*
+        Writes the join rows and moves likes_count by the number of rows that
+        actually changed. Must run inside a transaction.
+
+        Returns the applied delta per comment id.
+     */
+    public Map<Long, Integer> apply(List<CommentLike> likes, List<CommentLike> unlikes) {
+        // a fixed lock order keeps concurrent flushes (several app instances) from deadlocking
+        List<CommentLike> inserts = new ArrayList<>(likes);
+        List<CommentLike> deletes = new ArrayList<>(unlikes);
+        inserts.sort(KEY_ORDER);
+        deletes.sort(KEY_ORDER);
+
+        Map<Long, Integer> deltas = new TreeMap<>();
+
+        if (!inserts.isEmpty()) {
+            int[][] inserted = jdbc.batchUpdate("""
+                            INSERT IGNORE INTO comments_likes (comment_id, user_id)
+                            SELECT c.comment_id, ? FROM comments c
+                            WHERE c.comment_id = ? AND c.user_id <> ?
+                            """, inserts, inserts.size(),
+                    (ps, like) -> {
+                        ps.setLong(1, like.userId());
+                        ps.setLong(2, like.commentId());
+                        ps.setLong(3, like.userId());
+                    });
+            collect(deltas, inserts, inserted, 1);
+        }
+
+        if (!deletes.isEmpty()) {
+            int[][] deleted = jdbc.batchUpdate("DELETE FROM comments_likes WHERE comment_id = ? AND user_id = ?",
+                    deletes, deletes.size(),
+                    (ps, like) -> {
+                        ps.setLong(1, like.commentId());
+                        ps.setLong(2, like.userId());
+                    });
+            collect(deltas, deletes, deleted, -1);
+        }
+
+        List<Object[]> counts = new ArrayList<>();
+        deltas.forEach((commentId, delta) -> {
+            if (delta != 0) {
+                counts.add(new Object[]{delta, delta, commentId});
+            }
+        });
+        if (!counts.isEmpty()) {
+            jdbc.batchUpdate("""
+                    UPDATE comments
+                    SET likes_count = CASE WHEN likes_count + ? < 0 THEN 0 ELSE likes_count + ? END
+                    WHERE comment_id = ?
+                    """, counts);
+        }
+
+        return deltas;
+    }
+
+    private static void collect(Map<Long, Integer> deltas, List<CommentLike> rows, int[][] results, int sign) {
+        int i = 0;
+        for (int[] batch : results) {
+            for (int result : batch) {
+                CommentLike row = rows.get(i++);
+                // drivers that rewrite batches cannot report per row counts, trust the buffer then
+                int changed = result == Statement.SUCCESS_NO_INFO ? 1 : result;
+                deltas.merge(row.commentId(), sign * changed, Integer::sum);
+            }
+        }
+    }
+}
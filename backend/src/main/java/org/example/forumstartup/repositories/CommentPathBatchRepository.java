@@ -0,0 +1,57 @@
+package org.example.forumstartup.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+    Bulk access to comments.path for CommentPathBackfillJob
+ */
+@Repository
+@RequiredArgsConstructor
+public class CommentPathBatchRepository {
+
+    private final JdbcTemplate jdbc;
+
+    /*
+        A comment without a path and the path of its parent, when it has one
+     */
+    public record PendingPath(long commentId, Long parentId, String parentPath) {
+    }
+
+    /*
+        Comments without a path after `afterId`, in id order
+     */
+    public List<PendingPath> findWithoutPath(long afterId, int limit) {
+        return jdbc.query("""
+                        SELECT c.comment_id, c.parent_comment_id, p.path
+                        FROM comments c
+                        LEFT JOIN comments p ON p.comment_id = c.parent_comment_id
+                        WHERE c.path IS NULL AND c.comment_id > ?
+                        ORDER BY c.comment_id
+                        LIMIT ?
+                        """,
+                (rs, row) -> new PendingPath(
+                        rs.getLong(1),
+                        rs.getObject(2, Long.class),
+                        rs.getString(3)
+                ),
+                afterId, limit);
+    }
+
+    /*
+        Paths set meanwhile (by createComment) are left alone
+     */
+    public void setPaths(Map<Long, String> pathsById) {
+        List<Map.Entry<Long, String>> rows = List.copyOf(pathsById.entrySet());
+
+        jdbc.batchUpdate("UPDATE comments SET path = ? WHERE comment_id = ? AND path IS NULL", rows, rows.size(),
+                (ps, row) -> {
+                    ps.setString(1, row.getValue());
+                    ps.setLong(2, row.getKey());
+                });
+    }
+}
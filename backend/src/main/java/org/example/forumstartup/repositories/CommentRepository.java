@@ -1,10 +1,17 @@
 package org.example.forumstartup.repositories;
 
+import org.example.forumstartup.likes.CommentLikeTarget;
 import org.example.forumstartup.models.Comment;
+import org.example.forumstartup.readmodel.CommentPosition;
+import org.example.forumstartup.readmodel.CommentView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,5 +23,101 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     Optional<Comment> findByIdAndCreatorId(Long id, Long creatorId);
 
-    Page<Comment> findByPostId(Long postId, Pageable pageable);
+    /*
+        Fetches what CommentMapper reads, the authors would otherwise load one per comment.
+        The parent stays a lazy proxy holding its id: fetching it would load its author
+        and the user who deleted it one parent at a time.
+     */
+    @Query(value = """
+            select c from Comment c
+            join fetch c.creator
+            left join fetch c.deletedBy
+            where c.post.id = :postId
+            """,
+            countQuery = "select count(c) from Comment c where c.post.id = :postId")
+    Page<Comment> findByPostId(@Param("postId") Long postId, Pageable pageable);
+
+    /*
+        Keyset pages of a post's comments, oldest first (idx_comments_post_created_at),
+        fetched like findByPostId
+     */
+    @Query("""
+            select c from Comment c
+            join fetch c.creator
+            left join fetch c.deletedBy
+            where c.post.id = :postId
+            order by c.createdAt asc, c.id asc
+            """)
+    List<Comment> findFirstByPost(@Param("postId") Long postId, Limit limit);
+
+    @Query("""
+            select c from Comment c
+            join fetch c.creator
+            left join fetch c.deletedBy
+            where c.post.id = :postId
+              and (c.createdAt > :createdAt or (c.createdAt = :createdAt and c.id > :id))
+            order by c.createdAt asc, c.id asc
+            """)
+    List<Comment> findByPostAfter(
+            @Param("postId") Long postId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Limit limit
+    );
+
+    /*
+        Every comment of a post with its author, oldest first, in one statement.
+        The parent is read from the foreign key column, without a join.
+     */
+    @Query("""
+            select new org.example.forumstartup.readmodel.CommentView(
+                c.id, c.post.id, c.parent.id, u.id, u.username, c.content, c.likesCount,
+                c.isDeleted, c.deletedAt, d.id, d.username, c.createdAt, c.updatedAt, c.path)
+            from Comment c
+            join c.creator u
+            left join c.deletedBy d
+            where c.post.id = :postId
+            order by c.createdAt asc, c.id asc
+            """)
+    List<CommentView> findThreadByPost(@Param("postId") Long postId);
+
+    @Query("""
+            select new org.example.forumstartup.readmodel.CommentPosition(c.post.id, c.path)
+            from Comment c where c.id = :id
+            """)
+    Optional<CommentPosition> findPositionById(@Param("id") Long id);
+
+    /*
+        Keyset page of a subtree in depth-first (path) order. `subtree` is the
+        root's path followed by %; `after` the path of the last row seen, or ""
+     */
+    @Query("""
+            select new org.example.forumstartup.readmodel.CommentView(
+                c.id, c.post.id, c.parent.id, u.id, u.username, c.content, c.likesCount,
+                c.isDeleted, c.deletedAt, d.id, d.username, c.createdAt, c.updatedAt, c.path)
+            from Comment c
+            join c.creator u
+            left join c.deletedBy d
+            where c.post.id = :postId and c.path like :subtree and c.path > :after
+            order by c.path asc
+            """)
+    List<CommentView> findSubtree(
+            @Param("postId") Long postId,
+            @Param("subtree") String subtree,
+            @Param("after") String after,
+            Limit limit
+    );
+
+    @Query("select count(c) from Comment c where c.post.id = :postId and c.path like :subtree")
+    long countSubtree(@Param("postId") Long postId, @Param("subtree") String subtree);
+
+    @Query("""
+            select new org.example.forumstartup.likes.CommentLikeTarget(c.creator.id, c.likesCount)
+            from Comment c where c.id = :id
+            """)
+    Optional<CommentLikeTarget> findLikeTarget(@Param("id") Long id);
+
+    @Query(value = "SELECT COUNT(*) FROM comments_likes WHERE comment_id = :commentId AND user_id = :userId",
+            nativeQuery = true)
+    int countLike(@Param("commentId") Long commentId, @Param("userId") Long userId);
 }
@@ -1,41 +1,139 @@
 package org.example.forumstartup.repositories;
 
+import org.example.forumstartup.cache.PostCommentCount;
 import org.example.forumstartup.models.Post;
-import org.springframework.data.domain.Sort;
+import org.example.forumstartup.search.PostSearchDocument;
+import org.example.forumstartup.search.PostTagLink;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post, Long>, JpaSpecificationExecutor<Post> {
 
-    List<Post> findByCreatorId(Long creatorId, Sort sort);
+    @Query("""
+            SELECT new org.example.forumstartup.cache.PostCommentCount(p.id, p.createdAt, p.commentsCount)
+            FROM Post p
+            ORDER BY p.commentsCount DESC, p.createdAt DESC, p.id DESC
+            """)
+    List<PostCommentCount> findTopCommented(Pageable pageable);
+
+    @Query("""
+            SELECT new org.example.forumstartup.cache.PostCommentCount(p.id, p.createdAt, p.commentsCount)
+            FROM Post p
+            WHERE p.id = :id
+            """)
+    Optional<PostCommentCount> findCommentCountById(@Param("id") Long id);
+
+    /*
+        Atomic, never lets the counter go below zero
+     */
+    @Modifying
+    @Query("""
+            UPDATE Post p
+            SET p.commentsCount = CASE WHEN p.commentsCount + :delta < 0 THEN 0 ELSE p.commentsCount + :delta END
+            WHERE p.id = :id
+            """)
+    int adjustCommentsCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /*
+        Recomputes comments_count from the comments table for one id range,
+        only rows that drifted are written. Returns the number of repaired posts.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE posts p
+            SET p.comments_count = (
+                SELECT COUNT(*) FROM comments c WHERE c.post_id = p.post_id AND c.is_deleted = 0)
+            WHERE p.post_id > :fromId AND p.post_id <= :toId
+              AND p.comments_count <> (
+                SELECT COUNT(*) FROM comments c WHERE c.post_id = p.post_id AND c.is_deleted = 0)
+            """, nativeQuery = true)
+    int reconcileCommentsCount(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /*
+        Returns 1 when a like was added, 0 when the user already likes the post
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO post_likes (post_id, user_id) VALUES (:postId, :userId)", nativeQuery = true)
+    int insertLike(@Param("postId") Long postId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM post_likes WHERE post_id = :postId AND user_id = :userId", nativeQuery = true)
+    int deleteLike(@Param("postId") Long postId, @Param("userId") Long userId);
+
+    /*
+        Which of the given posts the user likes, one primary key lookup per id
+     */
+    @Query(value = "SELECT post_id FROM post_likes WHERE user_id = :userId AND post_id IN (:postIds)",
+            nativeQuery = true)
+    List<Long> findLikedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
+    @Query(value = "SELECT COUNT(*) FROM post_likes WHERE post_id = :postId AND user_id = :userId",
+            nativeQuery = true)
+    int countLike(@Param("postId") Long postId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("""
+            UPDATE Post p
+            SET p.likesCount = CASE WHEN COALESCE(p.likesCount, 0) + :delta < 0 THEN 0
+                                    ELSE COALESCE(p.likesCount, 0) + :delta END
+            WHERE p.id = :id
+            """)
+    int adjustLikesCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /*
+        Creator of the post, locking its row until the transaction ends. Likes
+        take this lock before touching post_likes: locking the row the other
+        way round (shared by the like insert, then exclusive by the counter
+        update) deadlocks two concurrent likes of the same post on MariaDB.
+     */
+    @Query(value = "SELECT user_id FROM posts WHERE post_id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockCreatorIdById(@Param("id") Long id);
+
+    @Query("SELECT COALESCE(MAX(p.id), 0) FROM Post p")
+    long findMaxId();
 
-    List<Post> findTop10ByOrderByCreatedAtDesc();
 
     @Query("""
-            SELECT p FROM Post p
-            WHERE LOWER(p.title) LIKE LOWER(CONCAT('%', :word, '%'))
-               OR LOWER(p.content) LIKE LOWER(CONCAT('%', :word, '%'))
-            ORDER BY p.createdAt DESC
+            SELECT new org.example.forumstartup.search.PostSearchDocument(
+                p.id, p.title, p.content, c.username, p.createdAt)
+            FROM Post p JOIN p.creator c
+            WHERE p.id > :afterId
+            ORDER BY p.id ASC
             """)
-    List<Post> search(@Param("word") String word);
+    List<PostSearchDocument> findSearchDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
 
     @Query("""
-            SELECT p FROM Post p
-            LEFT JOIN p.comments c
-            GROUP BY p
-            ORDER BY COUNT(c.id) DESC, p.createdAt DESC
+            SELECT new org.example.forumstartup.search.PostSearchDocument(
+                p.id, p.title, p.content, c.username, p.createdAt)
+            FROM Post p JOIN p.creator c
+            WHERE p.id = :id
             """)
-    List<Post> findTop10MostCommented();
+    Optional<PostSearchDocument> findSearchDocumentById(@Param("id") Long id);
 
     @Query("""
-            SELECT p FROM Post p JOIN p.tags t WHERE t.name= :tagName
-            ORDER BY p.createdAt DESC 
-                        """)
-    List<Post> findPostsByTagName(@Param("tagName") String name);
+            SELECT new org.example.forumstartup.search.PostTagLink(p.id, t.id)
+            FROM Post p JOIN p.tags t
+            WHERE p.id > :afterPostId OR (p.id = :afterPostId AND t.id > :afterTagId)
+            ORDER BY p.id ASC, t.id ASC
+            """)
+    List<PostTagLink> findTagLinksAfter(
+            @Param("afterPostId") Long afterPostId,
+            @Param("afterTagId") Long afterTagId,
+            Pageable pageable
+    );
+
+    @Query("SELECT t.id FROM Post p JOIN p.tags t WHERE p.id = :postId")
+    List<Long> findTagIdsByPostId(@Param("postId") Long postId);
 
     long count();
 }
\ No newline at end of file
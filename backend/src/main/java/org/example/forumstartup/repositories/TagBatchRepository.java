@@ -0,0 +1,48 @@
+package org.example.forumstartup.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/*
+    Tag writes as single JDBC batches. INSERT IGNORE leaves rows another
+    transaction created meanwhile (or that already exist) to the unique
+    constraint / primary key instead of failing.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TagBatchRepository {
+
+    private final JdbcTemplate jdbc;
+
+    /*
+        Callers read the ids back afterwards
+     */
+    public void insertIgnoringExisting(Collection<String> names) {
+        // a fixed lock order keeps concurrent creators of overlapping tag sets from deadlocking
+        List<String> sorted = new ArrayList<>(names);
+        sorted.sort(null);
+
+        jdbc.batchUpdate("INSERT IGNORE INTO tags (name) VALUES (?)", sorted, sorted.size(),
+                (ps, name) -> ps.setString(1, name));
+    }
+
+    /*
+        Adds the tags to the post, skipping the ones it already has.
+        Bypasses Post.tags, so the collection must not be loaded in the same session.
+     */
+    public void attachToPost(Long postId, Collection<Long> tagIds) {
+        List<Long> sorted = new ArrayList<>(tagIds);
+        sorted.sort(null);
+
+        jdbc.batchUpdate("INSERT IGNORE INTO posts_tags (post_id, tag_id) VALUES (?, ?)", sorted, sorted.size(),
+                (ps, tagId) -> {
+                    ps.setLong(1, postId);
+                    ps.setLong(2, tagId);
+                });
+    }
+}
@@ -1,12 +1,25 @@
 package org.example.forumstartup.repositories;
 
+import jakarta.persistence.LockModeType;
 import org.example.forumstartup.models.Tag;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface TagRepository extends JpaRepository<Tag,Long> {
 
     Optional<Tag>findByName(String name);
 
+    List<Tag> findByNameIn(Collection<String> names);
+
+    // a locking read returns the latest committed rows, not the transaction's snapshot
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select t from Tag t where t.name in :names")
+    List<Tag> findLockedByNameIn(@Param("names") Collection<String> names);
+
 }
@@ -1,12 +1,14 @@
 package org.example.forumstartup.repositories;
 
 import org.example.forumstartup.models.User;
+import org.example.forumstartup.security.UserSecurityChange;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,5 +30,12 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     @Query("SELECT u FROM User u JOIN FETCH u.roles WHERE u.username = :username")
     Optional<User> findByUsernameWithRoles(@Param("username") String username);
 
+    @Query("""
+            SELECT new org.example.forumstartup.security.UserSecurityChange(u.username, u.securityChangedAt)
+            FROM User u
+            WHERE u.securityChangedAt > :since
+            """)
+    List<UserSecurityChange> findSecurityChangedSince(@Param("since") LocalDateTime since);
+
     long count();
 }
\ No newline at end of file
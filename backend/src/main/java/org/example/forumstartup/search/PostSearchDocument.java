@@ -0,0 +1,17 @@
+package org.example.forumstartup.search;
+
+import java.time.LocalDateTime;
+
+/*
+    The fields of a post that take part in full-text search.
+    Loaded straight from the database as a projection, so the
+    index never has to hydrate full Post entities.
+ */
+public record PostSearchDocument(
+        Long postId,
+        String title,
+        String content,
+        String creatorUsername,
+        LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,680 @@
+package org.example.forumstartup.search;
+
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/*
+    In-process inverted index over post title, creator username and content.
+
+    - term dictionary is sorted, so a query term also matches terms it is a prefix of
+      (search-as-you-type from the frontend)
+    - every posting keeps the term positions (delta + varint encoded), used for
+      field boosts and for rewarding query terms that appear next to each other
+    - all query terms must match (AND), results are ranked with BM25
+
+    A query makes one pass over the postings of its terms: every match is
+    counted and scored, only the page is ranked. That pass is what a word
+    found in a large share of the posts costs, under 100ns per match (28ms
+    for a word in 30% of 1M posts, see SearchBenchmark). Skipping matches
+    that cannot reach the page would need per-block score bounds in the
+    posting lists; it is not done, since the LIKE scan this replaced answers
+    such a word only by taking the newest matches unranked, and reads the
+    whole table on a miss (10s on the same posts).
+
+    Reads run concurrently, writes are serialized behind a read/write lock.
+    A rebuild fills a fresh segment off-lock and swaps it in, replaying the
+    incremental updates that arrived while it was running. Removed and
+    re-indexed posts leave an empty slot in the doc table until that rebuild:
+    compaction only drops their postings.
+ */
+@Component
+public class PostSearchIndex {
+
+    private static final double TITLE_WEIGHT = 3.0;
+    private static final double USERNAME_WEIGHT = 2.0;
+    private static final double CONTENT_WEIGHT = 1.0;
+
+    // shorter query terms are only matched exactly
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final double PREFIX_MATCH_WEIGHT = 0.5;
+    private static final double PHRASE_BONUS = 1.0;
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildMonitor = new Object();
+
+    private Segment segment = new Segment();
+    private List<Consumer<Segment>> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    /*
+        False until the first rebuild has completed; callers fall back
+        to the database while the index is still being built
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(PostSearchDocument document) {
+        apply(s -> s.add(document));
+    }
+
+    public void remove(Long postId) {
+        apply(s -> s.remove(postId));
+    }
+
+    public int rebuild(Iterable<PostSearchDocument> documents) {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Segment fresh = new Segment();
+            try {
+                for (PostSearchDocument document : documents) {
+                    fresh.add(document);
+                }
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild.forEach(op -> op.accept(fresh));
+                pendingDuringRebuild = null;
+                segment = fresh;
+                ready = true;
+                return fresh.liveDocs;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /*
+        Returns matching post ids, best match first.
+        Ties are broken by newest post first.
+     */
+    public List<Long> search(String query, int limit) {
+        return search(query, limit, postId -> true).postIds();
+    }
+
+    /*
+        The best `limit` posts among the matches accepted by `filter`, with the
+        number of accepted matches. Only those `limit` are ranked.
+     */
+    public SearchHits search(String query, int limit, LongPredicate filter) {
+        List<String> queryTerms = Tokenizer.tokenize(query).stream().distinct().toList();
+        if (queryTerms.isEmpty()) {
+            return SearchHits.none();
+        }
+
+        lock.readLock().lock();
+        try {
+            return segment.search(queryTerms, Math.max(0, limit), filter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<Segment> operation) {
+        lock.writeLock().lock();
+        try {
+            operation.accept(segment);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(operation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* ========================= INDEX STRUCTURES ========================= */
+
+    private record Doc(long postId, long createdAt, int length, int titleEnd, int usernameEnd) {
+
+        double fieldWeight(int position) {
+            if (position < titleEnd) return TITLE_WEIGHT;
+            if (position < usernameEnd) return USERNAME_WEIGHT;
+            return CONTENT_WEIGHT;
+        }
+
+        // occurrences of a term weighted by the field they are in
+        float termFrequency(Positions positions) {
+            double tf = 0;
+            for (int i = 0; i < positions.count; i++) {
+                tf += fieldWeight(positions.values[i]);
+            }
+            return (float) tf;
+        }
+    }
+
+    private record Hit(int doc, double score) {
+    }
+
+    private static final class Segment {
+
+        // compact posting lists once tombstones outnumber live documents
+        private static final int COMPACTION_THRESHOLD = 1024;
+
+        private final TreeMap<String, PostingList> terms = new TreeMap<>();
+        private final Map<Long, Integer> docByPost = new HashMap<>();
+
+        // internal doc number -> document, null once the post is removed or re-indexed
+        private Doc[] docs = new Doc[1024];
+        private int nextDoc;
+
+        private int liveDocs;
+        private long liveLength;
+        private int deadDocs;
+
+        void add(PostSearchDocument document) {
+            remove(document.postId());
+
+            Map<String, Positions> termPositions = new HashMap<>();
+            int position = collect(Tokenizer.tokenize(document.title()), 0, termPositions);
+            int titleEnd = position++; // gap, so phrases never span two fields
+            position = collect(Tokenizer.tokenize(document.creatorUsername()), position, termPositions);
+            int usernameEnd = position++;
+            position = collect(Tokenizer.tokenize(document.content()), position, termPositions);
+            int length = position - 2;
+
+            int docNumber = nextDoc++;
+            if (docNumber == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+
+            long createdAt = document.createdAt() == null
+                    ? 0
+                    : document.createdAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+            Doc doc = new Doc(document.postId(), createdAt, length, titleEnd, usernameEnd);
+
+            termPositions.forEach((term, positions) ->
+                    terms.computeIfAbsent(term, t -> new PostingList())
+                            .add(docNumber, positions.values, positions.count, doc.termFrequency(positions)));
+
+            docs[docNumber] = doc;
+            docByPost.put(document.postId(), docNumber);
+            liveDocs++;
+            liveLength += length;
+        }
+
+        void remove(Long postId) {
+            Integer docNumber = docByPost.remove(postId);
+            if (docNumber == null) {
+                return;
+            }
+
+            Doc doc = docs[docNumber];
+            docs[docNumber] = null;
+            liveDocs--;
+            liveLength -= doc.length();
+            deadDocs++;
+
+            if (deadDocs > COMPACTION_THRESHOLD && deadDocs > liveDocs) {
+                compact();
+            }
+        }
+
+        /*
+            Walks the posting lists of all query terms together in doc order, so a
+            document is scored once, when every term matched it, without building
+            a score map per term. Positions are only decoded for a document whose
+            phrase bonus could still lift it into the page.
+         */
+        SearchHits search(List<String> queryTerms, int limit, LongPredicate filter) {
+            if (liveDocs == 0) {
+                return SearchHits.none();
+            }
+
+            double avgLength = Math.max(1.0, (double) liveLength / liveDocs);
+
+            List<TermMatches> inQueryOrder = new ArrayList<>(queryTerms.size());
+            for (String term : queryTerms) {
+                TermMatches matches = new TermMatches(term, expand(term), docs, nextDoc, liveDocs, avgLength);
+                if (matches.cost == 0) {
+                    return SearchHits.none();
+                }
+                inQueryOrder.add(matches);
+            }
+            // the rarest term leads, the others only jump to its documents
+            List<TermMatches> byCost = new ArrayList<>(inQueryOrder);
+            byCost.sort(Comparator.comparingLong(m -> m.cost));
+            TermMatches lead = byCost.get(0);
+            double maxPhraseBonus = PHRASE_BONUS * (inQueryOrder.size() - 1);
+
+            Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).reversed()
+                    .thenComparing(hit -> docs[hit.doc()].createdAt(), Comparator.reverseOrder())
+                    .thenComparing(hit -> docs[hit.doc()].postId(), Comparator.reverseOrder());
+            // the worst of the best `limit` on top, so it is the one replaced
+            PriorityQueue<Hit> best = new PriorityQueue<>(ranking.reversed());
+            int total = 0;
+
+            int target = 0;
+            candidates:
+            while (true) {
+                int docNumber = lead.advance(target);
+                if (docNumber == NO_MORE_DOCS) {
+                    break;
+                }
+                for (TermMatches other : byCost) {
+                    int next = other.advance(docNumber);
+                    if (next == NO_MORE_DOCS) {
+                        break candidates;
+                    }
+                    if (next != docNumber) {
+                        target = next;
+                        continue candidates;
+                    }
+                }
+                target = docNumber + 1;
+
+                Doc doc = docs[docNumber];
+                if (doc == null || !filter.test(doc.postId())) {
+                    continue;
+                }
+                total++;
+                if (limit == 0) {
+                    continue;
+                }
+
+                double score = 0;
+                for (TermMatches matches : inQueryOrder) {
+                    score += matches.score(doc, avgLength, docNumber);
+                }
+                if (best.size() == limit && score + maxPhraseBonus < best.peek().score()) {
+                    continue;
+                }
+                for (int i = 0; i + 1 < inQueryOrder.size(); i++) {
+                    int[] left = inQueryOrder.get(i).exactPositions(docNumber);
+                    int[] right = inQueryOrder.get(i + 1).exactPositions(docNumber);
+                    if (left != null && right != null && adjacent(left, right)) {
+                        score += PHRASE_BONUS;
+                    }
+                }
+
+                Hit hit = new Hit(docNumber, score);
+                if (best.size() < limit) {
+                    best.add(hit);
+                } else if (ranking.compare(hit, best.peek()) < 0) {
+                    best.poll();
+                    best.add(hit);
+                }
+            }
+
+            if (total == 0) {
+                return SearchHits.none();
+            }
+            List<Long> postIds = best.stream()
+                    .sorted(ranking)
+                    .map(hit -> docs[hit.doc()].postId())
+                    .toList();
+            return new SearchHits(postIds, total);
+        }
+
+        /*
+            The terms a query term matches: itself, and the terms it is a prefix of
+         */
+        private NavigableMap<String, PostingList> expand(String term) {
+            return term.length() >= MIN_PREFIX_LENGTH
+                    ? terms.subMap(term, true, term + Character.MAX_VALUE, false)
+                    : terms.subMap(term, true, term, true);
+        }
+
+        private void compact() {
+            Iterator<PostingList> it = terms.values().iterator();
+            while (it.hasNext()) {
+                PostingList postings = it.next();
+                postings.retainLive(docs);
+                if (postings.size == 0) {
+                    it.remove();
+                }
+            }
+            deadDocs = 0;
+        }
+
+        private static int collect(List<String> tokens, int position, Map<String, Positions> into) {
+            for (String token : tokens) {
+                into.computeIfAbsent(token, t -> new Positions()).add(position++);
+            }
+            return position;
+        }
+
+        private static boolean adjacent(int[] left, int[] right) {
+            for (int p : left) {
+                if (Arrays.binarySearch(right, p + 1) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    /*
+        Cursors over the posting lists of one query term (the term itself and the
+        terms it is a prefix of). A document matching several of them gets the
+        best of their scores.
+
+        The cursors are kept in a min-heap on the doc they are at: advancing only
+        moves the cursors behind the target, and scoring only visits the ones at
+        the document. A short prefix can expand to hundreds of lists that between
+        them cover most documents, there every list would move on every step, so
+        past MAX_CURSORS lists their postings are scored up front into a table
+        by doc number instead.
+     */
+    private static final class TermMatches {
+
+        private static final int MAX_CURSORS = 16;
+
+        private final PostingList[] lists;
+        private final double[] weights;
+        private final double[] idfs;
+        private final int[] cursors;
+        // doc each cursor is at, NO_MORE_DOCS once its list is exhausted
+        private final int[] heads;
+        // list indexes, heap ordered on heads
+        private final int[] heap;
+        // best score by doc number, 0 where no list matched, when there are more than MAX_CURSORS lists
+        private final float[] scores;
+        private final int exact;
+        private final long cost;
+
+        TermMatches(String term, NavigableMap<String, PostingList> matches,
+                    Doc[] docs, int docCount, int liveDocs, double avgLength) {
+            int n = matches.size();
+            lists = new PostingList[n];
+            weights = new double[n];
+            idfs = new double[n];
+            cursors = new int[n];
+            heads = new int[n];
+            heap = new int[n];
+
+            int exactList = -1;
+            long postings = 0;
+            int i = 0;
+            for (Map.Entry<String, PostingList> match : matches.entrySet()) {
+                PostingList list = match.getValue();
+                boolean isExact = match.getKey().equals(term);
+                if (isExact) {
+                    exactList = i;
+                }
+                lists[i] = list;
+                weights[i] = isExact ? 1.0 : PREFIX_MATCH_WEIGHT;
+                idfs[i] = Math.log(1 + Math.max(0, liveDocs - list.size + 0.5) / (list.size + 0.5));
+                heads[i] = list.size > 0 ? list.docs[0] : NO_MORE_DOCS;
+                heap[i] = i;
+                postings += list.size;
+                i++;
+            }
+            for (int node = n / 2 - 1; node >= 0; node--) {
+                siftDown(node);
+            }
+            exact = exactList;
+            cost = postings;
+            scores = n > MAX_CURSORS ? scoreAll(docs, docCount, avgLength) : null;
+        }
+
+        private float[] scoreAll(Doc[] docs, int docCount, double avgLength) {
+            float[] all = new float[docCount];
+            for (int list = 0; list < lists.length; list++) {
+                PostingList postings = lists[list];
+                for (int i = 0; i < postings.size; i++) {
+                    Doc doc = docs[postings.docs[i]];
+                    if (doc != null) {
+                        float score = (float) bm25(list, postings.tfs[i], norm(doc, avgLength));
+                        all[postings.docs[i]] = Math.max(all[postings.docs[i]], score);
+                    }
+                }
+            }
+            return all;
+        }
+
+        /*
+            Moves every cursor to its first document at or after `target`,
+            returns the smallest of them
+         */
+        int advance(int target) {
+            if (scores != null) {
+                for (int docNumber = target; docNumber < scores.length; docNumber++) {
+                    if (scores[docNumber] > 0) {
+                        return docNumber;
+                    }
+                }
+                return NO_MORE_DOCS;
+            }
+            if (heap.length == 0) {
+                return NO_MORE_DOCS;
+            }
+            while (heads[heap[0]] < target) {
+                int list = heap[0];
+                cursors[list] = lists[list].seek(cursors[list], target);
+                heads[list] = cursors[list] < lists[list].size ? lists[list].docs[cursors[list]] : NO_MORE_DOCS;
+                siftDown(0);
+            }
+            return heads[heap[0]];
+        }
+
+        /*
+            BM25 of the document the cursors were advanced to
+         */
+        double score(Doc doc, double avgLength, int docNumber) {
+            return scores != null ? scores[docNumber] : bestScore(0, docNumber, norm(doc, avgLength));
+        }
+
+        // the cursors at the document are the top of the heap and every node under them
+        private double bestScore(int node, int docNumber, double norm) {
+            if (node >= heap.length || heads[heap[node]] != docNumber) {
+                return 0;
+            }
+            int list = heap[node];
+            double score = bm25(list, lists[list].tfs[cursors[list]], norm);
+            return Math.max(score, Math.max(
+                    bestScore(2 * node + 1, docNumber, norm),
+                    bestScore(2 * node + 2, docNumber, norm)));
+        }
+
+        int[] exactPositions(int docNumber) {
+            if (exact < 0) {
+                return null;
+            }
+            // a no-op for a cursor in the heap, advance already moved it
+            PostingList list = lists[exact];
+            cursors[exact] = list.seek(cursors[exact], docNumber);
+            return cursors[exact] < list.size && list.docs[cursors[exact]] == docNumber
+                    ? list.positions(cursors[exact])
+                    : null;
+        }
+
+        private double bm25(int list, double tf, double norm) {
+            return weights[list] * idfs[list] * tf * (K1 + 1) / (tf + norm);
+        }
+
+        private static double norm(Doc doc, double avgLength) {
+            return K1 * (1 - B + B * doc.length() / avgLength);
+        }
+
+        private void siftDown(int node) {
+            int list = heap[node];
+            while (true) {
+                int child = 2 * node + 1;
+                if (child >= heap.length) {
+                    break;
+                }
+                if (child + 1 < heap.length && heads[heap[child + 1]] < heads[heap[child]]) {
+                    child++;
+                }
+                if (heads[heap[child]] >= heads[list]) {
+                    break;
+                }
+                heap[node] = heap[child];
+                node = child;
+            }
+            heap[node] = list;
+        }
+    }
+
+    private static final class Positions {
+        private int[] values = new int[4];
+        private int count;
+
+        void add(int position) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = position;
+        }
+    }
+
+    /*
+        Doc numbers in increasing order, the weighted term frequency of every
+        entry, and its positions packed into a single byte array (delta + varint)
+        to keep the per-posting overhead low.
+     */
+    private static final class PostingList {
+        private int[] docs = new int[4];
+        private float[] tfs = new float[4];
+        private int[] offsets = new int[4];
+        private byte[] data = new byte[16];
+        private int size;
+        private int dataLength;
+
+        void add(int docNumber, int[] positions, int count, float tf) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            docs[size] = docNumber;
+            tfs[size] = tf;
+            offsets[size] = dataLength;
+            size++;
+
+            int previous = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarInt(positions[i] - previous);
+                previous = positions[i];
+            }
+        }
+
+        /*
+            Index of the first entry at or after `from` whose doc is at least `target`
+         */
+        int seek(int from, int target) {
+            if (from >= size || docs[from] >= target) {
+                return from;
+            }
+            // targets are usually close to the cursor: try the next entry, then gallop
+            int low = from + 1;
+            if (low >= size || docs[low] >= target) {
+                return low;
+            }
+            int step = 1;
+            while (low + step < size && docs[low + step] < target) {
+                low += step;
+                step *= 2;
+            }
+            int index = Arrays.binarySearch(docs, low, Math.min(size, low + step + 1), target);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        int[] positions(int index) {
+            int from = offsets[index];
+            int to = index + 1 < size ? offsets[index + 1] : dataLength;
+
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if ((data[i] & 0x80) == 0) count++;
+            }
+
+            int[] positions = new int[count];
+            int value = 0;
+            int shift = 0;
+            int previous = 0;
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                value |= (data[i] & 0x7F) << shift;
+                if ((data[i] & 0x80) == 0) {
+                    previous += value;
+                    positions[n++] = previous;
+                    value = 0;
+                    shift = 0;
+                } else {
+                    shift += 7;
+                }
+            }
+            return positions;
+        }
+
+        void retainLive(Doc[] liveDocs) {
+            int kept = 0;
+            int write = 0;
+            for (int i = 0; i < size; i++) {
+                if (liveDocs[docs[i]] == null) {
+                    continue;
+                }
+                int from = offsets[i];
+                int to = i + 1 < size ? offsets[i + 1] : dataLength;
+                System.arraycopy(data, from, data, write, to - from);
+                docs[kept] = docs[i];
+                tfs[kept] = tfs[i];
+                offsets[kept] = write;
+                write += to - from;
+                kept++;
+            }
+            size = kept;
+            dataLength = write;
+        }
+
+        private void writeVarInt(int value) {
+            while (true) {
+                if (dataLength == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                if ((value & ~0x7F) == 0) {
+                    data[dataLength++] = (byte) value;
+                    return;
+                }
+                data[dataLength++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.forumstartup.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.forumstartup.events.PostChangedEvent;
+import org.example.forumstartup.repositories.PostRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*
+    Feeds PostSearchIndex from the posts table:
+    a full build on startup / on admin request and
+    incremental updates after every committed post write.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostSearchIndexer {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final PostRepository postRepository;
+    private final PostSearchIndex searchIndex;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        int indexed = rebuild();
+        log.info("Post search index built with {} posts", indexed);
+    }
+
+    public int rebuild() {
+        return searchIndex.rebuild(this::documentsInBatches);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPostChanged(PostChangedEvent event) {
+        try {
+            if (event.type() == PostChangedEvent.Type.DELETED) {
+                searchIndex.remove(event.postId());
+                return;
+            }
+
+            // tags are not part of the indexed text
+            if (event.type() != PostChangedEvent.Type.CREATED && event.type() != PostChangedEvent.Type.UPDATED) {
+                return;
+            }
+
+            postRepository.findSearchDocumentById(event.postId())
+                    .ifPresentOrElse(
+                            searchIndex::index,
+                            () -> searchIndex.remove(event.postId())
+                    );
+        } catch (RuntimeException e) {
+            // the write itself is already committed, never fail the request because of the index
+            log.warn("Could not update search index for post {}", event.postId(), e);
+        }
+    }
+
+    /*
+        Walks the posts table by primary key, one batch per query,
+        so a rebuild never holds more than one batch of content in memory.
+     */
+    private Iterator<PostSearchDocument> documentsInBatches() {
+        return new Iterator<>() {
+            private List<PostSearchDocument> batch = List.of();
+            private int position;
+            private long lastId;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (position < batch.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+
+                batch = postRepository.findSearchDocumentsAfter(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                position = 0;
+                exhausted = batch.size() < REBUILD_BATCH_SIZE;
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).postId();
+                }
+                return !batch.isEmpty();
+            }
+
+            @Override
+            public PostSearchDocument next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.get(position++);
+            }
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.forumstartup.search;
+
+/*
+    One row of posts_tags
+ */
+public record PostTagLink(Long postId, Long tagId) {
+}
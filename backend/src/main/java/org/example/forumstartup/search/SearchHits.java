@@ -0,0 +1,13 @@
+package org.example.forumstartup.search;
+
+import java.util.List;
+
+/*
+    The best `limit` matches of a query, best first, and how many posts matched in total
+ */
+public record SearchHits(List<Long> postIds, int total) {
+
+    public static SearchHits none() {
+        return new SearchHits(List.of(), 0);
+    }
+}
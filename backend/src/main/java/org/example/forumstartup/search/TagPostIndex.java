@@ -0,0 +1,142 @@
+package org.example.forumstartup.search;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+    In-process index of tag id -> posts carrying the tag, one compressed
+    (Roaring) bitmap of post ids per tag.
+
+    Answers multi-tag AND / OR selections and per-tag counts within a selection
+    (facets) with bitmap operations, no join over posts_tags. Post ids are
+    stored as ints, as auto-increment ids of this forum stay far below 2^31.
+
+    Reads run concurrently, writes are serialized behind a read/write lock;
+    query results are private copies, safe to use after the lock is released.
+ */
+@Component
+public class TagPostIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, RoaringBitmap> postsByTag = new HashMap<>();
+    private volatile boolean ready;
+
+    /*
+        False until the first build has completed
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void replaceAll(Map<Long, RoaringBitmap> built) {
+        built.values().forEach(RoaringBitmap::runOptimize);
+
+        lock.writeLock().lock();
+        try {
+            postsByTag = built;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+        Makes `tagIds` the complete set of tags of the post
+     */
+    public void setTags(Long postId, Collection<Long> tagIds) {
+        int id = Math.toIntExact(postId);
+
+        lock.writeLock().lock();
+        try {
+            postsByTag.forEach((tagId, posts) -> {
+                if (!tagIds.contains(tagId)) {
+                    posts.remove(id);
+                }
+            });
+            for (Long tagId : tagIds) {
+                postsByTag.computeIfAbsent(tagId, t -> new RoaringBitmap()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removePost(Long postId) {
+        int id = Math.toIntExact(postId);
+
+        lock.writeLock().lock();
+        try {
+            postsByTag.values().forEach(posts -> posts.remove(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+        Posts carrying every one of the tags
+     */
+    public RoaringBitmap postsWithAll(Collection<Long> tagIds) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = null;
+            for (Long tagId : tagIds) {
+                RoaringBitmap posts = postsByTag.get(tagId);
+                if (posts == null) {
+                    return new RoaringBitmap();
+                }
+                result = result == null ? posts.clone() : RoaringBitmap.and(result, posts);
+            }
+            return result == null ? new RoaringBitmap() : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+        Posts carrying at least one of the tags
+     */
+    public RoaringBitmap postsWithAny(Collection<Long> tagIds) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = new RoaringBitmap();
+            for (Long tagId : tagIds) {
+                RoaringBitmap posts = postsByTag.get(tagId);
+                if (posts != null) {
+                    result.or(posts);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+        Number of posts per tag, restricted to `within` unless it is null.
+        Tags without posts are left out.
+     */
+    public Map<Long, Integer> counts(RoaringBitmap within) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> counts = new HashMap<>();
+            postsByTag.forEach((tagId, posts) -> {
+                int count = within == null
+                        ? posts.getCardinality()
+                        : RoaringBitmap.andCardinality(posts, within);
+                if (count > 0) {
+                    counts.put(tagId, count);
+                }
+            });
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.forumstartup.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.forumstartup.events.PostChangedEvent;
+import org.example.forumstartup.repositories.PostRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Feeds TagPostIndex from posts_tags: a full build on startup and
+    incremental updates after every committed tag change or post delete.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TagPostIndexer {
+
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    private final PostRepository postRepository;
+    private final TagPostIndex tagPostIndex;
+
+    // posts changed while a rebuild was reading the table, re-read once it is swapped in
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        int links = rebuild();
+        log.info("Tag index built with {} post-tag links", links);
+    }
+
+    public synchronized int rebuild() {
+        rebuilding = true;
+        try {
+            Map<Long, RoaringBitmap> postsByTag = new HashMap<>();
+            int links = 0;
+            long afterPostId = 0;
+            long afterTagId = 0;
+
+            List<PostTagLink> batch;
+            do {
+                batch = postRepository.findTagLinksAfter(afterPostId, afterTagId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (PostTagLink link : batch) {
+                    postsByTag.computeIfAbsent(link.tagId(), t -> new RoaringBitmap())
+                            .add(Math.toIntExact(link.postId()));
+                }
+                if (!batch.isEmpty()) {
+                    PostTagLink last = batch.get(batch.size() - 1);
+                    afterPostId = last.postId();
+                    afterTagId = last.tagId();
+                    links += batch.size();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+
+            tagPostIndex.replaceAll(postsByTag);
+            return links;
+        } finally {
+            rebuilding = false;
+            for (Long postId : changedDuringRebuild) {
+                changedDuringRebuild.remove(postId);
+                sync(postId);
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPostChanged(PostChangedEvent event) {
+        try {
+            switch (event.type()) {
+                case DELETED -> tagPostIndex.removePost(event.postId());
+                case TAGS_CHANGED -> sync(event.postId());
+                default -> {
+                    // title and content do not affect the tag index
+                    return;
+                }
+            }
+            if (rebuilding) {
+                changedDuringRebuild.add(event.postId());
+            }
+        } catch (RuntimeException e) {
+            // the write itself is already committed, never fail the request because of the index
+            log.warn("Could not update tag index for post {}", event.postId(), e);
+        }
+    }
+
+    private void sync(Long postId) {
+        tagPostIndex.setTags(postId, Set.copyOf(postRepository.findTagIdsByPostId(postId)));
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.forumstartup.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Splits text into normalized search terms.
+
+    A term is a maximal run of letters and digits, lower-cased.
+    Everything else (whitespace, punctuation, symbols) is a separator.
+    Over-long terms are truncated so a single pasted blob cannot bloat the dictionary.
+ */
+public final class Tokenizer {
+
+    public static final int MAX_TERM_LENGTH = 40;
+
+    private Tokenizer() {}
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+
+        StringBuilder current = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if (Character.isLetterOrDigit(cp)) {
+                if (current.length() < MAX_TERM_LENGTH) {
+                    current.appendCodePoint(Character.toLowerCase(cp));
+                }
+            } else if (!current.isEmpty()) {
+                terms.add(current.toString());
+                current.setLength(0);
+            }
+        }
+
+        if (!current.isEmpty()) {
+            terms.add(current.toString());
+        }
+        return terms;
+    }
+}
@@ -1,43 +1,111 @@
 package org.example.forumstartup.security;
 
-import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.enums.ERole;
+import org.example.forumstartup.models.Role;
 import org.example.forumstartup.models.User;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-@RequiredArgsConstructor
+/*
+    Immutable snapshot of the fields authentication needs (id, username, roles,
+    blocked flag), so it can be cached and kept on the SecurityContext without
+    holding on to a managed User entity.
+ */
 public class CustomUserDetails implements UserDetails {
 
-    private final User user;
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final Set<Role> roles;
+    private final boolean blocked;
+    private final List<SimpleGrantedAuthority> authorities;
 
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles()
-                .stream()
+    public CustomUserDetails(User user) {
+        this(
+                user.getId(),
+                user.getUsername(),
+                user.getPassword(),
+                user.getRoles().stream()
+                        .map(role -> new Role(role.getId(), role.getName()))
+                        .collect(Collectors.toUnmodifiableSet()),
+                user.isBlocked()
+        );
+    }
+
+    private CustomUserDetails(Long id, String username, String password, Set<Role> roles, boolean blocked) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.roles = roles;
+        this.blocked = blocked;
+        this.authorities = roles.stream()
                 .map(role -> new SimpleGrantedAuthority(role.getName().name()))
                 .toList();
     }
 
+    /*
+        Principal rebuilt from verified token claims, without a query
+     */
+    public static CustomUserDetails fromClaims(Long id, String username, Collection<String> roleNames) {
+        Set<Role> roles = roleNames.stream()
+                .map(name -> new Role(null, ERole.valueOf(name)))
+                .collect(Collectors.toUnmodifiableSet());
+        return new CustomUserDetails(id, username, null, roles, false);
+    }
+
+    /*
+        Same principal without the password hash, for caching
+     */
+    public CustomUserDetails withoutPassword() {
+        return new CustomUserDetails(id, username, null, roles, blocked);
+    }
+
+    /*
+        Detached User carrying only the snapshot fields. Good enough as the acting
+        user of a request and as a reference in associations; load the user by id
+        when anything else (profile fields, updates) is needed.
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setBlocked(blocked);
+        roles.forEach(role -> user.getRoles().add(new Role(role.getId(), role.getName())));
+        return user;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return username;
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public boolean isEnabled() {
-        return !user.isBlocked();
+        return !blocked;
     }
 
     @Override
     public boolean isAccountNonLocked() {
-        return !user.isBlocked();
+        return !blocked;
     }
 }
@@ -1,27 +1,57 @@
 package org.example.forumstartup.security;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.forumstartup.monitoring.AuthenticationEvent;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwt;
-    private final CustomUserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final TokenRevocations revocations;
 
-    public JwtAuthenticationFilter(JwtUtils jwt, CustomUserDetailsService userDetailsService) {
+    // time spent authenticating, without the rest of the chain
+    private final Timer authenticated;
+    private final Timer anonymous;
+    private final Timer rejected;
+
+    public JwtAuthenticationFilter(
+            JwtUtils jwt,
+            PrincipalCache principalCache,
+            TokenRevocations revocations,
+            MeterRegistry registry
+    ) {
         this.jwt = jwt;
-        this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.revocations = revocations;
+        this.authenticated = authTimer(registry, "authenticated");
+        this.anonymous = authTimer(registry, "anonymous");
+        this.rejected = authTimer(registry, "rejected");
+    }
+
+    private static Timer authTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("forum.auth.filter")
+                .description("JWT authentication of private and admin requests")
+                .tag("outcome", outcome)
+                .register(registry);
     }
 
     @Override
@@ -43,6 +73,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
+        AuthenticationEvent event = new AuthenticationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Timer outcome = rejected;
+        try {
+            outcome = authenticate(request) ? authenticated : anonymous;
+        } finally {
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = path;
+                event.outcome = outcome.getId().getTag("outcome");
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails principal
+                        && principal.getId() != null) {
+                    event.userId = principal.getId();
+                }
+                event.commit();
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean authenticate(HttpServletRequest request) {
         String token = null;
 
         if (request.getCookies() != null) {
@@ -54,17 +109,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
         }
 
-        if (token != null && jwt.validateToken(token)) {
-            String username = jwt.getUsernameFromToken(token);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        Optional<Claims> claims = token == null ? Optional.empty() : jwt.parse(token);
 
-            UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities()
-                    );
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (claims.isEmpty() || revocations.isRevoked(claims.get())) {
+            return false;
         }
 
-        filterChain.doFilter(request, response);
+        UserDetails userDetails = principalFor(claims.get());
+
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities()
+                );
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        return true;
+    }
+
+    /*
+        Trusts the claims unless the user changed since the token was issued,
+        or the token predates the id and roles claims
+     */
+    private UserDetails principalFor(Claims claims) {
+        Long userId = claims.get(JwtUtils.USER_ID_CLAIM, Long.class);
+        List<?> roles = claims.get(JwtUtils.ROLES_CLAIM, List.class);
+
+        if (userId == null || roles == null || revocations.isStale(claims)) {
+            return principalCache.get(claims.getSubject());
+        }
+        return CustomUserDetails.fromClaims(userId, claims.getSubject(), roles.stream().map(String::valueOf).toList());
     }
 }
\ No newline at end of file
@@ -1,59 +1,134 @@
 package org.example.forumstartup.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import org.example.forumstartup.utils.BoundedMaps;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
 public class JwtUtils {
 
+    // 24 hours
+    public static final long EXPIRATION_MS = 24 * 60 * 60 * 1000;
+
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLES_CLAIM = "roles";
+
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private int verifiedCacheMaxSize;
+
     private Key key;
 
+    // immutable, shared by all requests
+    private JwtParser parser;
+
+    /*
+        Claims of tokens whose signature was already checked, by SHA-256 of the
+        token. A browser sends the same cookie on every request, so most requests
+        skip the base64/JSON parsing and the HMAC check entirely.
+     */
+    private final Map<ByteBuffer, Claims> verified = new ConcurrentHashMap<>();
+    private final LongAdder verifiedHits = new LongAdder();
+    private final LongAdder verifiedMisses = new LongAdder();
+
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
-    public String generateToken(String username, Set<String> roles) {
-        // 24 hours
-        long expirationMs = 24 * 60 * 60 * 1000;
-
+    /*
+        The token carries everything authorization needs (id, username, roles),
+        JwtAuthenticationFilter only goes to the database when TokenRevocations
+        says the user changed since the token was issued.
+     */
+    public String generateToken(Long userId, String username, Set<String> roles) {
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .claim("roles", roles)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(ROLES_CLAIM, roles)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public boolean validateToken(String token) {
+    /*
+        Verified, unexpired claims of the token, or empty if the token is invalid
+     */
+    public Optional<Claims> parse(String token) {
+        ByteBuffer digest = digest(token);
+        long now = System.currentTimeMillis();
+
+        Claims claims = verified.get(digest);
+        if (claims != null) {
+            if (!isExpired(claims, now)) {
+                verifiedHits.increment();
+                return Optional.of(claims);
+            }
+            verified.remove(digest);
+            return Optional.empty();
+        }
+
+        verifiedMisses.increment();
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
+            claims = parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
+
+        BoundedMaps.makeRoom(verified, verifiedCacheMaxSize, cached -> isExpired(cached, now));
+        verified.put(digest, claims);
+        return Optional.of(claims);
     }
 
-    public String getUsernameFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    public long verifiedCacheHits() {
+        return verifiedHits.sum();
+    }
+
+    // tokens seen for the first time, whether they turn out valid or not
+    public long verifiedCacheMisses() {
+        return verifiedMisses.sum();
+    }
+
+    public int verifiedCacheSize() {
+        return verified.size();
+    }
+
+    private static boolean isExpired(Claims claims, long now) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.getTime() <= now;
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,93 @@
+package org.example.forumstartup.security;
+
+import org.example.forumstartup.events.UserChangedEvent;
+import org.example.forumstartup.repositories.UserRepository;
+import org.example.forumstartup.utils.BoundedMaps;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Principals of authenticated requests by username, so a valid JWT does not
+    cost a user + roles query on every request.
+
+    Entries expire after `ttl-ms` and are evicted as soon as UserServiceImpl
+    commits a change to the user. A lookup that raced with such a change does
+    not store what it read, so a stale principal can never outlive the change.
+    Blocked users are cached too, they are rejected without a query.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PrincipalCache(
+            UserRepository userRepository,
+            @Value("${forum.security.principal-cache.max-size:10000}") int maxSize,
+            @Value("${forum.security.principal-cache.ttl-ms:60000}") long ttlMillis
+    ) {
+        this.userRepository = userRepository;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public CustomUserDetails get(String username) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry != null && entry.expiresAt > now) {
+            hits.increment();
+            return ensureEnabled(entry.details);
+        }
+        misses.increment();
+
+        long seen = invalidations.get();
+        CustomUserDetails details = userRepository.findByUsernameWithRoles(username)
+                .map(user -> new CustomUserDetails(user).withoutPassword())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+
+        if (invalidations.get() == seen) {
+            BoundedMaps.makeRoom(entries, maxSize, cached -> cached.expiresAt <= now);
+            entries.put(username, new Entry(details, now + ttlMillis));
+        }
+        return ensureEnabled(details);
+    }
+
+    public void invalidate(String username) {
+        invalidations.incrementAndGet();
+        entries.remove(username);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.username());
+    }
+
+    public PrincipalCacheStats stats() {
+        return PrincipalCacheStats.of(hits.sum(), misses.sum(), entries.size());
+    }
+
+    private static CustomUserDetails ensureEnabled(CustomUserDetails details) {
+        if (!details.isEnabled()) {
+            throw new DisabledException("User is blocked");
+        }
+        return details;
+    }
+
+    private record Entry(CustomUserDetails details, long expiresAt) {
+    }
+}
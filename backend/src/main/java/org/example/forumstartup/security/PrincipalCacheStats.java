@@ -0,0 +1,9 @@
+package org.example.forumstartup.security;
+
+public record PrincipalCacheStats(long hits, long misses, double hitRate, int size) {
+
+    public static PrincipalCacheStats of(long hits, long misses, int size) {
+        long lookups = hits + misses;
+        return new PrincipalCacheStats(hits, misses, lookups == 0 ? 0 : (double) hits / lookups, size);
+    }
+}
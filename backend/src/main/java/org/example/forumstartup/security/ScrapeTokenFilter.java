@@ -0,0 +1,67 @@
+package org.example.forumstartup.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/*
+    Lets a metrics scraper in with the static bearer token configured in
+    forum.metrics.scrape-token, instead of an admin's jwt that expires daily.
+    The token grants ROLE_METRICS, which SecurityConfig only lets through to
+    SCRAPE_PATH.
+    Without a configured token the filter does nothing.
+ */
+@Component
+public class ScrapeTokenFilter extends OncePerRequestFilter {
+
+    public static final String SCRAPE_PATH = "/api/admin/monitoring/prometheus";
+    public static final String METRICS_ROLE = "ROLE_METRICS";
+
+    private static final String BEARER = "Bearer ";
+
+    private final byte[] token;
+
+    public ScrapeTokenFilter(@Value("${forum.metrics.scrape-token:}") String token) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return token.length == 0;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    )
+            throws ServletException, IOException {
+
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)) {
+            byte[] presented = header.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8);
+            // constant time, the comparison must not tell how much of the token matched
+            if (MessageDigest.isEqual(token, presented)) {
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                        "metrics-scraper", null, List.of(new SimpleGrantedAuthority(METRICS_ROLE))
+                ));
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
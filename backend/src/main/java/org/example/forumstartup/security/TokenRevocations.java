@@ -0,0 +1,125 @@
+package org.example.forumstartup.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.example.forumstartup.events.UserChangedEvent;
+import org.example.forumstartup.repositories.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    What makes an otherwise valid token untrustworthy:
+
+    - revoked tokens (logout), by token id, until the token would expire anyway
+    - users changed since the token was issued (blocked, roles, username,
+      deleted), by username with the time of the change. Their tokens are
+      not rejected, JwtAuthenticationFilter just stops trusting the claims
+      and asks PrincipalCache instead.
+
+    Both sets only need to remember an entry for one token lifetime, after
+    that every affected token has expired.
+
+    Changes made by this instance arrive as UserChangedEvents. The time of each change is
+    also stored in users.security_changed_at, which is read on startup and
+    polled every `refresh-interval-ms` for the changes of other instances.
+    Until the first read every token counts as stale, so a restart never
+    trusts the claims of a user blocked before it. Revoked tokens stay local
+    to the instance that saw the logout.
+ */
+@Slf4j
+@Component
+public class TokenRevocations {
+
+    // commits that took a while are still seen by the next poll
+    private static final long POLL_OVERLAP_MS = 60_000;
+
+    private final UserRepository userRepository;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, Long> changedUsers = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+    // guarded by this
+    private long polledAt;
+
+    public TokenRevocations(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public void revoke(Claims claims) {
+        // tokens issued before token ids existed cannot be revoked one by one
+        if (claims.getId() == null) {
+            return;
+        }
+        Date expiration = claims.getExpiration();
+        long expiresAt = expiration != null
+                ? expiration.getTime()
+                : System.currentTimeMillis() + JwtUtils.EXPIRATION_MS;
+        revokedTokens.put(claims.getId(), expiresAt);
+    }
+
+    public boolean isRevoked(Claims claims) {
+        return claims.getId() != null && revokedTokens.containsKey(claims.getId());
+    }
+
+    /*
+        True when the user changed after the token was issued, so its claims may be outdated
+     */
+    public boolean isStale(Claims claims) {
+        if (!loaded) {
+            return true;
+        }
+        Long changedAt = changedUsers.get(claims.getSubject());
+        if (changedAt == null) {
+            return false;
+        }
+        // iat has second precision, a token issued in the same second counts as stale
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt == null || issuedAt.getTime() <= changedAt;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserChanged(UserChangedEvent event) {
+        changedUsers.merge(event.username(), System.currentTimeMillis(), Math::max);
+    }
+
+    /*
+        Reads the changes stored since the last poll, the first call reads one token lifetime back
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${forum.security.revocations.refresh-interval-ms:10000}")
+    public synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        long since = loaded ? polledAt - POLL_OVERLAP_MS : now - JwtUtils.EXPIRATION_MS;
+        List<UserSecurityChange> changes = userRepository.findSecurityChangedSince(
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(since), ZoneId.systemDefault()));
+        for (UserSecurityChange change : changes) {
+            long changedAt = change.changedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            changedUsers.merge(change.username(), changedAt, Math::max);
+        }
+        polledAt = now;
+        if (!loaded) {
+            loaded = true;
+            log.info("Loaded {} users changed within the token lifetime", changes.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${forum.security.revocations.purge-interval-ms:600000}")
+    public void purge() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        changedUsers.values().removeIf(changedAt -> changedAt + JwtUtils.EXPIRATION_MS <= now);
+    }
+}
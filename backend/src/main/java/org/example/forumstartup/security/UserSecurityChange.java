@@ -0,0 +1,6 @@
+package org.example.forumstartup.security;
+
+import java.time.LocalDateTime;
+
+public record UserSecurityChange(String username, LocalDateTime changedAt) {
+}
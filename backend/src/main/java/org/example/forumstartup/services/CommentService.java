@@ -1,6 +1,9 @@
 package org.example.forumstartup.services;
 
+import org.example.forumstartup.dtos.comment.CommentThreadNodeDto;
+import org.example.forumstartup.dtos.comment.CommentTreeEntryDto;
 import org.example.forumstartup.dtos.comment.CreateCommentDto;
+import org.example.forumstartup.dtos.common.CursorPageDto;
 import org.example.forumstartup.dtos.comment.UpdateCommentDto;
 import org.example.forumstartup.models.Comment;
 import org.example.forumstartup.models.User;
@@ -19,11 +22,39 @@ public interface CommentService {
 
     List<Comment> listCommentsByPost(Long postId);
 
-    Comment likeComment(Long commentId, User user);
+    /*
+        Returns the comment's like count, including this like
+     */
+    int likeComment(Long commentId, User user);
 
-    Comment unlikeComment(Long commentId, User user);
+    int unlikeComment(Long commentId, User user);
 
     void softAdminDeleteComment(Long commentId, User admin);
 
     Page<Comment> listCommentsByPost(Long postId, Pageable pageable);
+
+    /*
+        Oldest first, keyset paginated
+     */
+    CursorPageDto<Comment> listCommentsByPost(Long postId, String cursor, int size);
+
+    /*
+        The replies of `parentId` (top-level comments when null) as a keyset page,
+        each with its replies nested down to `depth` levels and at most `replies`
+        shown per comment. The whole thread is read with one query.
+     */
+    CursorPageDto<CommentThreadNodeDto> getThread(
+            Long postId, Long parentId, String cursor, int size, int depth, int replies
+    );
+
+    /*
+        The comment and all replies below it in depth-first order, keyset paginated
+        by materialized path
+     */
+    CursorPageDto<CommentTreeEntryDto> getSubtree(Long commentId, String cursor, int size);
+
+    /*
+        Replies at any depth below the comment
+     */
+    long countReplies(Long commentId);
 }
@@ -1,17 +1,31 @@
 package org.example.forumstartup.services;
 
 import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.dtos.comment.CommentThreadNodeDto;
+import org.example.forumstartup.dtos.comment.CommentTreeEntryDto;
 import org.example.forumstartup.dtos.comment.CreateCommentDto;
 import org.example.forumstartup.dtos.comment.UpdateCommentDto;
+import org.example.forumstartup.dtos.common.CursorPageDto;
 import org.example.forumstartup.enums.ERole;
+import org.example.forumstartup.events.CommentCountChangedEvent;
 import org.example.forumstartup.exceptions.AuthorizationException;
 import org.example.forumstartup.exceptions.EntityNotFoundException;
+import org.example.forumstartup.exceptions.InvalidCursorException;
+import org.example.forumstartup.exceptions.InvalidOperationException;
+import org.example.forumstartup.likes.CommentLikeBuffer;
 import org.example.forumstartup.mappers.CommentMapper;
 import org.example.forumstartup.models.Comment;
 import org.example.forumstartup.models.Post;
 import org.example.forumstartup.models.User;
+import org.example.forumstartup.readmodel.CommentPosition;
+import org.example.forumstartup.readmodel.CommentTree;
+import org.example.forumstartup.readmodel.CommentView;
 import org.example.forumstartup.repositories.CommentRepository;
 import org.example.forumstartup.repositories.PostRepository;
+import org.example.forumstartup.utils.CommentPaths;
+import org.example.forumstartup.utils.Cursor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -19,17 +33,25 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 
+import static org.example.forumstartup.utils.ListUtils.clampLimit;
 import static org.example.forumstartup.utils.StringConstants.*;
 
 @Service
 @RequiredArgsConstructor
 public class CommentServiceImpl implements CommentService {
 
+    // deeper replies are loaded with their parent's id
+    private static final int MAX_THREAD_DEPTH = 10;
+
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final CommentMapper commentMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CommentLikeBuffer commentLikeBuffer;
 
     @Override
     @Transactional
@@ -39,13 +61,24 @@ public class CommentServiceImpl implements CommentService {
         Post post = getPost(postId);
 
         Comment parent = null;
+        String parentPath = null;
         if (dto.parentId() != null) {
             parent = getComment(dto.parentId());
             ensureSamePost(post, parent);
+            parentPath = pathOf(parent);
+            if (!CommentPaths.canHaveReplies(parentPath)) {
+                throw new InvalidOperationException(REPLY_TOO_DEEP_EXCEPTION_MESSAGE);
+            }
         }
 
         Comment comment = commentMapper.createFromDto(post, user, parent, dto);
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+
+        // the path ends with the comment's own id, known after the insert
+        saved.setPath(CommentPaths.childOf(parentPath, saved.getId()));
+
+        adjustCommentsCount(post, 1);
+        return saved;
     }
 
     @Override
@@ -70,9 +103,15 @@ public class CommentServiceImpl implements CommentService {
 
         ensureAuthorOrAdmin(comment, user);
 
+        boolean alreadyDeleted = comment.getIsDeleted();
+
         comment.setIsDeleted(true);
         comment.setDeletedAt(LocalDateTime.now());
         comment.setDeletedBy(user);
+
+        if (!alreadyDeleted) {
+            adjustCommentsCount(comment.getPost(), -1);
+        }
     }
 
     @Override
@@ -83,49 +122,168 @@ public class CommentServiceImpl implements CommentService {
     }
 
     @Override
-    @Transactional
-    public Comment likeComment(Long commentId, User user) {
+    public int likeComment(Long commentId, User user) {
         ensureNotBlocked(user);
-        Comment comment = getComment(commentId);
+        return commentLikeBuffer.like(commentId, user.getId());
+    }
 
-        if (comment.getCreator().getId().equals(user.getId())) {
-            throw new AuthorizationException(OWN_COMMENT_LIKE_EXCEPTION_MESSAGE);
-        }
+    @Override
+    public int unlikeComment(Long commentId, User user) {
+        return commentLikeBuffer.unlike(commentId, user.getId());
+    }
 
-        if (!comment.getLikedBy().contains(user)) {
-            comment.getLikedBy().add(user);
-            comment.setLikesCount(comment.getLikesCount() + 1);
-        }
+    @Override
+    @Transactional
+    public void softAdminDeleteComment(Long commentId, User admin) {
+        softDeleteComment(commentId, admin);
+    }
 
-        return commentRepository.save(comment);
+    @Override
+    public Page<Comment> listCommentsByPost(Long postId, Pageable pageable) {
+        return commentRepository.findByPostId(postId, pageable);
     }
 
     @Override
-    @Transactional
-    public Comment unlikeComment(Long commentId, User user) {
-        Comment comment = getComment(commentId);
+    @Transactional(readOnly = true)
+    public CursorPageDto<Comment> listCommentsByPost(Long postId, String cursor, int size) {
+        int pageSize = clampLimit(size);
+        Cursor after = Cursor.decode(cursor);
+
+        List<Comment> rows = after == null
+                ? commentRepository.findFirstByPost(postId, Limit.of(pageSize + 1))
+                : commentRepository.findByPostAfter(postId, after.createdAt(), after.id(), Limit.of(pageSize + 1));
+
+        return CursorPageDto.of(rows, pageSize, c -> new Cursor(c.getCreatedAt(), c.getId()));
+    }
 
-        boolean removed = comment.getLikedBy().remove(user);
-        if (!removed) {
-            return comment;
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<CommentThreadNodeDto> getThread(
+            Long postId, Long parentId, String cursor, int size, int depth, int replies
+    ) {
+        List<CommentView> rows = commentRepository.findThreadByPost(postId);
+        if (rows.isEmpty()) {
+            // only an empty thread needs to tell a missing post from a quiet one
+            getPost(postId);
         }
 
-        comment.setLikesCount(Math.max(0, comment.getLikesCount() - 1));
-        return comment;
+        CommentTree tree = CommentTree.of(rows);
+        if (parentId != null && !tree.contains(parentId)) {
+            throw new EntityNotFoundException("Comment", "id", parentId.toString());
+        }
+
+        int maxDepth = Math.max(1, Math.min(depth, MAX_THREAD_DEPTH));
+        int repliesShown = clampLimit(replies);
+
+        return page(tree.repliesOf(parentId), Cursor.decode(cursor), clampLimit(size))
+                .map(c -> toNode(tree, c, maxDepth - 1, repliesShown));
     }
 
     @Override
-    @Transactional
-    public void softAdminDeleteComment(Long commentId, User admin) {
-        softDeleteComment(commentId, admin);
+    @Transactional(readOnly = true)
+    public CursorPageDto<CommentTreeEntryDto> getSubtree(Long commentId, String cursor, int size) {
+        CommentPosition root = getPosition(commentId);
+        boolean fromStart = cursor == null || cursor.isBlank();
+        if (!fromStart && !(CommentPaths.isValid(cursor) && cursor.startsWith(root.path()))) {
+            throw new InvalidCursorException(INVALID_CURSOR_EXCEPTION_MESSAGE);
+        }
+
+        int pageSize = clampLimit(size);
+        List<CommentView> rows = commentRepository.findSubtree(
+                root.postId(), root.path() + "%", fromStart ? "" : cursor, Limit.of(pageSize + 1));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<CommentView> items = hasNext ? rows.subList(0, pageSize) : rows;
+        int rootDepth = CommentPaths.depth(root.path());
+
+        return new CursorPageDto<>(
+                items.stream()
+                        .map(c -> new CommentTreeEntryDto(commentMapper.toDto(c), CommentPaths.depth(c.path()) - rootDepth))
+                        .toList(),
+                hasNext ? items.get(items.size() - 1).path() : null,
+                hasNext
+        );
     }
 
     @Override
-    public Page<Comment> listCommentsByPost(Long postId, Pageable pageable) {
-        return commentRepository.findByPostId(postId, pageable);
+    @Transactional(readOnly = true)
+    public long countReplies(Long commentId) {
+        CommentPosition root = getPosition(commentId);
+        // the subtree includes the comment itself
+        return commentRepository.countSubtree(root.postId(), root.path() + "%") - 1;
     }
 
     // private helpers
+    private CommentPosition getPosition(Long commentId) {
+        CommentPosition position = commentRepository.findPositionById(commentId)
+                .orElseThrow(() -> new EntityNotFoundException("Comment", "id", commentId.toString()));
+        if (position.path() == null) {
+            throw new InvalidOperationException(COMMENT_PATH_PENDING_EXCEPTION_MESSAGE);
+        }
+        return position;
+    }
+
+    private CommentThreadNodeDto toNode(CommentTree tree, CommentView comment, int depthLeft, int repliesShown) {
+        List<CommentView> replies = tree.repliesOf(comment.id());
+        if (depthLeft == 0 || replies.isEmpty()) {
+            return new CommentThreadNodeDto(commentMapper.toDto(comment), List.of(), replies.size(), null);
+        }
+
+        CursorPageDto<CommentThreadNodeDto> shown = page(replies, null, repliesShown)
+                .map(reply -> toNode(tree, reply, depthLeft - 1, repliesShown));
+        return new CommentThreadNodeDto(commentMapper.toDto(comment), shown.items(), replies.size(), shown.nextCursor());
+    }
+
+    /*
+        Keyset page of sibling comments, which the tree keeps in (createdAt, id) order
+     */
+    private static CursorPageDto<CommentView> page(List<CommentView> siblings, Cursor after, int size) {
+        int from = 0;
+        if (after != null) {
+            while (from < siblings.size() && !isAfter(siblings.get(from), after)) {
+                from++;
+            }
+        }
+
+        List<CommentView> rows = siblings.subList(from, Math.min(siblings.size(), from + size + 1));
+        return CursorPageDto.of(rows, size, c -> new Cursor(c.createdAt(), c.id()));
+    }
+
+    private static boolean isAfter(CommentView comment, Cursor cursor) {
+        int byTime = comment.createdAt().compareTo(cursor.createdAt());
+        return byTime > 0 || (byTime == 0 && comment.id() > cursor.id());
+    }
+
+    /*
+        The stored path, or for a comment the backfill has not reached yet the path
+        built from its ancestors. The missing paths on the way are stored as well,
+        so only the first reply below an old thread walks up its ancestors.
+     */
+    private static String pathOf(Comment comment) {
+        Deque<Comment> pending = new ArrayDeque<>();
+        Comment ancestor = comment;
+        while (ancestor != null && ancestor.getPath() == null) {
+            pending.push(ancestor);
+            ancestor = ancestor.getParent();
+        }
+
+        String path = ancestor == null ? null : ancestor.getPath();
+        while (!pending.isEmpty()) {
+            Comment next = pending.pop();
+            path = CommentPaths.childOf(path, next.getId());
+            if (path.length() > CommentPaths.MAX_LENGTH) {
+                throw new InvalidOperationException(REPLY_TOO_DEEP_EXCEPTION_MESSAGE);
+            }
+            next.setPath(path);
+        }
+        return path;
+    }
+
+    private void adjustCommentsCount(Post post, int delta) {
+        postRepository.adjustCommentsCount(post.getId(), delta);
+        eventPublisher.publishEvent(new CommentCountChangedEvent(post.getId()));
+    }
+
     private void ensureNotBlocked(User user) {
         if (user.isBlocked()) {
             throw new AuthorizationException(BLOCKED_USER_EXCEPTION_MESSAGE);
@@ -1,11 +1,18 @@
 package org.example.forumstartup.services;
 
+import org.example.forumstartup.dtos.common.CursorPageDto;
+import org.example.forumstartup.dtos.post.PostResponseDto;
+import org.example.forumstartup.dtos.post.PostWithLikeStatusResponseDto;
+import org.example.forumstartup.dtos.tags.TagFacetsResponseDto;
+import org.example.forumstartup.enums.TagMatch;
 import org.example.forumstartup.models.Post;
 import org.example.forumstartup.models.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface PostService {
 
@@ -23,15 +30,31 @@ public interface PostService {
 
     void unlike(Long postId, User currentUser);
 
+    /*
+        Ids of the given posts the user has liked, resolved with a single query
+     */
+    Set<Long> findLikedPostIds(Collection<Long> postIds, User user);
+
+    boolean isLikedBy(Long postId, User user);
+
     Post getById(Long id);
 
-    List<Post> mostRecent(int limit);
+    List<PostResponseDto> mostRecent(int limit);
 
-    List<Post> topCommented(int limit);
+    /*
+        The post with full content, as seen by `viewer`
+     */
+    PostWithLikeStatusResponseDto getView(Long postId, User viewer);
 
-    List<Post> findByCreatorId(Long id, int limit);
+    List<PostResponseDto> topCommented(int limit);
 
-    List<Post> search(String text, int limit);
+    /*
+        Listings are read with one projection query, with `excerpt` only the
+        beginning of each post's content is returned
+     */
+    List<PostWithLikeStatusResponseDto> findByCreatorId(Long id, int limit, User viewer, boolean excerpt);
+
+    List<PostResponseDto> search(String text, int limit);
 
     List<Post> getAll();
 
@@ -39,7 +62,26 @@ public interface PostService {
 
     void removeTagFromPost(Long postId, User currentUser, String tagName);
 
-    List<Post> findByTag(String tagName, int limit);
+    List<PostWithLikeStatusResponseDto> findByTag(String tagName, int limit, User viewer, boolean excerpt);
+
+    /*
+        Newest first, keyset paginated: page N costs the same as page 1
+     */
+    CursorPageDto<PostWithLikeStatusResponseDto> feed(String cursor, int size, User viewer, boolean excerpt);
+
+    Page<PostWithLikeStatusResponseDto> filterPosts(String searchQuery, Pageable pageable, User viewer, boolean excerpt);
+
+    /*
+        Same, restricted to posts carrying all / any of `tags` (no restriction when empty)
+     */
+    Page<PostWithLikeStatusResponseDto> filterPosts(
+            String searchQuery, List<String> tags, TagMatch match, Pageable pageable, User viewer, boolean excerpt
+    );
+
+    /*
+        Per-tag post counts within the posts matching `tags`, from the tag index
+     */
+    TagFacetsResponseDto tagFacets(List<String> tags, TagMatch match, int limit);
 
-    Page<Post> filterPosts(String searchQuery, Pageable pageable);
+    int rebuildSearchIndex();
 }
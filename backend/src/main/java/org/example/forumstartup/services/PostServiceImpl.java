@@ -1,38 +1,87 @@
 package org.example.forumstartup.services;
 
 import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.cache.EntityCounters;
+import org.example.forumstartup.cache.RecentPostsRing;
+import org.example.forumstartup.cache.TagDictionary;
+import org.example.forumstartup.cache.TopCommentedLeaderboard;
+import org.example.forumstartup.dtos.common.CursorPageDto;
+import org.example.forumstartup.dtos.post.PostResponseDto;
+import org.example.forumstartup.dtos.post.PostWithLikeStatusResponseDto;
+import org.example.forumstartup.dtos.tags.TagCountDto;
+import org.example.forumstartup.dtos.tags.TagFacetsResponseDto;
 import org.example.forumstartup.enums.ERole;
+import org.example.forumstartup.enums.TagMatch;
+import org.example.forumstartup.events.PostChangedEvent;
+import org.example.forumstartup.events.PostLikesChangedEvent;
 import org.example.forumstartup.exceptions.AuthorizationException;
 import org.example.forumstartup.exceptions.EntityNotFoundException;
+import org.example.forumstartup.exceptions.InvalidTagFormatException;
+import org.example.forumstartup.mappers.PostMapper;
 import org.example.forumstartup.models.Post;
 import org.example.forumstartup.models.Role;
 import org.example.forumstartup.models.Tag;
 import org.example.forumstartup.models.User;
+import org.example.forumstartup.readmodel.PostView;
+import org.example.forumstartup.readmodel.PostViewRepository;
 import org.example.forumstartup.repositories.PostRepository;
-import org.example.forumstartup.spec.PostSpecs;
+import org.example.forumstartup.repositories.TagBatchRepository;
+import org.example.forumstartup.search.PostSearchIndex;
+import org.example.forumstartup.search.PostSearchIndexer;
+import org.example.forumstartup.search.SearchHits;
+import org.example.forumstartup.search.TagPostIndex;
+import org.example.forumstartup.utils.Cursor;
+import org.example.forumstartup.utils.TagNormalizer;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongPredicate;
 
-import static org.example.forumstartup.utils.ListUtils.trimToLimit;
+import static org.example.forumstartup.utils.ListUtils.clampLimit;
+import static org.example.forumstartup.utils.StringConstants.OWN_POST_LIKE_EXCEPTION_MESSAGE;
+import static org.example.forumstartup.utils.TagConstants.TAG_NORMALIZED_PATTERN_MESSAGE;
 
 @Service
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
 
+    // deepest search result that can be paged to
+    private static final int MAX_RANKED_RESULTS = 1000;
+
     private final PostRepository postRepository;
     private final TagService tagService;
+    private final TagBatchRepository tagBatchRepository;
+    private final PostSearchIndex searchIndex;
+    private final PostSearchIndexer searchIndexer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecentPostsRing recentPostsRing;
+    private final TopCommentedLeaderboard topCommentedLeaderboard;
+    private final PostMapper postMapper;
+    private final PostViewRepository postViewRepository;
+    private final TagPostIndex tagPostIndex;
+    private final TagDictionary tagDictionary;
+    private final EntityCounters entityCounters;
 
     /* ========================= READ METHODS ========================= */
 
     @Override
-    @Transactional(readOnly = true)
     public Long getTotalPostCount() {
+        if (entityCounters.isLoaded()) {
+            return entityCounters.posts();
+        }
         return postRepository.count();
     }
 
@@ -44,31 +93,51 @@ public class PostServiceImpl implements PostService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<Post> mostRecent(int limit) {
-        return trimToLimit(postRepository.findTop10ByOrderByCreatedAtDesc(), limit);
+    public List<PostResponseDto> mostRecent(int limit) {
+        if (recentPostsRing.isLoaded()) {
+            return recentPostsRing.newest(limit);
+        }
+
+        // only until the ring is filled on startup
+        int size = Math.max(1, Math.min(limit, recentPostsRing.capacity()));
+        return toSimpleDtos(postViewRepository.findNewest(size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostWithLikeStatusResponseDto getView(Long postId, User viewer) {
+        return postViewRepository.findById(postId, viewer.getId())
+                .map(postMapper::toAuthenticatedDto)
+                .orElseThrow(() -> new EntityNotFoundException("Post", "id", postId.toString()));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Post> topCommented(int limit) {
-        return trimToLimit(postRepository.findTop10MostCommented(), limit);
+    public List<PostResponseDto> topCommented(int limit) {
+        List<Long> ids = topCommentedLeaderboard.top(clampLimit(limit));
+        return toSimpleDtos(postViewRepository.findByIds(ids, null, false));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Post> findByCreatorId(Long id, int limit) {
-        List<Post> posts = postRepository.findByCreatorId(
-                id,
-                Sort.by(Sort.Direction.DESC, "createdAt")
+    public List<PostWithLikeStatusResponseDto> findByCreatorId(Long id, int limit, User viewer, boolean excerpt) {
+        return toAuthenticatedDtos(
+                postViewRepository.findByCreator(id, clampLimit(limit), viewer.getId(), excerpt)
         );
-        return trimToLimit(posts, limit);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Post> search(String text, int limit) {
-        List<Post> posts = postRepository.search(text == null ? "" : text.trim());
-        return trimToLimit(posts, limit);
+    public List<PostResponseDto> search(String text, int limit) {
+        String query = text == null ? "" : text.trim();
+
+        // LIKE scan only while the index is still being built on startup
+        if (query.isEmpty() || !searchIndex.isReady()) {
+            return toSimpleDtos(postViewRepository.search(query, clampLimit(limit)));
+        }
+
+        List<Long> ids = searchIndex.search(query, clampLimit(limit));
+        return toSimpleDtos(postViewRepository.findByIds(ids, null, false));
     }
 
     @Override
@@ -87,7 +156,9 @@ public class PostServiceImpl implements PostService {
         post.setCreator(currentUser);
         post.setLikesCount(0);
 
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        publish(saved.getId(), PostChangedEvent.Type.CREATED);
+        return saved;
     }
 
     @Override
@@ -100,7 +171,9 @@ public class PostServiceImpl implements PostService {
         if (updatePost.getTitle() != null) post.setTitle(updatePost.getTitle().trim());
         if (updatePost.getContent() != null) post.setContent(updatePost.getContent().trim());
 
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        publish(postId, PostChangedEvent.Type.UPDATED);
+        return saved;
     }
 
     @Override
@@ -110,6 +183,7 @@ public class PostServiceImpl implements PostService {
         Post post = getPostOrThrow(postId);
         ensureUserCanModifyPost(currentUser, post);
         postRepository.delete(post);
+        publish(postId, PostChangedEvent.Type.DELETED);
     }
 
     @Override
@@ -121,6 +195,7 @@ public class PostServiceImpl implements PostService {
         }
         Post post = getPostOrThrow(postId);
         postRepository.delete(post);
+        publish(postId, PostChangedEvent.Type.DELETED);
     }
 
     /* ========================= LIKE / UNLIKE ========================= */
@@ -131,12 +206,17 @@ public class PostServiceImpl implements PostService {
 
         ensureNotBlocked(currentUser);
 
-        Post post = getPostOrThrow(postId);
+        Long creatorId = postRepository.lockCreatorIdById(postId)
+                .orElseThrow(() -> new EntityNotFoundException("Post", "id", postId.toString()));
+
+        if (creatorId.equals(currentUser.getId())) {
+            throw new AuthorizationException(OWN_POST_LIKE_EXCEPTION_MESSAGE);
+        }
 
-        if (!post.getLikedBy().contains(currentUser)) {
-            post.getLikedBy().add(currentUser);
-            post.setLikesCount(post.getLikesCount() + 1);
-            postRepository.save(post);
+        // nothing inserted when the user already likes it
+        if (postRepository.insertLike(postId, currentUser.getId()) == 1) {
+            postRepository.adjustLikesCount(postId, 1);
+            eventPublisher.publishEvent(new PostLikesChangedEvent(postId, 1));
         }
     }
 
@@ -144,21 +224,100 @@ public class PostServiceImpl implements PostService {
     @Transactional
     public void unlike(Long postId, User currentUser) {
 
-        Post post = getPostOrThrow(postId);
+        // same lock order as like
+        if (postRepository.lockCreatorIdById(postId).isEmpty()) {
+            throw new EntityNotFoundException("Post", "id", postId.toString());
+        }
+
+        if (postRepository.deleteLike(postId, currentUser.getId()) == 1) {
+            postRepository.adjustLikesCount(postId, -1);
+            eventPublisher.publishEvent(new PostLikesChangedEvent(postId, -1));
+        }
+    }
 
-        if (post.getLikedBy().remove(currentUser)) {
-            post.setLikesCount(Math.max(0, post.getLikesCount() - 1));
-            postRepository.save(post);
+    @Override
+    public Set<Long> findLikedPostIds(Collection<Long> postIds, User user) {
+        if (postIds.isEmpty()) {
+            return Set.of();
         }
+        return new HashSet<>(postRepository.findLikedPostIds(user.getId(), postIds));
+    }
+
+    @Override
+    public boolean isLikedBy(Long postId, User user) {
+        return postRepository.countLike(postId, user.getId()) > 0;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<Post> filterPosts(String searchQuery, Pageable pageable) {
+    public CursorPageDto<PostWithLikeStatusResponseDto> feed(String cursor, int size, User viewer, boolean excerpt) {
+        int pageSize = clampLimit(size);
+        List<PostView> rows = postViewRepository.findFeed(Cursor.decode(cursor), pageSize + 1, viewer.getId(), excerpt);
 
-        Specification<Post> spec = PostSpecs.matchesAny(searchQuery);
+        return CursorPageDto.of(rows, pageSize, row -> new Cursor(row.createdAt(), row.postId()))
+                .map(postMapper::toAuthenticatedDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PostWithLikeStatusResponseDto> filterPosts(
+            String searchQuery, Pageable pageable, User viewer, boolean excerpt
+    ) {
+        if (searchQuery == null || searchQuery.isBlank() || !searchIndex.isReady()) {
+            return postViewRepository.findPage(searchQuery, pageable, viewer.getId(), excerpt)
+                    .map(postMapper::toAuthenticatedDto);
+        }
+
+        // search results are ordered by relevance, the requested sort does not apply
+        return pageOfRanked(searchQuery, postId -> true, pageable, viewer, excerpt);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PostWithLikeStatusResponseDto> filterPosts(
+            String searchQuery, List<String> tags, TagMatch match, Pageable pageable, User viewer, boolean excerpt
+    ) {
+        List<Long> tagIds = resolveTagIds(tags, match);
+        if (tagIds == null) {
+            return filterPosts(searchQuery, pageable, viewer, excerpt);
+        }
+
+        boolean searching = searchQuery != null && !searchQuery.isBlank();
+        if (tagPostIndex.isReady() && searching && searchIndex.isReady()) {
+            RoaringBitmap selection = select(tagIds, match);
+            return pageOfRanked(searchQuery, postId -> selection.contains(Math.toIntExact(postId)),
+                    pageable, viewer, excerpt);
+        }
+        if (tagPostIndex.isReady() && !searching && isNewestFirst(pageable.getSort())) {
+            return newestOf(select(tagIds, match), pageable, viewer, excerpt);
+        }
 
-        return postRepository.findAll(spec, pageable);
+        // other sorts, or while an index is being built
+        return postViewRepository.findPage(searchQuery, tagIds, match, pageable, viewer.getId(), excerpt)
+                .map(postMapper::toAuthenticatedDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TagFacetsResponseDto tagFacets(List<String> tags, TagMatch match, int limit) {
+        RoaringBitmap selection = selectByTags(tags, match);
+        long matchingPosts = selection == null ? getTotalPostCount() : selection.getLongCardinality();
+
+        List<TagCountDto> counts = tagPostIndex.counts(selection)
+                .entrySet()
+                .stream()
+                .map(e -> new TagCountDto(tagDictionary.nameOf(e.getKey()), e.getValue()))
+                .filter(c -> c.name() != null)
+                .sorted(Comparator.comparingInt(TagCountDto::posts).reversed().thenComparing(TagCountDto::name))
+                .limit(clampLimit(limit))
+                .toList();
+
+        return new TagFacetsResponseDto(matchingPosts, counts);
+    }
+
+    @Override
+    public int rebuildSearchIndex() {
+        return searchIndexer.rebuild();
     }
 
     @Override
@@ -171,12 +330,10 @@ public class PostServiceImpl implements PostService {
             return;
         }
 
-        for (String rawName : tagNames) {
-            Tag tag = tagService.findOrCreate(rawName);
-            post.getTags().add(tag);
-        }
+        List<Long> tagIds = tagService.findOrCreateAll(tagNames).stream().map(Tag::getId).toList();
+        tagBatchRepository.attachToPost(postId, tagIds);
 
-        postRepository.save(post);
+        publish(postId, PostChangedEvent.Type.TAGS_CHANGED);
     }
 
     @Override
@@ -190,17 +347,123 @@ public class PostServiceImpl implements PostService {
         post.getTags().removeIf(t -> t.getId().equals(tag.getId()));
 
         postRepository.save(post);
+        publish(postId, PostChangedEvent.Type.TAGS_CHANGED);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Post> findByTag(String tagName, int limit) {
+    public List<PostWithLikeStatusResponseDto> findByTag(String tagName, int limit, User viewer, boolean excerpt) {
         Tag tag = tagService.getByName(tagName); // normalized + validated
-        return trimToLimit(postRepository.findPostsByTagName(tag.getName()), limit);
+        return toAuthenticatedDtos(
+                postViewRepository.findByTag(tag.getId(), clampLimit(limit), viewer.getId(), excerpt)
+        );
     }
 
     /* ========================= HELPER METHODS ========================= */
 
+    /*
+        Ranks only the matches up to the end of the requested page. Pages past
+        MAX_RANKED_RESULTS are not served and the total is capped to match.
+     */
+    private Page<PostWithLikeStatusResponseDto> pageOfRanked(
+            String searchQuery, LongPredicate filter, Pageable pageable, User viewer, boolean excerpt
+    ) {
+        int limit = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), MAX_RANKED_RESULTS);
+        SearchHits hits = searchIndex.search(searchQuery, limit, filter);
+        List<Long> ranked = hits.postIds();
+
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+
+        List<PostView> page = postViewRepository.findByIds(ranked.subList(from, to), viewer.getId(), excerpt);
+        return new PageImpl<>(toAuthenticatedDtos(page), pageable, Math.min(hits.total(), MAX_RANKED_RESULTS));
+    }
+
+    /*
+        A page of the selection, newest first. Post ids grow with createdAt, so
+        the page is read from the end of the bitmap and only its rows are loaded.
+     */
+    private Page<PostWithLikeStatusResponseDto> newestOf(
+            RoaringBitmap selection, Pageable pageable, User viewer, boolean excerpt
+    ) {
+        long total = selection.getLongCardinality();
+        List<Long> ids = new ArrayList<>(pageable.getPageSize());
+        for (long rank = total - 1 - pageable.getOffset(); rank >= 0 && ids.size() < pageable.getPageSize(); rank--) {
+            ids.add(Integer.toUnsignedLong(selection.select((int) rank)));
+        }
+
+        List<PostView> page = postViewRepository.findByIds(ids, viewer.getId(), excerpt);
+        return new PageImpl<>(toAuthenticatedDtos(page), pageable, total);
+    }
+
+    /*
+        True for the orders newestOf can serve: createdAt or id descending, or none
+        (findPage then orders by id descending)
+     */
+    private static boolean isNewestFirst(Sort sort) {
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() != 1 || orders.get(0).isAscending()) {
+            return false;
+        }
+        String property = orders.get(0).getProperty();
+        return property.equals("createdAt") || property.equals("id");
+    }
+
+    /*
+        Posts carrying all / any of the tags, or null when no tags were given
+     */
+    private RoaringBitmap selectByTags(List<String> tags, TagMatch match) {
+        List<Long> tagIds = resolveTagIds(tags, match);
+        return tagIds == null ? null : select(tagIds, match);
+    }
+
+    private RoaringBitmap select(List<Long> tagIds, TagMatch match) {
+        return match == TagMatch.ALL ? tagPostIndex.postsWithAll(tagIds) : tagPostIndex.postsWithAny(tagIds);
+    }
+
+    /*
+        Ids of the known tags, null when no tags were given and empty when no
+        post can match. Unknown tags match no post.
+     */
+    private List<Long> resolveTagIds(List<String> tags, TagMatch match) {
+        if (tags == null || tags.isEmpty()) {
+            return null;
+        }
+
+        List<Long> tagIds = new ArrayList<>();
+        for (String raw : tags) {
+            String name = raw == null ? null : TagNormalizer.normalizeOrNull(raw);
+            if (name == null) {
+                throw new InvalidTagFormatException(TAG_NORMALIZED_PATTERN_MESSAGE);
+            }
+            Optional<Long> tagId = tagDictionary.idOf(name);
+            if (tagId.isEmpty() && match == TagMatch.ALL) {
+                return List.of();
+            }
+            tagId.ifPresent(tagIds::add);
+        }
+        return tagIds;
+    }
+
+    private void publish(Long postId, PostChangedEvent.Type type) {
+        eventPublisher.publishEvent(new PostChangedEvent(postId, type));
+    }
+
+    private List<PostResponseDto> toSimpleDtos(List<PostView> views) {
+        return views.stream()
+                .map(postMapper::toSimpleDto)
+                .toList();
+    }
+
+    private List<PostWithLikeStatusResponseDto> toAuthenticatedDtos(List<PostView> views) {
+        return views.stream()
+                .map(postMapper::toAuthenticatedDto)
+                .toList();
+    }
+
     private boolean isAdmin(User user) {
         for (Role role : user.getRoles()) {
             if (role.getName().equals(ERole.ROLE_ADMIN)) {
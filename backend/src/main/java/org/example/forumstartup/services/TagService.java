@@ -2,14 +2,22 @@ package org.example.forumstartup.services;
 
 import org.example.forumstartup.models.Tag;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface TagService {
 
     Tag findOrCreate(String name);
 
+    List<Tag> findOrCreateAll(Collection<String> names);
+
     Tag getByName(String name);
 
     List<Tag> getAll();
 
+    /*
+        All tag names in alphabetical order, from memory
+     */
+    List<String> getAllNames();
+
 }
@@ -1,14 +1,26 @@
 package org.example.forumstartup.services;
 
 import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.cache.TagDictionary;
+import org.example.forumstartup.events.TagsCreatedEvent;
 import org.example.forumstartup.exceptions.EntityNotFoundException;
 import org.example.forumstartup.exceptions.InvalidTagFormatException;
 import org.example.forumstartup.models.Tag;
+import org.example.forumstartup.repositories.TagBatchRepository;
 import org.example.forumstartup.repositories.TagRepository;
+import org.example.forumstartup.utils.TagNormalizer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.example.forumstartup.utils.TagConstants.*;
 
@@ -16,41 +28,124 @@ import static org.example.forumstartup.utils.TagConstants.*;
 @RequiredArgsConstructor
 public class TagServiceImpl implements TagService {
 
+    private static final int CREATE_ATTEMPTS = 3;
+
     private final TagRepository tagRepository;
+    private final TagBatchRepository tagBatchRepository;
+    private final TagDictionary tagDictionary;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
     public Tag findOrCreate(String name) {
         String normalized = normalize(name);
+
+        Optional<Long> knownId = tagDictionary.idOf(normalized);
+        if (knownId.isPresent()) {
+            return tagRepository.getReferenceById(knownId.get());
+        }
+
         return tagRepository.findByName(normalized)
                 .orElseGet(() -> {
                     Tag newTag = new Tag();
                     newTag.setName(normalized);
-                    return tagRepository.save(newTag);
+                    Tag saved = tagRepository.save(newTag);
+                    eventPublisher.publishEvent(new TagsCreatedEvent(Map.of(normalized, saved.getId())));
+                    return saved;
                 });
     }
 
+    /*
+        Tags for all names, in the order of the names without duplicates.
+        Known names cost nothing, the rest take one IN query, and names that do
+        not exist yet one insert batch plus one more IN query for their ids.
+        The returned tags are references, meant to be attached to posts.
+     */
+    @Override
+    @Transactional
+    public List<Tag> findOrCreateAll(Collection<String> names) {
+        Map<String, Long> ids = new LinkedHashMap<>();
+        for (String name : names) {
+            ids.put(normalize(name), null);
+        }
+
+        List<String> unknown = new ArrayList<>();
+        ids.replaceAll((name, id) -> {
+            Optional<Long> knownId = tagDictionary.idOf(name);
+            if (knownId.isEmpty()) {
+                unknown.add(name);
+            }
+            return knownId.orElse(null);
+        });
+
+        if (!unknown.isEmpty()) {
+            Map<String, Long> existing = idsByName(tagRepository.findByNameIn(unknown));
+            tagDictionary.addAll(existing);
+            ids.putAll(existing);
+
+            List<String> missing = unknown.stream().filter(name -> !existing.containsKey(name)).toList();
+            if (!missing.isEmpty()) {
+                Map<String, Long> created = create(missing);
+                eventPublisher.publishEvent(new TagsCreatedEvent(created));
+                ids.putAll(created);
+            }
+        }
+
+        return ids.values().stream()
+                .map(tagRepository::getReferenceById)
+                .toList();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Tag getByName(String name) {
         String normalized = normalize(name);
 
+        Optional<Long> knownId = tagDictionary.idOf(normalized);
+        if (knownId.isPresent()) {
+            return new Tag(knownId.get(), normalized, new HashSet<>());
+        }
+
         return tagRepository.findByName(normalized)
                 .orElseThrow(() ->
                         new EntityNotFoundException("Tag", "name", normalized)
                 );
     }
 
+    /*
+        Inserts the names and reads their ids back with a locking read, which also
+        sees the rows concurrent creators committed after this transaction's
+        snapshot. A name whose concurrent creator rolled back is still missing
+        then, and is inserted again.
+     */
+    private Map<String, Long> create(List<String> names) {
+        Map<String, Long> created = new HashMap<>();
+        List<String> missing = names;
+        for (int attempt = 1; !missing.isEmpty(); attempt++) {
+            if (attempt > CREATE_ATTEMPTS) {
+                throw new IllegalStateException("Could not create tags " + missing);
+            }
+            tagBatchRepository.insertIgnoringExisting(missing);
+            created.putAll(idsByName(tagRepository.findLockedByNameIn(missing)));
+            missing = missing.stream().filter(name -> !created.containsKey(name)).toList();
+        }
+        return created;
+    }
+
+    private static Map<String, Long> idsByName(List<Tag> tags) {
+        Map<String, Long> ids = new HashMap<>();
+        tags.forEach(tag -> ids.put(tag.getName(), tag.getId()));
+        return ids;
+    }
+
     private String normalize(String raw) {
         if (raw == null)
             throw new InvalidTagFormatException("Tag cannot be null.");
 
-        // Trim + lowercase + replace 1+ spaces with hyphens
-        String cleaned = raw.trim().toLowerCase()
-                .replaceAll("\\s+", "-")
-                .replaceAll("-{2,}", "-");
+        // Trim + lowercase + replace 1+ spaces with hyphens, in one pass
+        String cleaned = TagNormalizer.normalizeOrNull(raw);
 
-        if (!cleaned.matches(TAG_NORMALIZED_PATTERN))
+        if (cleaned == null)
             throw new InvalidTagFormatException(TAG_NORMALIZED_PATTERN_MESSAGE);
 
         return cleaned;
@@ -62,4 +157,9 @@ public class TagServiceImpl implements TagService {
         return tagRepository.findAll();
     }
 
+    @Override
+    public List<String> getAllNames() {
+        return tagDictionary.sortedNames();
+    }
+
 }
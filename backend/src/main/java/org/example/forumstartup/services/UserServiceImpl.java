@@ -1,9 +1,13 @@
 package org.example.forumstartup.services;
 
 import lombok.RequiredArgsConstructor;
+import org.example.forumstartup.cache.EntityCounters;
 import org.example.forumstartup.dtos.user.AdminSelfUpdateDto;
 import org.example.forumstartup.dtos.user.UserSelfUpdateDto;
 import org.example.forumstartup.enums.ERole;
+import org.example.forumstartup.events.UserChangedEvent;
+import org.example.forumstartup.events.UserCreatedEvent;
+import org.example.forumstartup.events.UserDeletedEvent;
 import org.example.forumstartup.exceptions.AuthorizationException;
 import org.example.forumstartup.exceptions.DuplicateEntityException;
 import org.example.forumstartup.exceptions.EntityNotFoundException;
@@ -14,6 +18,7 @@ import org.example.forumstartup.repositories.RoleRepository;
 import org.example.forumstartup.repositories.UserRepository;
 import org.example.forumstartup.spec.UserSpecs;
 import org.example.forumstartup.utils.AuthenticationUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -21,6 +26,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.example.forumstartup.utils.StringConstants.*;
@@ -37,10 +43,14 @@ public class UserServiceImpl implements UserService {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationUtils authenticationUtils;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityCounters entityCounters;
 
     @Override
-    @Transactional(readOnly = true)
     public Long getTotalUserCount() {
+        if (entityCounters.isLoaded()) {
+            return entityCounters.users();
+        }
         return userRepository.count();
     }
 
@@ -99,7 +109,9 @@ public class UserServiceImpl implements UserService {
 
             user.setPassword(passwordEncoder.encode(user.getPassword()));
 
-            return userRepository.save(user);
+            User saved = userRepository.save(user);
+            eventPublisher.publishEvent(new UserCreatedEvent(saved.getId()));
+            return saved;
         }
         throw new DuplicateEntityException(DUPLICATE_USER_INFORMATION_EXCEPTION_MESSAGE);
     }
@@ -110,7 +122,8 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public User update(UserSelfUpdateDto dto) {
-        User actingUser = authenticationUtils.getAuthenticatedUser();
+        User actingUser = loadActingUser();
+        publishUserChanged(actingUser);
 
         updateCommonFields(
                 actingUser,
@@ -130,7 +143,8 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public User update(AdminSelfUpdateDto dto) {
-        User actingUser = authenticationUtils.getAuthenticatedUser();
+        User actingUser = loadActingUser();
+        publishUserChanged(actingUser);
 
         updateCommonFields(
                 actingUser,
@@ -167,11 +181,13 @@ public class UserServiceImpl implements UserService {
         if (id != null) {
             deleteUser = getUserById(id);
         } else {
-            deleteUser = actingUser;
+            deleteUser = loadActingUser();
         }
 
 
         userRepository.delete(deleteUser);
+        eventPublisher.publishEvent(new UserChangedEvent(deleteUser.getUsername()));
+        eventPublisher.publishEvent(new UserDeletedEvent(deleteUser.getId()));
     }
 
     /*
@@ -180,8 +196,10 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void deleteSelf() {
-        User actingUser = authenticationUtils.getAuthenticatedUser();
+        User actingUser = loadActingUser();
         userRepository.delete(actingUser);
+        eventPublisher.publishEvent(new UserChangedEvent(actingUser.getUsername()));
+        eventPublisher.publishEvent(new UserDeletedEvent(actingUser.getId()));
     }
 
     /*
@@ -199,6 +217,7 @@ public class UserServiceImpl implements UserService {
         user.setBlocked(true);
 
         userRepository.saveAndFlush(user);
+        publishUserChanged(user);
     }
 
     /*
@@ -218,6 +237,7 @@ public class UserServiceImpl implements UserService {
         user.setBlocked(false);
 
         userRepository.saveAndFlush(user);
+        publishUserChanged(user);
     }
 
     /*
@@ -243,6 +263,7 @@ public class UserServiceImpl implements UserService {
         targetUser.getRoles().add(adminRole);
 
         userRepository.saveAndFlush(targetUser);
+        publishUserChanged(targetUser);
     }
 
     @Override
@@ -254,6 +275,22 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll(spec, pageable);
     }
 
+    /*
+        The authenticated principal is a detached snapshot, changes need the managed entity
+     */
+    private User loadActingUser() {
+        return getUserById(authenticationUtils.getAuthenticatedUser().getId());
+    }
+
+    /*
+        Also stamps the row, so TokenRevocations still distrusts older tokens
+        of the user after a restart and on the other instances
+     */
+    private void publishUserChanged(User user) {
+        user.setSecurityChangedAt(LocalDateTime.now());
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
+    }
+
     private boolean isDuplicate(User user) {
         return userRepository.existsByUsernameOrEmail(user.getUsername(), user.getEmail());
     }
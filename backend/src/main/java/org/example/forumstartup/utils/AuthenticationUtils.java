@@ -1,25 +1,29 @@
 package org.example.forumstartup.utils;
 
-import lombok.RequiredArgsConstructor;
 import org.example.forumstartup.exceptions.EntityNotFoundException;
 import org.example.forumstartup.models.User;
-import org.example.forumstartup.repositories.UserRepository;
+import org.example.forumstartup.security.CustomUserDetails;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 @Component
-@RequiredArgsConstructor
 public class AuthenticationUtils {
-    private final UserRepository userRepository;
 
+    /*
+        The acting user as authenticated by JwtAuthenticationFilter, without a query.
+        A detached snapshot (id, username, roles, blocked); load the user by id
+        for anything else.
+     */
     public User getAuthenticatedUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-        String username = authentication.getName(); // Extracted from JWT automatically
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails principal)) {
+            String name = authentication == null ? "anonymous" : authentication.getName();
+            throw new EntityNotFoundException("User", "username", name);
+        }
 
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new EntityNotFoundException("User", "username", username));
+        return principal.toUser();
     }
 
     public User getAuthenticatedUserOrNull() {
@@ -29,4 +33,4 @@ public class AuthenticationUtils {
             return null; // not logged in
         }
     }
-}
\ No newline at end of file
+}
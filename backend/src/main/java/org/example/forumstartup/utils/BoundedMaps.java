@@ -0,0 +1,30 @@
+package org.example.forumstartup.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Predicate;
+
+public class BoundedMaps {
+
+    /*
+        Makes room for one more entry in a map holding at most `maxSize`: drops
+        the expired entries first, and if it is still full of live ones an
+        arbitrary tenth of it rather than track recency
+     */
+    public static <K, V> void makeRoom(Map<K, V> map, int maxSize, Predicate<? super V> expired) {
+        if (map.size() < maxSize) {
+            return;
+        }
+        map.values().removeIf(expired);
+        if (map.size() < maxSize) {
+            return;
+        }
+
+        Iterator<K> it = map.keySet().iterator();
+        int toDrop = map.size() - maxSize + Math.max(1, maxSize / 10);
+        while (toDrop-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.forumstartup.utils;
+
+/*
+    Materialized paths of comments: the ids from the top-level comment down to
+    the comment itself.
+
+    Every id is written in base 36 after one character holding its number of
+    digits, so segments need no separator and a path is a prefix of exactly the
+    paths in its subtree. Compared as strings, paths sort depth-first, each
+    comment followed by its replies in id (creation) order.
+ */
+public final class CommentPaths {
+
+    // fits comments.path; about 700 levels with ids below 60 million
+    public static final int MAX_LENGTH = 4096;
+    // length character plus the 13 base 36 digits of Long.MAX_VALUE
+    private static final int MAX_SEGMENT_LENGTH = 14;
+
+    private CommentPaths() {
+    }
+
+    public static String childOf(String parentPath, long id) {
+        return parentPath == null ? segment(id) : parentPath + segment(id);
+    }
+
+    /*
+        Whether a reply's path would still fit. Unknown (null) paths are
+        left to the backfill job.
+     */
+    public static boolean canHaveReplies(String path) {
+        return path == null || path.length() + MAX_SEGMENT_LENGTH <= MAX_LENGTH;
+    }
+
+    /*
+        Number of comments on the path, 1 for a top-level comment
+     */
+    public static int depth(String path) {
+        int depth = 0;
+        for (int i = 0; i < path.length(); i += 1 + Character.digit(path.charAt(i), 36)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /*
+        Well-formed paths only, they are also accepted back from clients as cursors
+     */
+    public static boolean isValid(String path) {
+        if (path == null || path.isEmpty() || path.length() > MAX_LENGTH) {
+            return false;
+        }
+
+        int i = 0;
+        while (i < path.length()) {
+            int digits = Character.digit(path.charAt(i), 36);
+            if (digits < 1 || i + 1 + digits > path.length()) {
+                return false;
+            }
+            for (int j = i + 1; j <= i + digits; j++) {
+                if (Character.digit(path.charAt(j), 36) < 0 || Character.isUpperCase(path.charAt(j))) {
+                    return false;
+                }
+            }
+            i += 1 + digits;
+        }
+        return true;
+    }
+
+    private static String segment(long id) {
+        String digits = Long.toString(id, 36);
+        return Character.forDigit(digits.length(), 36) + digits;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.forumstartup.utils;
+
+import org.example.forumstartup.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import static org.example.forumstartup.utils.StringConstants.INVALID_CURSOR_EXCEPTION_MESSAGE;
+
+/*
+    Keyset pagination position: the (createdAt, id) of the last row a client has seen.
+    Clients get it as an opaque URL-safe string and send it back unchanged;
+    the next page starts strictly after it, so it costs the same at any depth.
+ */
+public record Cursor(LocalDateTime createdAt, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+        null or blank means "from the start"
+     */
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException(INVALID_CURSOR_EXCEPTION_MESSAGE);
+            }
+            return new Cursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException(INVALID_CURSOR_EXCEPTION_MESSAGE);
+        }
+    }
+}
@@ -1,20 +1,10 @@
 package org.example.forumstartup.utils;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class ListUtils {
 
-    public static<T> List<T> trimToLimit(List<T> list, int limit) {
-        if (list == null || list.isEmpty()) {
-            return list;
-        }
-        int max = Math.max(1, Math.min(limit, 50));
-        List<T>trimmed = new ArrayList<>();
-        for (int i = 0; i < list.size() && i < max; i++) {
-            trimmed.add(list.get(i));
-        }
+    public static final int MAX_LIMIT = 50;
 
-        return trimmed;
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
     }
 }
@@ -30,5 +30,9 @@ public class StringConstants {
     public static final String BLOCKED_USER_EXCEPTION_MESSAGE = "Blocked users cannot perform this action.";
     public static final String WRONG_POST_REPLY_EXCEPTION_MESSAGE = "Reply must be under the same post as the parent comment.";
     public static final String OWN_COMMENT_LIKE_EXCEPTION_MESSAGE = "You cannot like your own comment.";
+    public static final String OWN_POST_LIKE_EXCEPTION_MESSAGE = "You cannot like your own post.";
     public static final String COMMENT_MODIFICATION_EXCEPTION_MESSAGE = "You are not allowed to modify this comment.";
+    public static final String INVALID_CURSOR_EXCEPTION_MESSAGE = "Invalid page cursor.";
+    public static final String REPLY_TOO_DEEP_EXCEPTION_MESSAGE = "This thread is nested too deeply, reply to an earlier comment.";
+    public static final String COMMENT_PATH_PENDING_EXCEPTION_MESSAGE = "The replies of this comment are still being indexed, try again shortly.";
 }
@@ -0,0 +1,110 @@
+package org.example.forumstartup.utils;
+
+/*
+    Tag name normalization in a single pass over the characters, with the
+    rules of TagConstants:
+
+        trim, lowercase, every run of whitespace and hyphens becomes one hyphen,
+        the result must match TAG_NORMALIZED_PATTERN
+
+    Same result as trim().toLowerCase().replaceAll("\\s+", "-").replaceAll("-{2,}", "-")
+    followed by matches(TAG_NORMALIZED_PATTERN), without compiling three regexes
+    per call. Input that is already normalized is returned as is, without allocating.
+ */
+public final class TagNormalizer {
+
+    private TagNormalizer() {}
+
+    /*
+        The normalized name, or null when the name is invalid
+     */
+    public static String normalizeOrNull(String raw) {
+        // String.trim(): everything up to and including ' ' counts as blank
+        int start = 0;
+        int end = raw.length();
+        while (start < end && raw.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && raw.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+
+        // only created once the output starts to differ from the input
+        StringBuilder out = null;
+        boolean inSeparator = false;
+
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            char mapped;
+
+            if (c == '-' || isRegexWhitespace(c)) {
+                if (inSeparator) {
+                    out = diverge(out, raw, start, i);
+                    continue;
+                }
+                inSeparator = true;
+                mapped = '-';
+            } else {
+                inSeparator = false;
+                mapped = lowercase(c);
+                if (mapped == 0) {
+                    return null;
+                }
+            }
+
+            if (out != null) {
+                out.append(mapped);
+            } else if (mapped != c) {
+                out = diverge(null, raw, start, i);
+                out.append(mapped);
+            }
+        }
+
+        if (out != null) {
+            return out.toString();
+        }
+        return start == 0 && end == raw.length() ? raw : raw.substring(start, end);
+    }
+
+    private static StringBuilder diverge(StringBuilder out, String raw, int start, int upTo) {
+        if (out != null) {
+            return out;
+        }
+        StringBuilder copy = new StringBuilder(upTo - start + 8);
+        copy.append(raw, start, upTo);
+        return copy;
+    }
+
+    // \s in java.util.regex without UNICODE_CHARACTER_CLASS
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /*
+        Lowercase form of an allowed character, or 0 when it cannot be part of a tag
+     */
+    private static char lowercase(char c) {
+        if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+            return c;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        if (c < 128) {
+            return 0;
+        }
+        // a few non-ASCII letters lowercase to ASCII (e.g. the Kelvin sign to 'k'),
+        // String.toLowerCase decides exactly like the regex based version did
+        String lower = String.valueOf(c).toLowerCase();
+        if (lower.length() == 1) {
+            char l = lower.charAt(0);
+            if ((l >= 'a' && l <= 'z') || (l >= '0' && l <= '9')) {
+                return l;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,35 @@
+-- Denormalized comment counts and the secondary indexes of the feed, thread and listing queries
+
+-- the type Comment.isDeleted maps to; MariaDB stores boolean as tinyint(1) already
+alter table comments
+    modify is_deleted boolean default false not null;
+
+-- comments of a post that are not deleted, kept up to date by CommentServiceImpl
+alter table posts
+    add column if not exists comments_count int default 0 not null;
+
+update posts p
+set p.comments_count = (select count(*)
+                        from comments c
+                        where c.post_id = p.post_id
+                          and c.is_deleted = false);
+
+-- most commented posts
+create index if not exists idx_posts_comments_count
+    on posts (comments_count, created_at);
+
+-- newest posts, keyset pagination of the feed
+create index if not exists idx_posts_created_at
+    on posts (created_at, post_id);
+
+-- newest posts of a creator
+create index if not exists idx_posts_user_created_at
+    on posts (user_id, created_at, post_id);
+
+-- posts of a tag; the primary key only serves lookups by post
+create index if not exists idx_posts_tags_tag_post
+    on posts_tags (tag_id, post_id);
+
+-- keyset pagination of a post's comments
+create index if not exists idx_comments_post_created_at
+    on comments (post_id, created_at, comment_id);
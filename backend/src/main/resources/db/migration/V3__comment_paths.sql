@@ -0,0 +1,5 @@
+-- Materialized path of every comment (see CommentPaths), filled for existing
+-- rows by CommentPathBackfillJob. Too long to index, subtree queries narrow
+-- down by post_id first.
+alter table comments
+    add column path varchar(4096) null;
@@ -0,0 +1,8 @@
+-- Last change to what authentication depends on (roles, blocked flag,
+-- username, password). TokenRevocations reads it back, so tokens issued
+-- before the change stay distrusted after a restart and on every instance.
+alter table users
+    add column security_changed_at datetime null;
+
+create index idx_users_security_changed_at
+    on users (security_changed_at);
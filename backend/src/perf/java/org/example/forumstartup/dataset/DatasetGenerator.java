@@ -0,0 +1,511 @@
+package org.example.forumstartup.dataset;
+
+import org.example.forumstartup.utils.CommentPaths;
+import org.flywaydb.core.Flyway;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/*
+    Synthetic forum dataset at production scale, appended to whatever the
+    database already holds (ids continue after the current maximum).
+
+        ./gradlew :backend:generateDataset \
+            -Pdataset.url='jdbc:mariadb://localhost:3306/forum-startup?allowLocalInfile=true' \
+            -Pdataset.username=root -Pdataset.password=secret \
+            -Pdataset.users=200000 -Pdataset.posts=2000000 -Pdataset.comments=20000000
+
+    Authors, likers, threads and tags are drawn from power laws (dataset.skew is
+    the exponent), post dates grow with the ids over dataset.days, comments come
+    after their post and reply to recent comments of the same thread. Counters
+    (likes_count, comments_count) and comment paths are written consistent with
+    the generated rows, so the application needs no backfill.
+
+    Every generated user is called user<id> with the password dataset.user-password,
+    the first one is also an admin. Rows are bulk loaded with LOAD DATA LOCAL INFILE,
+    or batched INSERTs with dataset.mode=batch. Foreign key and unique checks are
+    switched off for the session, the generator guarantees both itself.
+ */
+public final class DatasetGenerator {
+
+    private static final String[] WORDS = {
+            "startup", "founder", "product", "market", "customer", "pricing", "growth", "revenue",
+            "churn", "funding", "investor", "seed", "series", "runway", "burn", "hiring", "team",
+            "culture", "remote", "equity", "valuation", "pitch", "deck", "traction", "pivot", "launch",
+            "beta", "feedback", "users", "retention", "onboarding", "saas", "subscription", "annual",
+            "monthly", "enterprise", "smb", "sales", "pipeline", "outbound", "inbound", "content",
+            "seo", "ads", "conversion", "funnel", "landing", "page", "experiment", "metric", "cohort",
+            "dashboard", "analytics", "platform", "api", "integration", "mobile", "web", "cloud",
+            "infrastructure", "security", "compliance", "fintech", "healthtech", "edtech", "climate",
+            "marketplace", "supply", "demand", "network", "effects", "community", "open", "source",
+            "ai", "model", "data", "automation", "workflow", "tool", "developer", "design", "brand",
+            "partnership", "distribution", "channel", "margin", "cost", "profit", "bootstrapped",
+            "accelerator", "incubator", "mentor", "advisor", "board", "cofounder", "vision", "roadmap"
+    };
+
+    private static final String[] FIRST_NAMES = {
+            "Maria", "Ivan", "Elena", "Georgi", "Sofia", "Nikolai", "Anna", "Peter", "Laura", "Daniel",
+            "Yana", "Martin", "Emma", "Lucas", "Chloe", "Victor", "Irene", "Simon", "Nadia", "Oscar"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Petrova", "Ivanov", "Smith", "Garcia", "Dimitrov", "Novak", "Rossi", "Muller", "Yanev",
+            "Kowalski", "Silva", "Jensen", "Moreau", "Horvat", "Popescu", "Berg", "Costa", "Weber"
+    };
+
+    // share of posts having 0, 1, 2 ... tags
+    private static final double[] TAGS_PER_POST = {0.10, 0.25, 0.30, 0.20, 0.10, 0.05};
+
+    private static final int MAX_THREAD_DEPTH = 16;
+    // replies go to one of the latest comments of the thread
+    private static final int RECENT_COMMENTS = 32;
+
+    private final Options options;
+    private final SplittableRandom random;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    private PowerLaw authors;
+    private PowerLaw tagPopularity;
+    private long userOffset;
+    private long postOffset;
+    private long commentOffset;
+    private long[] tagIds;
+
+    private DatasetGenerator(Options options) {
+        this.options = options;
+        this.random = new SplittableRandom(options.seed);
+        this.end = LocalDateTime.now();
+        this.start = end.minusDays(options.days);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.fromSystemProperties();
+        System.out.println("Generating " + options);
+
+        if (options.migrate) {
+            Flyway.configure()
+                    .dataSource(options.url, options.username, options.password)
+                    .baselineOnMigrate(true)
+                    .baselineVersion("1")
+                    .load()
+                    .migrate();
+        }
+
+        long started = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(options.url, options.username, options.password)) {
+            new DatasetGenerator(options).generate(connection);
+        }
+        System.out.printf("Done in %s%n", Duration.ofNanos(System.nanoTime() - started).withNanos(0));
+    }
+
+    private void generate(Connection connection) throws IOException, SQLException {
+        Files.createDirectories(options.workDir);
+        disableChecks(connection);
+
+        userOffset = maxId(connection, "users", "user_id");
+        postOffset = maxId(connection, "posts", "post_id");
+        commentOffset = maxId(connection, "comments", "comment_id");
+        authors = new PowerLaw(options.users, options.skew);
+
+        step("users", () -> generateUsers(connection));
+        step("tags", () -> generateTags(connection));
+        step("posts, comments and likes", () -> generatePosts(connection));
+    }
+
+    /* ========================= USERS ========================= */
+
+    private void generateUsers(Connection connection) throws IOException, SQLException {
+        long userRole = roleId(connection, "ROLE_USER");
+        long adminRole = roleId(connection, "ROLE_ADMIN");
+        String password = new BCryptPasswordEncoder().encode(options.userPassword);
+
+        try (TableSink users = sink(connection, "users", "user_id", "username", "email", "first_name",
+                "last_name", "password", "is_blocked:bit", "created_at");
+             TableSink roles = sink(connection, "user_roles", "user_id", "role_id")) {
+
+            long span = Duration.ofDays(options.days).toMinutes();
+            for (int i = 0; i < options.users; i++) {
+                long id = userOffset + 1 + i;
+                users.add(
+                        id,
+                        "user" + id,
+                        "user" + id + "@example.com",
+                        pick(FIRST_NAMES),
+                        pick(LAST_NAMES),
+                        password,
+                        false,
+                        start.minusMinutes(span).plusMinutes(span * i / options.users)
+                );
+                roles.add(id, userRole);
+                if (i == 0) {
+                    roles.add(id, adminRole);
+                }
+            }
+        }
+        System.out.printf("  users user%d..user%d, password '%s', user%d is an admin%n",
+                userOffset + 1, userOffset + options.users, options.userPassword, userOffset + 1);
+    }
+
+    private long roleId(Connection connection, String name) throws SQLException {
+        String select = "SELECT role_id FROM roles WHERE name = ?";
+        try (PreparedStatement statement = connection.prepareStatement(select)) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO roles (name) VALUES (?)")) {
+            insert.setString(1, name);
+            insert.executeUpdate();
+        }
+        return roleId(connection, name);
+    }
+
+    /* ========================= TAGS ========================= */
+
+    /*
+        Existing tags are reused, the generated names only fill up to dataset.tags
+     */
+    private void generateTags(Connection connection) throws IOException, SQLException {
+        Map<String, Long> existing = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT tag_id, name FROM tags")) {
+            while (rs.next()) {
+                existing.put(rs.getString(2), rs.getLong(1));
+            }
+        }
+
+        long nextId = maxId(connection, "tags", "tag_id") + 1;
+        tagIds = new long[options.tags];
+        try (TableSink tags = sink(connection, "tags", "tag_id", "name")) {
+            for (int i = 0; i < options.tags; i++) {
+                String name = tagName(i);
+                Long id = existing.get(name);
+                if (id == null) {
+                    id = nextId++;
+                    tags.add(id, name);
+                }
+                tagIds[i] = id;
+            }
+        }
+        tagPopularity = new PowerLaw(options.tags, options.skew);
+    }
+
+    // single words first, then pairs of words, numbered once those run out
+    private static String tagName(int i) {
+        if (i < WORDS.length) {
+            return WORDS[i];
+        }
+        int pair = i - WORDS.length;
+        int round = pair / (WORDS.length * WORDS.length);
+        String name = WORDS[pair / WORDS.length % WORDS.length] + "-" + WORDS[pair % WORDS.length];
+        return round == 0 ? name : name + "-" + round;
+    }
+
+    /* ========================= POSTS ========================= */
+
+    private void generatePosts(Connection connection) throws IOException, SQLException {
+        int cap = Math.max(1, options.users / 2);
+        PowerLaw threads = new PowerLaw(options.posts, options.skew);
+        int[] likesPerPost = threads.counts(options.postLikes, cap, random);
+        int[] commentsPerPost = threads.counts(options.comments, Integer.MAX_VALUE, random);
+
+        int commentCount = 0;
+        for (int c : commentsPerPost) {
+            commentCount += c;
+        }
+        int[] likesPerComment = commentCount == 0
+                ? new int[0]
+                : new PowerLaw(commentCount, options.skew).counts(options.commentLikes, cap, random);
+
+        try (TableSink posts = sink(connection, "posts", "post_id", "user_id", "title", "content",
+                "likes_count", "comments_count", "created_at", "updated_at");
+             TableSink postTags = sink(connection, "posts_tags", "post_id", "tag_id");
+             TableSink postLikes = sink(connection, "post_likes", "post_id", "user_id");
+             TableSink comments = sink(connection, "comments", "comment_id", "post_id", "user_id",
+                     "parent_comment_id", "path", "content", "likes_count", "is_deleted", "deleted_at",
+                     "deleted_by", "created_at", "updated_at");
+             TableSink commentLikes = sink(connection, "comments_likes", "comment_id", "user_id")) {
+
+            long span = Duration.ofDays(options.days).toMinutes();
+            int nextComment = 0;
+
+            for (int p = 0; p < options.posts; p++) {
+                long postId = postOffset + 1 + p;
+                int creator = authors.next(random);
+                LocalDateTime createdAt = start.plusMinutes(span * p / options.posts + random.nextInt(60));
+
+                for (long tagId : postTags()) {
+                    postTags.add(postId, tagId);
+                }
+                for (int user : distinctUsers(likesPerPost[p], creator)) {
+                    postLikes.add(postId, userOffset + 1 + user);
+                }
+
+                int visibleComments = 0;
+                LocalDateTime commentAt = createdAt;
+                List<ThreadComment> recent = new ArrayList<>();
+
+                for (int c = 0; c < commentsPerPost[p]; c++, nextComment++) {
+                    long commentId = commentOffset + 1 + nextComment;
+                    int commenter = authors.next(random);
+                    commentAt = min(commentAt.plusSeconds(1 + random.nextInt(3600)), end);
+
+                    ThreadComment parent = !recent.isEmpty() && random.nextDouble() < options.replyRatio
+                            ? recent.get(random.nextInt(recent.size()))
+                            : null;
+                    if (parent != null && parent.depth >= MAX_THREAD_DEPTH) {
+                        parent = null;
+                    }
+                    String path = CommentPaths.childOf(parent == null ? null : parent.path, commentId);
+
+                    int likes = 0;
+                    for (int user : distinctUsers(likesPerComment[nextComment], commenter)) {
+                        commentLikes.add(commentId, userOffset + 1 + user);
+                        likes++;
+                    }
+
+                    boolean deleted = random.nextDouble() < options.deletedRatio;
+                    if (!deleted) {
+                        visibleComments++;
+                    }
+                    comments.add(
+                            commentId,
+                            postId,
+                            userOffset + 1 + commenter,
+                            parent == null ? null : parent.id,
+                            path,
+                            sentences(1 + random.nextInt(4), 990),
+                            likes,
+                            deleted,
+                            deleted ? commentAt.plusHours(1) : null,
+                            deleted ? userOffset + 1 + commenter : null,
+                            commentAt,
+                            null
+                    );
+
+                    if (recent.size() == RECENT_COMMENTS) {
+                        recent.remove(random.nextInt(RECENT_COMMENTS));
+                    }
+                    recent.add(new ThreadComment(commentId, path, parent == null ? 1 : parent.depth + 1));
+                }
+
+                posts.add(
+                        postId,
+                        userOffset + 1 + creator,
+                        title(),
+                        sentences(3 + random.nextInt(options.maxPostSentences), 8000),
+                        likesPerPost[p],
+                        visibleComments,
+                        createdAt,
+                        random.nextInt(10) == 0 ? createdAt.plusHours(2) : null
+                );
+
+                if ((p + 1) % 100_000 == 0) {
+                    System.out.printf("  %,d posts, %,d comments%n", p + 1, nextComment);
+                }
+            }
+
+            System.out.printf("  loading %,d posts, %,d tag links, %,d post likes, %,d comments, %,d comment likes%n",
+                    posts.rows(), postTags.rows(), postLikes.rows(), comments.rows(), commentLikes.rows());
+        }
+    }
+
+    private Set<Long> postTags() {
+        double r = random.nextDouble();
+        int count = 0;
+        while (count < TAGS_PER_POST.length - 1 && r >= TAGS_PER_POST[count]) {
+            r -= TAGS_PER_POST[count];
+            count++;
+        }
+
+        Set<Long> tags = new HashSet<>();
+        for (int i = 0; i < Math.min(count, options.tags) * 4 && tags.size() < count; i++) {
+            tags.add(tagIds[tagPopularity.next(random)]);
+        }
+        return tags;
+    }
+
+    /*
+        `count` different user indexes, mostly the active ones, never `excluded`
+        (nobody likes their own post or comment)
+     */
+    private Set<Integer> distinctUsers(int count, int excluded) {
+        count = Math.min(count, options.users - 1);
+        Set<Integer> users = new HashSet<>();
+        for (int attempt = 0; users.size() < count && attempt < count * 8; attempt++) {
+            int user = authors.next(random);
+            if (user != excluded) {
+                users.add(user);
+            }
+        }
+        // the popular users are taken, fill up with whoever comes next
+        for (int user = random.nextInt(options.users); users.size() < count; user = (user + 1) % options.users) {
+            if (user != excluded) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private String title() {
+        StringBuilder title = new StringBuilder(64);
+        while (title.length() < 24) {
+            if (!title.isEmpty()) {
+                title.append(' ');
+            }
+            title.append(pick(WORDS));
+        }
+        title.setCharAt(0, Character.toUpperCase(title.charAt(0)));
+        return title.length() > 64 ? title.substring(0, 64) : title.toString();
+    }
+
+    private String sentences(int count, int maxLength) {
+        StringBuilder text = new StringBuilder(count * 80);
+        for (int s = 0; s < count && text.length() < maxLength; s++) {
+            int words = 6 + random.nextInt(14);
+            int sentenceStart = text.length();
+            for (int w = 0; w < words; w++) {
+                text.append(pick(WORDS)).append(w == words - 1 ? ". " : " ");
+            }
+            text.setCharAt(sentenceStart, Character.toUpperCase(text.charAt(sentenceStart)));
+        }
+        String result = text.toString().trim();
+        // content must pass the same size rules as posts written through the API
+        while (result.length() < 40) {
+            result = result + " " + pick(WORDS);
+        }
+        return result.length() > maxLength ? result.substring(0, maxLength) : result;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /* ========================= DATABASE ========================= */
+
+    private TableSink sink(Connection connection, String table, String... columns) throws IOException, SQLException {
+        return options.batch
+                ? TableSink.batch(connection, options.batchSize, table, columns)
+                : TableSink.loadData(connection, options.workDir, table, columns);
+    }
+
+    private static void disableChecks(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (connection.getMetaData().getURL().startsWith("jdbc:h2:")) {
+                statement.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            } else {
+                statement.execute("SET SESSION foreign_key_checks = 0, unique_checks = 0");
+            }
+        }
+    }
+
+    private static long maxId(Connection connection, String table, String column) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(" + column + "), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void step(String name, Step step) throws IOException, SQLException {
+        long started = System.nanoTime();
+        System.out.println("Generating " + name);
+        step.run();
+        System.out.printf("  %s took %s%n", name, Duration.ofNanos(System.nanoTime() - started).withNanos(0));
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void run() throws IOException, SQLException;
+    }
+
+    private record ThreadComment(long id, String path, int depth) {
+    }
+
+    /*
+        -Pdataset.<name>=<value> on the Gradle command line
+     */
+    record Options(
+            String url,
+            String username,
+            String password,
+            boolean migrate,
+            boolean batch,
+            int batchSize,
+            Path workDir,
+            long seed,
+            int days,
+            double skew,
+            int users,
+            int tags,
+            int posts,
+            long comments,
+            long postLikes,
+            long commentLikes,
+            double replyRatio,
+            double deletedRatio,
+            int maxPostSentences,
+            String userPassword
+    ) {
+
+        static Options fromSystemProperties() {
+            return new Options(
+                    property("url", "jdbc:mariadb://localhost:3306/forum-startup?allowLocalInfile=true"),
+                    property("username", "root"),
+                    property("password", ""),
+                    Boolean.parseBoolean(property("migrate", "true")),
+                    "batch".equals(property("mode", "load-data")),
+                    Integer.parseInt(property("batch-size", "5000")),
+                    Path.of(property("work-dir", "build/dataset")),
+                    Long.parseLong(property("seed", "42")),
+                    Integer.parseInt(property("days", "730")),
+                    Double.parseDouble(property("skew", "1.1")),
+                    Integer.parseInt(property("users", "100000")),
+                    Integer.parseInt(property("tags", "500")),
+                    Integer.parseInt(property("posts", "1000000")),
+                    Long.parseLong(property("comments", "10000000")),
+                    Long.parseLong(property("post-likes", "10000000")),
+                    Long.parseLong(property("comment-likes", "10000000")),
+                    Double.parseDouble(property("reply-ratio", "0.6")),
+                    Double.parseDouble(property("deleted-ratio", "0.02")),
+                    Integer.parseInt(property("max-post-sentences", "20")),
+                    property("user-password", "password123")
+            );
+        }
+
+        private static String property(String name, String defaultValue) {
+            return System.getProperty("dataset." + name, defaultValue);
+        }
+
+        @Override
+        public String toString() {
+            return "%,d users, %,d tags, %,d posts, %,d comments, %,d post likes, %,d comment likes into %s"
+                    .formatted(users, tags, posts, comments, postLikes, commentLikes, url);
+        }
+    }
+}
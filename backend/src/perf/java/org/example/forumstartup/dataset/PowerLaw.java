@@ -0,0 +1,64 @@
+package org.example.forumstartup.dataset;
+
+import java.util.SplittableRandom;
+
+/*
+    Zipf-like sampling of one of `n` items: the item of rank r is picked with a
+    probability proportional to 1 / (r + 1)^exponent, so a few users write most
+    posts, a few threads get most comments and a few tags are on most posts.
+
+    Uses the inverse CDF of the continuous power law, O(1) time and memory for any n.
+    Ranks are spread over the items by a fixed permutation, otherwise the most
+    popular users and posts would always be the oldest ones.
+ */
+final class PowerLaw {
+
+    // prime larger than any n used here, so the permutation is a bijection
+    private static final long STRIDE = 2_147_483_647L;
+
+    private final int n;
+    private final double exponent;
+    private final double top;
+
+    PowerLaw(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Nothing to sample from");
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.top = exponent == 1.0 ? Math.log(n + 1.0) : Math.pow(n + 1.0, 1 - exponent) - 1;
+    }
+
+    /*
+        Index in [0, n)
+     */
+    int next(SplittableRandom random) {
+        return (int) (rank(random) * STRIDE % n);
+    }
+
+    private long rank(SplittableRandom random) {
+        double u = random.nextDouble();
+        double x = exponent == 1.0
+                ? Math.exp(u * top)
+                : Math.pow(1 + u * top, 1 / (1 - exponent));
+        return Math.min(n - 1, Math.max(0, (long) x - 1));
+    }
+
+    /*
+        Spreads `total` occurrences over the n items, each at most `cap` times
+     */
+    int[] counts(long total, int cap, SplittableRandom random) {
+        int[] counts = new int[n];
+        long placed = 0;
+        long attempts = 0;
+        // once the popular items are full the rest goes to the tail, bounded for tiny datasets
+        while (placed < total && attempts++ < total * 4) {
+            int i = next(random);
+            if (counts[i] < cap) {
+                counts[i]++;
+                placed++;
+            }
+        }
+        return counts;
+    }
+}
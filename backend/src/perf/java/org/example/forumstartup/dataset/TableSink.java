@@ -0,0 +1,187 @@
+package org.example.forumstartup.dataset;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+    Destination of the generated rows of one table.
+
+    Columns of type BIT are declared as "<name>:bit", LOAD DATA would store the
+    character '0' in them instead of the number.
+ */
+abstract class TableSink implements AutoCloseable {
+
+    private static final String BIT = ":bit";
+
+    protected final String table;
+    protected final List<String> columns;
+    private long rows;
+
+    private TableSink(String table, List<String> columns) {
+        this.table = table;
+        this.columns = columns;
+    }
+
+    protected static String name(String column) {
+        return column.endsWith(BIT) ? column.substring(0, column.length() - BIT.length()) : column;
+    }
+
+    protected static boolean isBit(String column) {
+        return column.endsWith(BIT);
+    }
+
+    static TableSink loadData(Connection connection, Path workDir, String table, String... columns) throws IOException {
+        return new LoadData(connection, workDir, table, List.of(columns));
+    }
+
+    static TableSink batch(Connection connection, int batchSize, String table, String... columns) throws SQLException {
+        return new Batch(connection, batchSize, table, List.of(columns));
+    }
+
+    final void add(Object... values) throws IOException, SQLException {
+        write(values);
+        rows++;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    protected abstract void write(Object[] values) throws IOException, SQLException;
+
+    /*
+        Writes whatever is still buffered; the rows are committed afterwards
+     */
+    @Override
+    public abstract void close() throws IOException, SQLException;
+
+    /*
+        Rows go to a tab separated file that is loaded with one LOAD DATA LOCAL INFILE
+        statement on close, by far the fastest way into InnoDB. Needs
+        allowLocalInfile=true on the connection and local_infile=ON on the server.
+     */
+    private static final class LoadData extends TableSink {
+
+        private static final DateTimeFormatter DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+        private final Connection connection;
+        private final Path file;
+        private final BufferedWriter writer;
+        private final StringBuilder line = new StringBuilder(256);
+
+        private LoadData(Connection connection, Path workDir, String table, List<String> columns) throws IOException {
+            super(table, columns);
+            this.connection = connection;
+            this.file = workDir.resolve(table + ".tsv");
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        protected void write(Object[] values) throws IOException {
+            line.setLength(0);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append('\t');
+                }
+                append(values[i]);
+            }
+            writer.append(line).append('\n');
+        }
+
+        private void append(Object value) {
+            if (value == null) {
+                line.append("\\N");
+            } else if (value instanceof Boolean b) {
+                line.append(b ? '1' : '0');
+            } else if (value instanceof LocalDateTime t) {
+                line.append(DATETIME.format(t));
+            } else if (value instanceof String s) {
+                for (int i = 0; i < s.length(); i++) {
+                    char c = s.charAt(i);
+                    switch (c) {
+                        case '\\' -> line.append("\\\\");
+                        case '\t' -> line.append("\\t");
+                        case '\n' -> line.append("\\n");
+                        default -> line.append(c);
+                    }
+                }
+            } else {
+                line.append(value);
+            }
+        }
+
+        @Override
+        public void close() throws IOException, SQLException {
+            writer.close();
+            List<String> fields = new ArrayList<>();
+            List<String> conversions = new ArrayList<>();
+            for (String column : columns) {
+                if (isBit(column)) {
+                    fields.add("@" + name(column));
+                    conversions.add(name(column) + " = CAST(@" + name(column) + " AS UNSIGNED)");
+                } else {
+                    fields.add(column);
+                }
+            }
+
+            String path = file.toAbsolutePath().toString().replace("\\", "\\\\").replace("'", "\\'");
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE " + table
+                        + " CHARACTER SET utf8mb4 (" + String.join(", ", fields) + ")"
+                        + (conversions.isEmpty() ? "" : " SET " + String.join(", ", conversions)));
+            }
+            Files.delete(file);
+        }
+    }
+
+    /*
+        Batched INSERTs for servers without local_infile. MariaDB Connector/J
+        sends each batch as one multi-row statement with useBulkStmts (on by default).
+     */
+    private static final class Batch extends TableSink {
+
+        private final PreparedStatement statement;
+        private final int batchSize;
+        private int pending;
+
+        private Batch(Connection connection, int batchSize, String table, List<String> columns) throws SQLException {
+            super(table, columns);
+            this.batchSize = batchSize;
+            this.statement = connection.prepareStatement("INSERT INTO " + table
+                    + " (" + String.join(", ", columns.stream().map(TableSink::name).toList()) + ") VALUES ("
+                    + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")");
+        }
+
+        @Override
+        protected void write(Object[] values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+            if (++pending == batchSize) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+            statement.close();
+        }
+    }
+}
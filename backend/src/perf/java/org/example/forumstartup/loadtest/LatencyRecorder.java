@@ -0,0 +1,62 @@
+package org.example.forumstartup.loadtest;
+
+import java.util.Arrays;
+
+/*
+    Latencies and outcomes of one endpoint, owned by one worker thread and
+    merged into the totals once the run is over
+ */
+final class LatencyRecorder {
+
+    private long[] micros = new long[1024];
+    private int count;
+    private int clientErrors;
+    private int serverErrors;
+
+    void record(long latencyMicros, int status) {
+        if (count == micros.length) {
+            micros = Arrays.copyOf(micros, count * 2);
+        }
+        micros[count++] = latencyMicros;
+        if (status >= 500 || status < 0) {
+            serverErrors++;
+        } else if (status >= 400) {
+            clientErrors++;
+        }
+    }
+
+    void addAll(LatencyRecorder other) {
+        if (count + other.count > micros.length) {
+            micros = Arrays.copyOf(micros, Math.max(micros.length * 2, count + other.count));
+        }
+        System.arraycopy(other.micros, 0, micros, count, other.count);
+        count += other.count;
+        clientErrors += other.clientErrors;
+        serverErrors += other.serverErrors;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int clientErrors() {
+        return clientErrors;
+    }
+
+    // 5xx answers and requests that got no answer at all
+    int serverErrors() {
+        return serverErrors;
+    }
+
+    /*
+        Nearest-rank percentile in milliseconds
+     */
+    double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(micros, 0, count);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return micros[Math.max(0, rank - 1)] / 1000.0;
+    }
+}
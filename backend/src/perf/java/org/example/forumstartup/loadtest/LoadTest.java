@@ -0,0 +1,570 @@
+package org.example.forumstartup.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Replays a read/write mix against a running backend, ideally one filled by
+    DatasetGenerator, and reports throughput and p50/p99 latency per endpoint.
+
+        ./gradlew :backend:loadTest -Ploadtest.base-url=http://localhost:8080 \
+            -Ploadtest.duration=120 -Ploadtest.concurrency=64 -Ploadtest.admin=user1
+
+    Logs in as the authors of the newest and most commented posts (all generated
+    users share dataset.user-password), collects post, comment and tag names to
+    work on, then runs `concurrency` closed-loop workers for the warmup and the
+    measured duration. Every controller is covered; the admin endpoints only
+    with loadtest.admin, and never the ones that block, promote or delete users.
+    The report is printed and written as CSV to build/loadtest.
+ */
+public final class LoadTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final Options options;
+    private final HttpClient client;
+    private final List<WeightedScenario> scenarios = new ArrayList<>();
+    private int totalWeight;
+
+    // collected before the run, read-only afterwards
+    private final List<Session> sessions = new ArrayList<>();
+    private final List<Long> postIds = new ArrayList<>();
+    private final List<Long> commentIds = new ArrayList<>();
+    private final List<String> tags = new ArrayList<>();
+    private Session admin;
+
+    private final AtomicLong registrations = new AtomicLong();
+    private final AtomicInteger printedFailures = new AtomicInteger();
+
+    private LoadTest(Options options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.fromSystemProperties();
+        LoadTest test = new LoadTest(options);
+        test.prepare();
+        test.defineScenarios();
+
+        System.out.printf("Running %d workers against %s: %ds warmup, %ds measured%n",
+                options.concurrency, options.baseUrl, options.warmupSeconds, options.durationSeconds);
+        Map<String, LatencyRecorder> results = test.run();
+        test.report(results);
+    }
+
+    /* ========================= PREPARATION ========================= */
+
+    private void prepare() throws IOException, InterruptedException {
+        Worker setup = new Worker(new SplittableRandom(options.seed), Long.MAX_VALUE);
+
+        Map<String, Long> authors = new LinkedHashMap<>();
+        for (String listing : List.of("recent", "top-commented")) {
+            JsonNode posts = setup.get("setup", "/api/public/posts/" + listing + "?limit=50", null).json();
+            for (JsonNode post : posts) {
+                postIds.add(post.get("postId").asLong());
+                authors.putIfAbsent(post.get("creatorUsername").asText(), post.get("creatorId").asLong());
+            }
+        }
+        setup.get("setup", "/api/public/tags", null).json().forEach(tag -> tags.add(tag.asText()));
+
+        for (Map.Entry<String, Long> author : authors.entrySet()) {
+            if (sessions.size() == options.sessions) {
+                break;
+            }
+            String cookie = setup.login(author.getKey(), options.password);
+            if (cookie != null) {
+                sessions.add(new Session(author.getValue(), author.getKey(), cookie));
+            }
+        }
+        if (sessions.isEmpty()) {
+            throw new IllegalStateException("Could not log in as any post author with loadtest.password,"
+                    + " load the database with generateDataset first");
+        }
+        if (options.admin != null) {
+            String cookie = setup.login(options.admin, options.password);
+            if (cookie == null) {
+                throw new IllegalStateException("Could not log in as admin " + options.admin);
+            }
+            admin = new Session(null, options.admin, cookie);
+        }
+
+        // older posts and their comments, the hot listings alone would make every read a cache hit
+        Session reader = sessions.get(0);
+        JsonNode page = setup.get("setup", "/api/private/posts?page=3&size=50&excerpt=true", reader).json();
+        page.get("content").forEach(post -> postIds.add(post.get("postId").asLong()));
+        for (Long postId : postIds.subList(0, Math.min(20, postIds.size()))) {
+            setup.get("setup", "/api/private/posts/" + postId + "/comments/feed?size=50", reader).json()
+                    .get("items")
+                    .forEach(comment -> commentIds.add(comment.get("id").asLong()));
+        }
+
+        System.out.printf("Prepared %d sessions, %d posts, %d comments, %d tags%s%n",
+                sessions.size(), postIds.size(), commentIds.size(), tags.size(),
+                admin == null ? ", no admin (set loadtest.admin)" : ", admin " + admin.username);
+    }
+
+    /* ========================= SCENARIOS ========================= */
+
+    /*
+        Relative weights, reads make up about 90% of the requests
+     */
+    private void defineScenarios() {
+        // public
+        scenario(60, w -> w.get("GET /api/public/posts/count", "/api/public/posts/count", null));
+        scenario(30, w -> w.get("GET /api/public/users/count", "/api/public/users/count", null));
+        scenario(80, w -> w.get("GET /api/public/posts/recent", "/api/public/posts/recent?limit=10", null));
+        scenario(40, w -> w.get("GET /api/public/posts/top-commented", "/api/public/posts/top-commented?limit=10", null));
+        scenario(30, w -> w.get("GET /api/public/posts/search", "/api/public/posts/search?word=" + w.word(), null));
+        scenario(20, w -> w.get("GET /api/public/tags", "/api/public/tags", null));
+        scenario(10, w -> w.get("GET /api/public/tags/{tagName}", "/api/public/tags/" + w.encoded(w.tag()), null));
+
+        // private reads
+        scenario(60, w -> w.get("GET /api/private/posts",
+                "/api/private/posts?page=" + w.random.nextInt(20) + "&size=12&excerpt=true", w.session()));
+        scenario(25, w -> w.get("GET /api/private/posts?searchQuery",
+                "/api/private/posts?searchQuery=" + w.word() + "&excerpt=true", w.session()));
+        scenario(25, w -> w.get("GET /api/private/posts?tags",
+                "/api/private/posts?tags=" + w.encoded(w.tag()) + "&tags=" + w.encoded(w.tag())
+                        + "&match=ANY&excerpt=true", w.session()));
+        scenario(15, w -> w.get("GET /api/private/posts/tag-facets",
+                "/api/private/posts/tag-facets?tags=" + w.encoded(w.tag()), w.session()));
+        scenario(80, Worker::walkFeed);
+        scenario(120, w -> w.get("GET /api/private/posts/{postId}", "/api/private/posts/" + w.postId(), w.session()));
+        scenario(30, w -> w.get("GET /api/private/posts/by-author/{creatorId}",
+                "/api/private/posts/by-author/" + w.session().userId + "?excerpt=true", w.session()));
+        scenario(30, w -> w.get("GET /api/private/posts/by-tag/{tagName}",
+                "/api/private/posts/by-tag/" + w.encoded(w.tag()) + "?excerpt=true", w.session()));
+        scenario(30, w -> w.get("GET /api/private/posts/{postId}/comments",
+                "/api/private/posts/" + w.postId() + "/comments", w.session()));
+        scenario(50, w -> w.get("GET /api/private/posts/{postId}/comments/feed",
+                "/api/private/posts/" + w.postId() + "/comments/feed?size=20", w.session()));
+        scenario(50, w -> w.get("GET /api/private/posts/{postId}/comments/thread",
+                "/api/private/posts/" + w.postId() + "/comments/thread", w.session()));
+        scenario(20, w -> w.get("GET /api/private/comments/{id}/subtree",
+                "/api/private/comments/" + w.commentId() + "/subtree", w.session()));
+        scenario(15, w -> w.get("GET /api/private/comments/{id}/replies/count",
+                "/api/private/comments/" + w.commentId() + "/replies/count", w.session()));
+        scenario(15, w -> w.get("GET /api/private/auth/me", "/api/private/auth/me", w.session()));
+        scenario(15, w -> w.get("GET /api/private/users/profile", "/api/private/users/profile", w.session()));
+
+        // writes
+        scenario(30, Worker::likeAndUnlikePost);
+        scenario(25, Worker::likeAndUnlikeComment);
+        scenario(25, Worker::writeComment);
+        scenario(12, Worker::writePost);
+        scenario(3, Worker::updateProfile);
+        scenario(5, Worker::login);
+        scenario(2, Worker::registerAndLogout);
+
+        // admin
+        if (admin != null) {
+            scenario(5, w -> w.get("GET /api/admin/users", "/api/admin/users?size=20&searchQuery=user", admin));
+            scenario(5, w -> w.get("GET /api/admin/users/{id}", "/api/admin/users/" + w.session().userId, admin));
+            scenario(1, w -> w.get("GET /api/admin/users/principal-cache", "/api/admin/users/principal-cache", admin));
+        }
+    }
+
+    private void scenario(int weight, Scenario scenario) {
+        totalWeight += weight;
+        scenarios.add(new WeightedScenario(totalWeight, scenario));
+    }
+
+    private Scenario pick(SplittableRandom random) {
+        int r = random.nextInt(totalWeight);
+        for (WeightedScenario weighted : scenarios) {
+            if (r < weighted.upTo) {
+                return weighted.scenario;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /* ========================= RUN ========================= */
+
+    private Map<String, LatencyRecorder> run() throws Exception {
+        long measureFrom = System.nanoTime() + Duration.ofSeconds(options.warmupSeconds).toNanos();
+        long until = measureFrom + Duration.ofSeconds(options.durationSeconds).toNanos();
+
+        ExecutorService pool = Executors.newFixedThreadPool(options.concurrency);
+        List<Future<Map<String, LatencyRecorder>>> futures = new ArrayList<>();
+        for (int i = 0; i < options.concurrency; i++) {
+            SplittableRandom random = new SplittableRandom(options.seed + 1 + i);
+            futures.add(pool.submit(() -> {
+                Worker worker = new Worker(random, measureFrom);
+                while (System.nanoTime() < until) {
+                    try {
+                        pick(random).run(worker);
+                    } catch (IOException | RuntimeException e) {
+                        // already counted as a failed request, show the first few causes
+                        if (printedFailures.incrementAndGet() <= 10) {
+                            System.err.println("Request failed: " + e);
+                        }
+                    }
+                }
+                return worker.recorders;
+            }));
+        }
+
+        Map<String, LatencyRecorder> merged = new TreeMap<>();
+        for (Future<Map<String, LatencyRecorder>> future : futures) {
+            future.get().forEach((endpoint, recorder) ->
+                    merged.computeIfAbsent(endpoint, e -> new LatencyRecorder()).addAll(recorder));
+        }
+        pool.shutdown();
+        return merged;
+    }
+
+    /* ========================= REPORT ========================= */
+
+    private void report(Map<String, LatencyRecorder> results) throws IOException {
+        String header = "%-58s %9s %8s %6s %6s %9s %9s %9s";
+        String row = "%-58s %9d %8.1f %6d %6d %9.2f %9.2f %9.2f";
+        System.out.println();
+        System.out.printf(header + "%n", "endpoint", "requests", "req/s", "4xx", "5xx", "p50 ms", "p99 ms", "max ms");
+
+        Files.createDirectories(options.reportDir);
+        Path csv = options.reportDir.resolve("report-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+
+        long total = 0;
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv))) {
+            out.println("endpoint,requests,requests_per_second,client_errors,server_errors,p50_ms,p99_ms,max_ms");
+            for (Map.Entry<String, LatencyRecorder> entry : results.entrySet()) {
+                LatencyRecorder r = entry.getValue();
+                double perSecond = (double) r.count() / options.durationSeconds;
+                double p50 = r.percentileMillis(50);
+                double p99 = r.percentileMillis(99);
+                double max = r.percentileMillis(100);
+                total += r.count();
+
+                System.out.printf(row + "%n", entry.getKey(), r.count(), perSecond,
+                        r.clientErrors(), r.serverErrors(), p50, p99, max);
+                out.printf("\"%s\",%d,%.2f,%d,%d,%.3f,%.3f,%.3f%n", entry.getKey(), r.count(), perSecond,
+                        r.clientErrors(), r.serverErrors(), p50, p99, max);
+            }
+        }
+        System.out.printf("%nTotal %d requests, %.1f req/s. Report written to %s%n",
+                total, (double) total / options.durationSeconds, csv);
+    }
+
+    /* ========================= WORKER ========================= */
+
+    /*
+        One closed-loop client: sends the next request once the previous one is answered
+     */
+    private final class Worker {
+
+        private final SplittableRandom random;
+        private final long measureFrom;
+        private final Map<String, LatencyRecorder> recorders = new HashMap<>();
+        // posts and comments this worker created, so it can edit what it owns
+        private final List<Owned> ownPosts = new ArrayList<>();
+        private final List<Owned> ownComments = new ArrayList<>();
+
+        private Worker(SplittableRandom random, long measureFrom) {
+            this.random = random;
+            this.measureFrom = measureFrom;
+        }
+
+        Response get(String endpoint, String path, Session session) throws IOException, InterruptedException {
+            return send(endpoint, "GET", path, null, session);
+        }
+
+        Response send(String endpoint, String method, String path, Object body, Session session)
+                throws IOException, InterruptedException {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(options.baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Accept", "application/json");
+            if (session != null) {
+                request.header("Cookie", session.cookie);
+            }
+            if (body != null) {
+                request.header("Content-Type", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)));
+            } else {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            }
+
+            long started = System.nanoTime();
+            HttpResponse<byte[]> response;
+            try {
+                response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            } catch (IOException e) {
+                record(endpoint, started, -1);
+                throw e;
+            }
+            record(endpoint, started, response.statusCode());
+            return new Response(response.statusCode(), response.body(), response.headers().firstValue("Set-Cookie").orElse(null));
+        }
+
+        private void record(String endpoint, long started, int status) {
+            long now = System.nanoTime();
+            if (started >= measureFrom) {
+                recorders.computeIfAbsent(endpoint, e -> new LatencyRecorder())
+                        .record((now - started) / 1000, status);
+            }
+        }
+
+        String login(String username, String password) throws IOException, InterruptedException {
+            Response response = send("POST /api/public/auth/login", "POST", "/api/public/auth/login",
+                    Map.of("username", username, "password", password), null);
+            if (response.status != 200 || response.setCookie == null) {
+                return null;
+            }
+            return response.setCookie.split(";", 2)[0];
+        }
+
+        /* ---------- reads ---------- */
+
+        // the infinite scroll: first page and, for half the readers, the next two
+        void walkFeed() throws IOException, InterruptedException {
+            Session session = session();
+            String cursor = null;
+            int pages = random.nextBoolean() ? 1 : 3;
+            for (int i = 0; i < pages; i++) {
+                String path = "/api/private/posts/feed?size=12&excerpt=true"
+                        + (cursor == null ? "" : "&cursor=" + encoded(cursor));
+                Response page = get("GET /api/private/posts/feed", path, session);
+                if (page.status != 200 || !page.json().path("hasNext").asBoolean()) {
+                    return;
+                }
+                cursor = page.json().get("nextCursor").asText();
+            }
+        }
+
+        /* ---------- writes ---------- */
+
+        void likeAndUnlikePost() throws IOException, InterruptedException {
+            Session session = session();
+            long postId = postId();
+            send("POST /api/private/posts/{postId}/like", "POST", "/api/private/posts/" + postId + "/like", null, session);
+            send("POST /api/private/posts/{postId}/unlike", "POST", "/api/private/posts/" + postId + "/unlike", null, session);
+        }
+
+        void likeAndUnlikeComment() throws IOException, InterruptedException {
+            Session session = session();
+            String path = "/api/private/comments/" + commentId() + "/likes";
+            send("POST /api/private/comments/{id}/likes", "POST", path, null, session);
+            send("DELETE /api/private/comments/{id}/likes", "DELETE", path, null, session);
+        }
+
+        void writeComment() throws IOException, InterruptedException {
+            Session session = session();
+            long postId = postId();
+            Map<String, Object> body = new HashMap<>();
+            body.put("content", sentence());
+            Response created = send("POST /api/private/posts/{postId}/comments", "POST",
+                    "/api/private/posts/" + postId + "/comments", body, session);
+            if (created.status != 201) {
+                return;
+            }
+            long commentId = created.json().get("id").asLong();
+
+            // a reply to it, then the author edits or deletes their own comment now and then
+            body.put("parentId", commentId);
+            send("POST /api/private/posts/{postId}/comments", "POST",
+                    "/api/private/posts/" + postId + "/comments", body, session);
+            ownComments.add(new Owned(commentId, session));
+
+            if (ownComments.size() > 10) {
+                Owned own = ownComments.remove(random.nextInt(ownComments.size()));
+                if (random.nextBoolean()) {
+                    send("PUT /api/private/comments/{id}", "PUT", "/api/private/comments/" + own.id,
+                            Map.of("content", sentence()), own.session);
+                } else {
+                    send("DELETE /api/private/comments/{id}", "DELETE", "/api/private/comments/" + own.id,
+                            null, own.session);
+                }
+            }
+        }
+
+        void writePost() throws IOException, InterruptedException {
+            Session session = session();
+            Map<String, Object> body = Map.of(
+                    "title", "Load test post about " + word() + " " + random.nextInt(100_000),
+                    "content", sentence() + " " + sentence());
+            Response created = send("POST /api/private/posts", "POST", "/api/private/posts", body, session);
+            if (created.status != 201) {
+                return;
+            }
+            long postId = created.json().get("postId").asLong();
+            send("POST /api/private/posts/{postId}/tags", "POST", "/api/private/posts/" + postId + "/tags",
+                    Map.of("tags", List.of(tag(), tag())), session);
+            ownPosts.add(new Owned(postId, session));
+
+            if (ownPosts.size() > 5) {
+                Owned own = ownPosts.remove(random.nextInt(ownPosts.size()));
+                String path = "/api/private/posts/" + own.id;
+                send("PUT /api/private/posts/{postId}", "PUT", path, body, own.session);
+                send("DELETE /api/private/posts/{postId}/tags", "DELETE", path + "/tags",
+                        Map.of("tag", tags.isEmpty() ? "saas" : tag()), own.session);
+                send("DELETE /api/private/posts/{postId}", "DELETE", path, null, own.session);
+            }
+        }
+
+        // generated users keep their email, the update only touches the names
+        void updateProfile() throws IOException, InterruptedException {
+            Session session = session();
+            Map<String, Object> body = new HashMap<>();
+            body.put("firstName", "Load" + word().substring(0, 1) + "test");
+            body.put("lastName", "Tester");
+            body.put("email", session.username + "@example.com");
+            send("PUT /api/private/users/me", "PUT", "/api/private/users/me", body, session);
+        }
+
+        void login() throws IOException, InterruptedException {
+            login(session().username, options.password);
+        }
+
+        // throwaway accounts, logging out revokes the token it is given
+        void registerAndLogout() throws IOException, InterruptedException {
+            String username = "lt" + options.seed + "x" + registrations.incrementAndGet() + "x" + random.nextInt(1_000_000);
+            Map<String, Object> body = Map.of(
+                    "firstName", "Load",
+                    "lastName", "Tester",
+                    "email", username + "@example.com",
+                    "username", username,
+                    "password", options.password);
+            Response registered = send("POST /api/public/auth/register", "POST", "/api/public/auth/register", body, null);
+            if (registered.status != 200) {
+                return;
+            }
+            String cookie = login(username, options.password);
+            if (cookie != null) {
+                Session session = new Session(null, username, cookie);
+                send("POST /api/private/auth/logout", "POST", "/api/private/auth/logout", null, session);
+            }
+        }
+
+        /* ---------- random picks ---------- */
+
+        // active users act more often, like the dataset's authors
+        Session session() {
+            return sessions.get(skewed(sessions.size()));
+        }
+
+        long postId() {
+            return postIds.get(skewed(postIds.size()));
+        }
+
+        long commentId() {
+            return commentIds.isEmpty() ? postId() : commentIds.get(random.nextInt(commentIds.size()));
+        }
+
+        String tag() {
+            return tags.isEmpty() ? "saas" : tags.get(skewed(Math.min(tags.size(), 50)));
+        }
+
+        String word() {
+            return WORDS[random.nextInt(WORDS.length)];
+        }
+
+        String sentence() {
+            StringBuilder sentence = new StringBuilder("Load test says");
+            int words = 6 + random.nextInt(10);
+            for (int i = 0; i < words; i++) {
+                sentence.append(' ').append(word());
+            }
+            return sentence.append('.').toString();
+        }
+
+        String encoded(String value) {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8);
+        }
+
+        // index in [0, n), the first ones about twice as likely as the last
+        private int skewed(int n) {
+            double u = random.nextDouble();
+            return Math.min(n - 1, (int) (n * u * u));
+        }
+    }
+
+    private static final String[] WORDS = {
+            "startup", "pricing", "growth", "funding", "hiring", "saas", "churn", "retention",
+            "marketplace", "ai", "fintech", "seed", "pitch", "launch", "customer", "revenue"
+    };
+
+    @FunctionalInterface
+    private interface Scenario {
+        void run(Worker worker) throws IOException, InterruptedException;
+    }
+
+    private record WeightedScenario(int upTo, Scenario scenario) {
+    }
+
+    private record Session(Long userId, String username, String cookie) {
+    }
+
+    private record Owned(long id, Session session) {
+    }
+
+    private record Response(int status, byte[] body, String setCookie) {
+        JsonNode json() throws IOException {
+            return JSON.readTree(body);
+        }
+    }
+
+    /*
+        -Ploadtest.<name>=<value> on the Gradle command line
+     */
+    private record Options(
+            String baseUrl,
+            int durationSeconds,
+            int warmupSeconds,
+            int concurrency,
+            int sessions,
+            String password,
+            String admin,
+            long seed,
+            Path reportDir
+    ) {
+
+        static Options fromSystemProperties() {
+            return new Options(
+                    property("base-url", "http://localhost:8080"),
+                    Integer.parseInt(property("duration", "60")),
+                    Integer.parseInt(property("warmup", "10")),
+                    Integer.parseInt(property("concurrency", "32")),
+                    Integer.parseInt(property("sessions", "50")),
+                    property("password", "password123"),
+                    property("admin", null),
+                    Long.parseLong(property("seed", "7")),
+                    Path.of(property("report-dir", "build/loadtest"))
+            );
+        }
+
+        private static String property(String name, String defaultValue) {
+            return System.getProperty("loadtest." + name, defaultValue);
+        }
+    }
+}
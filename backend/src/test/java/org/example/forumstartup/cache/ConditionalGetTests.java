@@ -0,0 +1,173 @@
+package org.example.forumstartup.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.forumstartup.jobs.CommentCountReconciliationJob;
+import org.example.forumstartup.models.Post;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.services.PostService;
+import org.example.forumstartup.services.TagService;
+import org.example.forumstartup.services.UserService;
+import org.example.forumstartup.support.TestData;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Public read endpoints answer revalidations with 304 from the resource
+    versions, until a write through the services moves them.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private TagService tagService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private EntityCounters entityCounters;
+    @Autowired
+    private CommentCountReconciliationJob commentCountReconciliationJob;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private Statistics statistics;
+    private User author;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+
+        author = TestData.member(data.insertUser("author"));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    private String etagOf(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=5, public"))
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private void assertNotModified(String url, String etag) throws Exception {
+        assertNotModified(url, etag, etag);
+    }
+
+    private void assertNotModified(String url, String ifNoneMatch, String etag) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void postEndpoints_revalidateUntilAPostIsWritten() throws Exception {
+        String count = etagOf("/api/public/posts/count");
+        String recent = etagOf("/api/public/posts/recent");
+        assertNotModified("/api/public/posts/count", count);
+        assertNotModified("/api/public/posts/top-commented", etagOf("/api/public/posts/top-commented"));
+
+        Post post = new Post();
+        post.setTitle("Versioned resources for caching");
+        post.setContent("Content long enough to be a valid post body");
+        postService.create(post, author);
+
+        assertNotEquals(count, etagOf("/api/public/posts/count"));
+        mockMvc.perform(get("/api/public/posts/recent").header(HttpHeaders.IF_NONE_MATCH, recent))
+                .andExpect(status().isOk())
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("Versioned resources for caching")));
+    }
+
+    @Test
+    void tags_revalidateUntilATagIsCreated() throws Exception {
+        String tags = etagOf("/api/public/tags");
+        assertNotModified("/api/public/tags", "W/" + tags, tags);
+        assertNotModified("/api/public/tags", "\"other\", " + tags, tags);
+
+        tagService.findOrCreate("etag-" + System.nanoTime());
+
+        assertNotEquals(tags, etagOf("/api/public/tags"));
+    }
+
+    @Test
+    void users_revalidateUntilAUserIsCreated() throws Exception {
+        String users = etagOf("/api/public/users/count");
+        String posts = etagOf("/api/public/posts/count");
+        assertNotModified("/api/public/users/count", users);
+
+        User user = new User();
+        user.setUsername("newcomer");
+        user.setEmail("newcomer@example.com");
+        user.setFirstName("Newcomer");
+        user.setLastName("Person");
+        user.setPassword("secret123");
+        userService.create(user);
+
+        assertNotEquals(users, etagOf("/api/public/users/count"));
+        // a new account does not change any post
+        assertNotModified("/api/public/posts/count", posts);
+    }
+
+    @Test
+    void reconciles_moveTheVersions_onlyWhenTheyRepairSomething() throws Exception {
+        Post post = new Post();
+        post.setTitle("Repaired behind the services");
+        post.setContent("Content long enough to be a valid post body");
+        postService.create(post, author);
+        // settle whatever the direct writes of the fixture left behind
+        entityCounters.reconcile();
+        commentCountReconciliationJob.reconcile();
+
+        String users = etagOf("/api/public/users/count");
+        String posts = etagOf("/api/public/posts/count");
+        entityCounters.reconcile();
+        commentCountReconciliationJob.reconcile();
+        assertNotModified("/api/public/users/count", users);
+        assertNotModified("/api/public/posts/count", posts);
+
+        jdbc.update("""
+                INSERT INTO users (is_blocked, created_at, email, first_name, last_name, password, username)
+                VALUES (false, CURRENT_TIMESTAMP, 'direct@example.com', 'Some', 'User', 'x', 'direct')
+                """);
+        entityCounters.reconcile();
+        assertNotEquals(users, etagOf("/api/public/users/count"));
+        assertNotModified("/api/public/posts/count", posts);
+
+        jdbc.update("""
+                INSERT INTO comments (post_id, user_id, content, likes_count, is_deleted, created_at)
+                VALUES (?, ?, 'A comment written with plain SQL', 0, false, CURRENT_TIMESTAMP)
+                """, post.getId(), author.getId());
+        commentCountReconciliationJob.reconcile();
+        assertNotEquals(posts, etagOf("/api/public/posts/count"));
+    }
+}
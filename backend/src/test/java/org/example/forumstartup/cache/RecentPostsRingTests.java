@@ -0,0 +1,148 @@
+package org.example.forumstartup.cache;
+
+import org.example.forumstartup.dtos.post.PostResponseDto;
+import org.example.forumstartup.events.PostChangedEvent;
+import org.example.forumstartup.events.PostLikesChangedEvent;
+import org.example.forumstartup.mappers.PostMapper;
+import org.example.forumstartup.readmodel.PostView;
+import org.example.forumstartup.readmodel.PostViewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/*
+    A reload that races with post-commit updates keeps what they wrote, and
+    re-reads of the same post racing with each other keep the newest.
+ */
+@ExtendWith(MockitoExtension.class)
+class RecentPostsRingTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 17, 12, 0);
+
+    @Mock
+    private PostViewRepository postViewRepository;
+    @Mock
+    private PostMapper postMapper;
+
+    private RecentPostsRing ring;
+
+    @BeforeEach
+    void init() {
+        ring = new RecentPostsRing(postViewRepository, postMapper, 10);
+    }
+
+    private PostView row(long postId, int likes) {
+        PostView view = mock(PostView.class);
+        when(postMapper.toSimpleDto(view)).thenReturn(new PostResponseDto(postId, 1L, "author",
+                "Post " + postId, "Content", likes, List.of(), NOW.plusMinutes(postId), null));
+        return view;
+    }
+
+    private List<Long> ids() {
+        return ring.newest(10).stream().map(PostResponseDto::postId).toList();
+    }
+
+    @Test
+    void reload_keepsTheUpdatesCommittedWhileItRead() {
+        List<PostView> loaded = List.of(row(2, 0), row(1, 0));
+        when(postViewRepository.findNewest(10)).thenReturn(loaded);
+        ring.reload();
+
+        PostView created = row(3, 0);
+        when(postViewRepository.findById(3L, null)).thenReturn(Optional.of(created));
+        PostView liked = row(2, 1);
+        when(postViewRepository.findById(2L, null)).thenReturn(Optional.of(liked));
+        List<PostView> stale = List.of(row(2, 0), row(1, 0));
+        when(postViewRepository.findNewest(10)).thenAnswer(invocation -> {
+            ring.onPostChanged(new PostChangedEvent(3L, PostChangedEvent.Type.CREATED));
+            ring.onLikesChanged(new PostLikesChangedEvent(2L, 1));
+            return stale;
+        });
+        ring.reload();
+
+        assertEquals(List.of(3L, 2L, 1L), ids());
+        assertEquals(1, ring.newest(10).get(1).likesCount());
+    }
+
+    @Test
+    void reload_keepsAPostRemovedByANestedReload() {
+        List<PostView> loaded = List.of(row(2, 0), row(1, 0));
+        when(postViewRepository.findNewest(10)).thenReturn(loaded);
+        ring.reload();
+
+        List<PostView> stale = List.of(row(2, 0), row(1, 0));
+        List<PostView> afterDelete = List.of(row(1, 0));
+        when(postViewRepository.findNewest(10))
+                .thenAnswer(invocation -> {
+                    ring.onPostChanged(new PostChangedEvent(2L, PostChangedEvent.Type.DELETED));
+                    return stale;
+                })
+                .thenReturn(afterDelete);
+        ring.reload();
+
+        assertEquals(List.of(1L), ids());
+    }
+
+    @Test
+    void likeCommittedDuringARefresh_winsOverTheOlderRead() {
+        List<PostView> loaded = List.of(row(1, 0));
+        when(postViewRepository.findNewest(10)).thenReturn(loaded);
+        ring.reload();
+
+        PostView beforeLike = row(1, 0);
+        PostView afterLike = row(1, 1);
+        when(postViewRepository.findById(1L, null))
+                .thenAnswer(invocation -> {
+                    // the like commits while the edit's read is still in flight
+                    ring.onLikesChanged(new PostLikesChangedEvent(1L, 1));
+                    return Optional.of(beforeLike);
+                })
+                .thenReturn(Optional.of(afterLike));
+        ring.onPostChanged(new PostChangedEvent(1L, PostChangedEvent.Type.UPDATED));
+
+        assertEquals(1, ring.newest(10).get(0).likesCount());
+    }
+
+    @Test
+    void likeAfterARefresh_isNotCountedTwice() {
+        List<PostView> loaded = List.of(row(1, 0));
+        when(postViewRepository.findNewest(10)).thenReturn(loaded);
+        ring.reload();
+
+        PostView liked = row(1, 1);
+        when(postViewRepository.findById(1L, null)).thenReturn(Optional.of(liked));
+        ring.onPostChanged(new PostChangedEvent(1L, PostChangedEvent.Type.UPDATED));
+        ring.onLikesChanged(new PostLikesChangedEvent(1L, 1));
+
+        assertEquals(1, ring.newest(10).get(0).likesCount());
+    }
+
+    @Test
+    void likeCommittedWhileTheCreatedPostIsRead_isNotDropped() {
+        List<PostView> loaded = List.of(row(1, 0));
+        when(postViewRepository.findNewest(10)).thenReturn(loaded);
+        ring.reload();
+
+        PostView beforeLike = row(2, 0);
+        PostView afterLike = row(2, 1);
+        when(postViewRepository.findById(2L, null))
+                .thenAnswer(invocation -> {
+                    ring.onLikesChanged(new PostLikesChangedEvent(2L, 1));
+                    return Optional.of(beforeLike);
+                })
+                .thenReturn(Optional.of(afterLike));
+        ring.onPostChanged(new PostChangedEvent(2L, PostChangedEvent.Type.CREATED));
+
+        assertEquals(List.of(2L, 1L), ids());
+        assertEquals(1, ring.newest(10).get(0).likesCount());
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.forumstartup.monitoring;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+    Fails the test when its body makes Hibernate run more statements than this.
+    Setup in @BeforeEach is not counted. Needs QueryCountExtension.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxQueries {
+
+    int value();
+}
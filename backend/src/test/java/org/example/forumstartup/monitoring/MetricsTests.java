@@ -0,0 +1,122 @@
+package org.example.forumstartup.monitoring;
+
+import jakarta.servlet.http.Cookie;
+import org.example.forumstartup.security.JwtUtils;
+import org.example.forumstartup.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    The hot-path timers and cache counters, as a Prometheus scrape of the
+    admin endpoint with the scrape token sees them.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsTests {
+
+    // forum.metrics.scrape-token in the test application.properties
+    private static final String SCRAPE_TOKEN = "test-scrape-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private long memberId;
+    private long adminId;
+    private long postId;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+
+        memberId = data.insertUser("metered-member");
+        adminId = data.insertAdmin("metered-admin");
+        postId = data.insertPost(adminId, "A post worth measuring");
+    }
+
+    private Cookie adminToken() {
+        return new Cookie("jwt", jwtUtils.generateToken(adminId, "metered-admin", Set.of("ROLE_USER", "ROLE_ADMIN")));
+    }
+
+    private String scrape() throws Exception {
+        return mockMvc.perform(get("/api/admin/monitoring/prometheus").header("Authorization", "Bearer " + SCRAPE_TOKEN))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @Test
+    void scrape_hasLatencyHistogramsOfTheHotPaths() throws Exception {
+        Cookie member = new Cookie("jwt", jwtUtils.generateToken(memberId, "metered-member", Set.of("ROLE_USER")));
+        mockMvc.perform(get("/api/private/posts/{postId}", postId).cookie(member))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/private/posts/{postId}", postId).cookie(member))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/private/posts/{postId}/comments", postId).cookie(member))
+                .andExpect(status().isOk());
+
+        String metrics = scrape();
+
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket{"), "request histogram");
+        assertTrue(metrics.contains("uri=\"/api/private/posts/{postId}\""), "requests per route");
+        assertTrue(metrics.contains("forum_service_calls_seconds_bucket{"), "service histogram");
+        assertTrue(metrics.contains("method=\"getView\""), "service calls per method");
+        assertTrue(metrics.contains("service=\"CommentServiceImpl\""), "service calls per class");
+        assertTrue(metrics.contains("spring_data_repository_invocations_seconds_bucket{"), "repository histogram");
+        assertTrue(metrics.contains("repository=\"CommentRepository\""), "repository calls per repository");
+        assertTrue(metrics.contains("forum_auth_filter_seconds_bucket{"), "authentication histogram");
+        assertTrue(metrics.contains("hikaricp_connections_acquire_seconds_bucket{"), "pool wait histogram");
+    }
+
+    @Test
+    void scrape_hasCacheHitRatios() throws Exception {
+        Cookie member = new Cookie("jwt", jwtUtils.generateToken(memberId, "metered-member", Set.of("ROLE_USER")));
+        mockMvc.perform(get("/api/private/posts/{postId}", postId).cookie(member))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/private/posts/{postId}", postId).cookie(member))
+                .andExpect(status().isOk());
+
+        String metrics = scrape();
+
+        assertTrue(metrics.contains("cache_gets_total{cache=\"jwt-verified\",result=\"hit\"}"), "jwt cache hits");
+        assertTrue(metrics.contains("cache_gets_total{cache=\"principal\",result=\"miss\"}"), "principal cache misses");
+        assertTrue(metrics.contains("cache_gets_total{cache=\"http-etag\",result=\"hit\"}"), "304 answers");
+        assertTrue(metrics.contains("forum_cache_hit_ratio{cache=\"jwt-verified\"}"), "jwt cache hit ratio");
+    }
+
+    @Test
+    void scrape_isForAdminsAndTheScrapeTokenOnly() throws Exception {
+        mockMvc.perform(get("/api/admin/monitoring/prometheus").cookie(adminToken()))
+                .andExpect(status().isOk());
+
+        Cookie member = new Cookie("jwt", jwtUtils.generateToken(memberId, "metered-member", Set.of("ROLE_USER")));
+        mockMvc.perform(get("/api/admin/monitoring/prometheus").cookie(member))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/api/admin/monitoring/prometheus").header("Authorization", "Bearer wrong-token"))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    void scrapeToken_opensNoOtherAdminEndpoint() throws Exception {
+        mockMvc.perform(get("/api/admin/monitoring/queries").header("Authorization", "Bearer " + SCRAPE_TOKEN))
+                .andExpect(status().is4xxClientError());
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.forumstartup.monitoring;
+
+import jakarta.servlet.http.Cookie;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.forumstartup.security.JwtUtils;
+import org.example.forumstartup.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    A JFR recording started and downloaded through the admin API, with the
+    forum events of the requests made while it ran.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProfilingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private ProfilingRecorder profilingRecorder;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private long memberId;
+    private long adminId;
+    private long postId;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+
+        memberId = data.insertUser("profiled-member");
+        adminId = data.insertAdmin("profiled-admin");
+        postId = data.insertPost(adminId, "A post read while profiling");
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        if (!"NONE".equals(profilingRecorder.status().state())) {
+            profilingRecorder.stop().data().close();
+        }
+    }
+
+    private Cookie adminToken() {
+        return new Cookie("jwt", jwtUtils.generateToken(adminId, "profiled-admin", Set.of("ROLE_USER", "ROLE_ADMIN")));
+    }
+
+    private Cookie memberToken() {
+        return new Cookie("jwt", jwtUtils.generateToken(memberId, "profiled-member", Set.of("ROLE_USER")));
+    }
+
+    @Test
+    void recording_hasTheForumEventsOfTheRequests() throws Exception {
+        mockMvc.perform(post("/api/admin/monitoring/recording").param("seconds", "60").cookie(adminToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andExpect(jsonPath("$.durationSeconds").value(60));
+
+        mockMvc.perform(get("/api/private/posts/{postId}", postId).cookie(memberToken()))
+                .andExpect(status().isOk());
+
+        byte[] jfr = mockMvc.perform(post("/api/admin/monitoring/recording/stop").cookie(adminToken()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", endsWith(".jfr\"")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Path file = Files.createTempFile("forum", ".jfr");
+        try {
+            Files.write(file, jfr);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+            RecordedEvent call = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("forum.ServiceCall"))
+                    .filter(e -> e.getString("method").equals("getView"))
+                    .findFirst().orElseThrow();
+            assertEquals(postId, call.getLong("postId"));
+            assertEquals(memberId, call.getLong("userId"));
+            assertTrue(call.getInt("statements") >= 1);
+
+            assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("forum.Authentication")
+                    && e.getString("outcome").equals("authenticated")
+                    && e.getLong("userId") == memberId));
+            assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("forum.Transaction")
+                    && e.getString("outcome").equals("committed")
+                    && e.getInt("statements") >= 1));
+        } finally {
+            Files.delete(file);
+        }
+
+        mockMvc.perform(get("/api/admin/monitoring/recording").cookie(adminToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("NONE"));
+    }
+
+    @Test
+    void start_isRejectedWhileARecordingRuns() throws Exception {
+        mockMvc.perform(post("/api/admin/monitoring/recording").cookie(adminToken()))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/admin/monitoring/recording").cookie(adminToken()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void start_isBoundedByTheMaximumDuration() throws Exception {
+        mockMvc.perform(post("/api/admin/monitoring/recording").param("seconds", "86400").cookie(adminToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.durationSeconds").value(300));
+    }
+
+    @Test
+    void stop_withoutRecording_isRejected() throws Exception {
+        mockMvc.perform(post("/api/admin/monitoring/recording/stop").cookie(adminToken()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void recording_isForAdminsOnly() throws Exception {
+        mockMvc.perform(post("/api/admin/monitoring/recording").cookie(memberToken()))
+                .andExpect(status().is4xxClientError());
+        assertEquals("NONE", profilingRecorder.status().state());
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.forumstartup.monitoring;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/*
+    Counts the statements of test methods annotated with @MaxQueries, MockMvc
+    calls included as they run on the test thread. Register it after the
+    SpringExtension, which @SpringBootTest brings.
+ */
+public class QueryCountExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryCountExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        MaxQueries maxQueries = context.getRequiredTestMethod().getAnnotation(MaxQueries.class);
+        if (maxQueries == null) {
+            return;
+        }
+        context.getStore(NAMESPACE).put(QueryCounts.class, counter(context).open());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryCounts counts = context.getStore(NAMESPACE).remove(QueryCounts.class, QueryCounts.class);
+        if (counts == null) {
+            return;
+        }
+        counter(context).close(counts);
+
+        int max = context.getRequiredTestMethod().getAnnotation(MaxQueries.class).value();
+        if (counts.statements() > max) {
+            QueryCounts.RepeatedStatement repeated = counts.mostRepeated();
+            fail("Expected at most " + max + " statements but " + counts.statements() + " ran ("
+                    + counts.entityLoads() + " entities and " + counts.collectionLoads() + " collections loaded), "
+                    + "most often " + repeated.count() + " times: " + repeated.sql());
+        }
+    }
+
+    private static QueryCounter counter(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(QueryCounter.class);
+    }
+}
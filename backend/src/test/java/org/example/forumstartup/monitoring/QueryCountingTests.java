@@ -0,0 +1,202 @@
+package org.example.forumstartup.monitoring;
+
+import com.jayway.jsonpath.JsonPath;
+import jakarta.servlet.http.Cookie;
+import org.example.forumstartup.security.JwtUtils;
+import org.example.forumstartup.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Statements per controller call, counted by the request filter and asserted
+    with @MaxQueries.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ExtendWith(QueryCountExtension.class)
+class QueryCountingTests {
+
+    private static final int COMMENTS = 12;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private QueryCounter queryCounter;
+    @Autowired
+    private QueryStatistics queryStatistics;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private long memberId;
+    private long adminId;
+    private long postId;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+
+        memberId = data.insertUser("counted-member");
+        adminId = data.insertAdmin("counted-admin");
+        postId = data.insertPost(adminId, "A post with a busy thread");
+
+        // every comment by a different author, so loading authors one by one shows
+        for (int i = 0; i < COMMENTS; i++) {
+            long authorId = data.insertUser("commenter-" + i);
+            jdbc.update("""
+                    INSERT INTO comments (post_id, user_id, content, likes_count, is_deleted, created_at)
+                    VALUES (?, ?, 'Interesting', 0, false, DATEADD('MINUTE', ?, TIMESTAMP '2024-01-01 00:00:00'))
+                    """, postId, authorId, i);
+        }
+        jdbc.update("UPDATE posts SET comments_count = ? WHERE post_id = ?", COMMENTS, postId);
+
+        queryStatistics.reset();
+    }
+
+    private Cookie token(long userId, String username, Set<String> roles) {
+        return new Cookie("jwt", jwtUtils.generateToken(userId, username, roles));
+    }
+
+    private Cookie memberToken() {
+        return token(memberId, "counted-member", Set.of("ROLE_USER"));
+    }
+
+    @Test
+    @MaxQueries(1)
+    void getById_loadsThePostOnce() throws Exception {
+        mockMvc.perform(get("/api/private/posts/{postId}", postId).cookie(memberToken()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxQueries(2)
+    void listComments_doesNotLoadAuthorsOneByOne() throws Exception {
+        mockMvc.perform(get("/api/private/posts/{postId}/comments", postId).param("size", "20").cookie(memberToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(COMMENTS));
+    }
+
+    @Test
+    @MaxQueries(2)
+    void commentFeed_doesNotLoadAuthorsOneByOne() throws Exception {
+        mockMvc.perform(get("/api/private/posts/{postId}/comments/feed", postId).param("size", "20").cookie(memberToken()))
+                .andExpect(status().isOk());
+    }
+
+    /*
+        Replies on the second page point to parents loaded by the first request
+        only; their authors, and those who deleted them, differ for every comment
+     */
+    @Test
+    @MaxQueries(4)
+    void commentFeed_pagesOfReplies_doNotLoadParentsOneByOne() throws Exception {
+        List<Long> parentIds = jdbc.queryForList(
+                "SELECT comment_id FROM comments WHERE post_id = ? ORDER BY comment_id", Long.class, postId);
+        for (int i = 0; i < parentIds.size(); i++) {
+            long moderatorId = data.insertUser("moderator-" + i);
+            jdbc.update("UPDATE comments SET is_deleted = true, deleted_by = ? WHERE comment_id = ?",
+                    moderatorId, parentIds.get(i));
+            jdbc.update("""
+                    INSERT INTO comments (post_id, user_id, parent_comment_id, content, likes_count, is_deleted, created_at)
+                    VALUES (?, ?, ?, 'Agreed', 0, false, DATEADD('HOUR', 1, TIMESTAMP '2024-01-01 00:00:00'))
+                    """, postId, memberId, parentIds.get(i));
+        }
+
+        String first = mockMvc.perform(get("/api/private/posts/{postId}/comments/feed", postId)
+                        .param("size", String.valueOf(COMMENTS)).cookie(memberToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(COMMENTS))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/api/private/posts/{postId}/comments/feed", postId)
+                        .param("size", String.valueOf(COMMENTS))
+                        .param("cursor", JsonPath.<String>read(first, "$.nextCursor"))
+                        .cookie(memberToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(COMMENTS))
+                .andExpect(jsonPath("$.items[0].parentId").value(parentIds.get(0)));
+    }
+
+    @Test
+    @MaxQueries(1)
+    void postFeed_mapsWithoutLazyLoads() throws Exception {
+        mockMvc.perform(get("/api/private/posts/feed").cookie(memberToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1));
+    }
+
+    @Test
+    @MaxQueries(1)
+    void profile_loadsTheUserOnce() throws Exception {
+        mockMvc.perform(get("/api/private/users/profile").cookie(memberToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("counted-member"));
+    }
+
+    @Test
+    void counter_countsNestedScopesSeparately() throws Exception {
+        QueryCounts outer = queryCounter.open();
+        try {
+            mockMvc.perform(get("/api/private/posts/{postId}", postId).cookie(memberToken()))
+                    .andExpect(status().isOk());
+            QueryCounts inner = queryCounter.open();
+            try {
+                mockMvc.perform(get("/api/private/posts/{postId}", postId).cookie(memberToken()))
+                        .andExpect(status().isOk());
+            } finally {
+                queryCounter.close(inner);
+            }
+            assertTrue(inner.statements() > 0);
+            assertEquals(2 * inner.statements(), outer.statements());
+        } finally {
+            queryCounter.close(outer);
+        }
+    }
+
+    @Test
+    void adminEndpoint_aggregatesPerRoute() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/private/posts/{postId}", postId).cookie(memberToken()))
+                    .andExpect(status().isOk());
+        }
+
+        Cookie admin = token(adminId, "counted-admin", Set.of("ROLE_USER", "ROLE_ADMIN"));
+        mockMvc.perform(get("/api/admin/monitoring/queries").cookie(admin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.endpoint == 'GET /api/private/posts/{postId}')].requests").value(3))
+                .andExpect(jsonPath("$[?(@.endpoint == 'GET /api/private/posts/{postId}')].avgStatements")
+                        .value(hasItem(greaterThanOrEqualTo(1.0))));
+
+        mockMvc.perform(delete("/api/admin/monitoring/queries").cookie(admin))
+                .andExpect(status().isNoContent());
+        assertTrue(queryStatistics.snapshot().stream()
+                .noneMatch(stats -> stats.endpoint().equals("GET /api/private/posts/{postId}")));
+    }
+
+    @Test
+    void adminEndpoint_isForAdminsOnly() throws Exception {
+        mockMvc.perform(get("/api/admin/monitoring/queries").cookie(memberToken()))
+                .andExpect(status().is4xxClientError());
+    }
+}
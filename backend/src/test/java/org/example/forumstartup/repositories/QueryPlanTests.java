@@ -0,0 +1,114 @@
+package org.example.forumstartup.repositories;
+
+import org.example.forumstartup.monitoring.QueryCounter;
+import org.example.forumstartup.monitoring.QueryCounts;
+import org.example.forumstartup.readmodel.PostViewRepository;
+import org.example.forumstartup.utils.Cursor;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    EXPLAIN of the hot read paths against the migrated schema. Each repository
+    method is called once and the SQL Hibernate generated for it is explained:
+    the plan must look the posts or comments up through the expected index and
+    hold no full table scan.
+
+    Plans come from H2 in MariaDB mode: "idx: column = ?" is an index lookup,
+    "index sorted" an ordered index scan that stops at the limit. H2 does not
+    weigh the ORDER BY when two indexes share the looked up column, so where
+    a foreign key index competes with ours only the lookup column is checked.
+ */
+@SpringBootTest
+class QueryPlanTests {
+
+    @Autowired
+    private PostViewRepository postViewRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private QueryCounter queryCounter;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private Flyway flyway;
+
+    /*
+        The SQL of the single statement `call` ran
+     */
+    private String sqlOf(Runnable call) {
+        QueryCounts counts = queryCounter.open();
+        try {
+            call.run();
+        } finally {
+            queryCounter.close(counts);
+        }
+        Set<String> statements = counts.distinctStatements();
+        assertEquals(1, statements.size(), () -> "Expected one statement, got " + statements);
+        return statements.iterator().next();
+    }
+
+    private String explain(Runnable call) {
+        String sql = sqlOf(call);
+        String plan = jdbc.queryForObject("EXPLAIN " + sql, String.class);
+        assertNotNull(plan);
+        assertFalse(plan.contains("tableScan"), () -> "Full table scan for: " + sql + "\n" + plan);
+        return plan;
+    }
+
+    @Test
+    void migrations_areAllApplied() {
+        assertEquals(0, flyway.info().pending().length);
+        assertTrue(flyway.info().current().getVersion().isAtLeast("2"));
+    }
+
+    @Test
+    void feed_walksTheCreatedAtIndex() {
+        String first = explain(() -> postViewRepository.findFeed(null, 21, 1L, true));
+        assertTrue(first.contains("idx_posts_created_at"), first);
+        assertTrue(first.contains("index sorted"), first);
+
+        Cursor after = new Cursor(LocalDateTime.now(), 100L);
+        String next = explain(() -> postViewRepository.findFeed(after, 21, 1L, true));
+        assertTrue(next.contains("idx_posts_created_at"), next);
+    }
+
+    @Test
+    void topCommented_walksTheCommentsCountIndex() {
+        String plan = explain(() -> postRepository.findTopCommented(PageRequest.of(0, 10)));
+        assertTrue(plan.contains("idx_posts_comments_count"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    void postsOfCreator_lookUpTheCreatorIndex() {
+        String plan = explain(() -> postViewRepository.findByCreator(1L, 20, 1L, true));
+        assertTrue(plan.contains(": user_id = ?"), plan);
+    }
+
+    @Test
+    void postsOfTag_lookUpTheTagIndex() {
+        String plan = explain(() -> postViewRepository.findByTag(1L, 20, 1L, true));
+        assertTrue(plan.contains("idx_posts_tags_tag_post: tag_id = "), plan);
+    }
+
+    @Test
+    void commentsOfPost_lookUpThePostIndex() {
+        String first = explain(() -> commentRepository.findFirstByPost(1L, Limit.of(21)));
+        assertTrue(first.contains(": post_id = ?"), first);
+
+        String next = explain(() -> commentRepository.findByPostAfter(1L, LocalDateTime.now(), 100L, Limit.of(21)));
+        assertTrue(next.contains(": post_id = ?"), next);
+    }
+}
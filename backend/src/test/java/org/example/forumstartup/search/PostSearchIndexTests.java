@@ -0,0 +1,122 @@
+package org.example.forumstartup.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostSearchIndexTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 12, 5, 10, 0);
+
+    private PostSearchIndex index;
+
+    @BeforeEach
+    void init() {
+        index = new PostSearchIndex();
+        index.rebuild(List.of(
+                doc(1L, "Validating a fintech idea", "Looking for feedback on payments", "john", 1),
+                doc(2L, "Hiring my first engineer", "Startup hiring tips for early founders", "admin", 2),
+                doc(3L, "Bootstrapped SaaS revenue", "How we reached revenue without funding", "john", 3)
+        ));
+    }
+
+    private PostSearchDocument doc(Long id, String title, String content, String username, int minutes) {
+        return new PostSearchDocument(id, title, content, username, NOW.plusMinutes(minutes));
+    }
+
+    @Test
+    void search_findsPostsByTitleContentAndCreator() {
+        assertEquals(List.of(1L), index.search("fintech", 10));
+        assertEquals(List.of(1L), index.search("payments", 10));
+        assertEquals(List.of(3L, 1L), index.search("john", 10));
+    }
+
+    @Test
+    void search_requiresAllTermsToMatch() {
+        assertEquals(List.of(2L), index.search("hiring founders", 10));
+        assertTrue(index.search("hiring fintech", 10).isEmpty());
+    }
+
+    @Test
+    void search_matchesPrefixes() {
+        assertEquals(List.of(2L), index.search("engin", 10));
+    }
+
+    @Test
+    void search_ranksTitleMatchesAboveContentMatches() {
+        index.index(doc(4L, "Some unrelated title here", "We talk about revenue once", "misho", 4));
+
+        List<Long> result = index.search("revenue", 10);
+
+        assertEquals(3L, result.get(0));
+    }
+
+    @Test
+    void index_replacesPreviousVersionOfPost() {
+        index.index(doc(1L, "Validating a healthtech idea", "Looking for feedback", "john", 1));
+
+        assertTrue(index.search("fintech", 10).isEmpty());
+        assertEquals(List.of(1L), index.search("healthtech", 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void remove_dropsPostFromResults() {
+        index.remove(2L);
+
+        assertTrue(index.search("hiring", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void remove_keepsResultsCorrect_afterCompaction() {
+        List<PostSearchDocument> docs = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            docs.add(doc(id, "Common title number " + id, "shared content words", "user" + id, 0));
+        }
+        index.rebuild(docs);
+
+        for (long id = 1; id <= 2500; id++) {
+            index.remove(id);
+        }
+
+        assertEquals(500, index.search("common", Integer.MAX_VALUE).size());
+        assertEquals(List.of(2999L), index.search("user2999", 10));
+    }
+
+    @Test
+    void search_ranksOnlyTheLimit_andCountsEveryAcceptedMatch() {
+        List<PostSearchDocument> docs = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            docs.add(doc(id, "Common title number " + id, "shared content words", "user" + id, (int) id));
+        }
+        index.rebuild(docs);
+
+        SearchHits hits = index.search("common", 3, postId -> postId % 2 == 0);
+
+        assertEquals(50, hits.total());
+        assertEquals(List.of(100L, 98L, 96L), hits.postIds());
+    }
+
+    @Test
+    void search_scoresAPrefixOfManyTerms_likeAnyOtherTerm() {
+        List<PostSearchDocument> docs = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            docs.add(doc(id, "Common title number " + id, "shared content words", "user" + id, (int) id));
+        }
+        docs.add(doc(101L, "Common title", "shared content words", "user", 0));
+        index.rebuild(docs);
+        index.remove(100L);
+
+        SearchHits hits = index.search("user", 3, postId -> true);
+
+        assertEquals(100, hits.total());
+        assertEquals(List.of(101L, 99L, 98L), hits.postIds());
+        assertEquals(List.of(101L, 99L), index.search("common user", 2));
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.forumstartup.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagPostIndexTests {
+
+    private static final long SAAS = 1L;
+    private static final long FINTECH = 2L;
+    private static final long HIRING = 3L;
+
+    private TagPostIndex index;
+
+    @BeforeEach
+    void init() {
+        index = new TagPostIndex();
+
+        Map<Long, RoaringBitmap> built = new HashMap<>();
+        built.put(SAAS, RoaringBitmap.bitmapOf(1, 2, 3, 4));
+        built.put(FINTECH, RoaringBitmap.bitmapOf(3, 4, 5));
+        built.put(HIRING, RoaringBitmap.bitmapOf(4, 6));
+        index.replaceAll(built);
+    }
+
+    @Test
+    void postsWithAll_intersectsTags() {
+        assertEquals(RoaringBitmap.bitmapOf(3, 4), index.postsWithAll(List.of(SAAS, FINTECH)));
+        assertEquals(RoaringBitmap.bitmapOf(4), index.postsWithAll(List.of(SAAS, FINTECH, HIRING)));
+        assertTrue(index.postsWithAll(List.of(SAAS, 99L)).isEmpty());
+    }
+
+    @Test
+    void postsWithAny_unitesTags() {
+        assertEquals(RoaringBitmap.bitmapOf(3, 4, 5, 6), index.postsWithAny(List.of(FINTECH, HIRING, 99L)));
+    }
+
+    @Test
+    void results_areCopies() {
+        RoaringBitmap result = index.postsWithAll(List.of(SAAS));
+        result.add(100);
+
+        assertFalse(index.postsWithAll(List.of(SAAS)).contains(100));
+    }
+
+    @Test
+    void counts_areRestrictedToSelection() {
+        assertEquals(Map.of(SAAS, 4, FINTECH, 3, HIRING, 2), index.counts(null));
+        assertEquals(Map.of(SAAS, 2, FINTECH, 2, HIRING, 1), index.counts(index.postsWithAll(List.of(FINTECH, SAAS))));
+    }
+
+    @Test
+    void setTags_replacesTagsOfPost() {
+        index.setTags(4L, Set.of(HIRING, 7L));
+
+        assertEquals(RoaringBitmap.bitmapOf(1, 2, 3), index.postsWithAll(List.of(SAAS)));
+        assertEquals(RoaringBitmap.bitmapOf(4), index.postsWithAll(List.of(7L)));
+        assertEquals(RoaringBitmap.bitmapOf(4, 6), index.postsWithAll(List.of(HIRING)));
+    }
+
+    @Test
+    void removePost_clearsItFromEveryTag() {
+        index.removePost(4L);
+
+        assertEquals(Map.of(SAAS, 3, FINTECH, 2, HIRING, 1), index.counts(null));
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.forumstartup.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTests {
+
+    private static final String SECRET = "test-secret-that-is-long-enough-for-hs256-signing";
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void init() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", 10);
+        jwtUtils.init();
+    }
+
+    private static String token(String secret, String username, long expiresInMs) {
+        Key key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return Jwts.builder()
+                .setSubject(username)
+                .setExpiration(new Date(System.currentTimeMillis() + expiresInMs))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Test
+    void parse_returnsClaims_forValidToken() {
+        String token = jwtUtils.generateToken(1L, "member", Set.of("ROLE_USER"));
+
+        Optional<Claims> first = jwtUtils.parse(token);
+        Optional<Claims> second = jwtUtils.parse(token);
+
+        assertEquals("member", first.orElseThrow().getSubject());
+        assertEquals("member", second.orElseThrow().getSubject());
+    }
+
+    @Test
+    void parse_rejectsTamperedForeignAndExpiredTokens() {
+        String token = jwtUtils.generateToken(1L, "member", Set.of("ROLE_USER"));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertTrue(jwtUtils.parse(tampered).isEmpty());
+        assertTrue(jwtUtils.parse(token(SECRET.toUpperCase(), "member", 60_000)).isEmpty());
+        assertTrue(jwtUtils.parse(token(SECRET, "member", -1_000)).isEmpty());
+        assertTrue(jwtUtils.parse("not-a-jwt").isEmpty());
+    }
+
+    @Test
+    void parse_doesNotServeCachedTokenAfterExpiry() throws InterruptedException {
+        String token = token(SECRET, "member", 1_000);
+        assertTrue(jwtUtils.parse(token).isPresent());
+
+        Thread.sleep(1_100);
+
+        assertTrue(jwtUtils.parse(token).isEmpty());
+    }
+
+    @Test
+    void verifiedCache_isBounded() {
+        for (int i = 0; i < 50; i++) {
+            assertTrue(jwtUtils.parse(token(SECRET, "user" + i, 60_000)).isPresent());
+        }
+
+        Map<?, ?> verified = (Map<?, ?>) ReflectionTestUtils.getField(jwtUtils, "verified");
+        assertTrue(verified.size() <= 10);
+    }
+}
@@ -0,0 +1,161 @@
+package org.example.forumstartup.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.repositories.UserRepository;
+import org.example.forumstartup.services.UserService;
+import org.example.forumstartup.support.TestData;
+import org.example.forumstartup.utils.AuthenticationUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Authenticated requests resolve their principal from the cache, and user
+    changes made through UserService are visible on the next request.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PrincipalCacheTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private PrincipalCache principalCache;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AuthenticationUtils authenticationUtils;
+    @Value("${jwt.secret}")
+    private String secret;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private Statistics statistics;
+    private long memberId;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+
+        memberId = data.insertUser("member");
+        long adminId = data.insertAdmin("admin");
+
+        principalCache.invalidate("member");
+        principalCache.invalidate("admin");
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    // a token from before the id and roles claims, which always goes through the cache
+    private Cookie legacyTokenFor(String username) {
+        Key key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return new Cookie("jwt", Jwts.builder()
+                .setSubject(username)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact());
+    }
+
+    @Test
+    void authenticatedRequests_resolvePrincipalWithoutQueries_onceCached() throws Exception {
+        mockMvc.perform(get("/api/private/auth/me").cookie(legacyTokenFor("member")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("member"));
+        long first = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(get("/api/private/auth/me").cookie(legacyTokenFor("member")))
+                    .andExpect(status().isOk());
+        }
+        long cached = statistics.getPrepareStatementCount();
+
+        // previously: user + roles in the filter, then user and lazy roles again in the controller
+        assertEquals(1, first);
+        assertEquals(0, cached);
+    }
+
+    @Test
+    void block_evictsCachedPrincipal() {
+        principalCache.get("member");
+        actAs("admin");
+
+        userService.block(memberId);
+
+        assertThrows(DisabledException.class, () -> principalCache.get("member"));
+
+        userService.unblock(memberId);
+
+        assertTrue(principalCache.get("member").isEnabled());
+    }
+
+    @Test
+    void promoteToAdmin_isVisibleOnNextLookup() {
+        assertEquals(1, principalCache.get("member").getAuthorities().size());
+        actAs("admin");
+
+        userService.promoteToAdmin(memberId);
+
+        assertEquals(2, principalCache.get("member").getAuthorities().size());
+    }
+
+    @Test
+    void authenticatedUser_isSnapshotOfPrincipal() {
+        actAs("admin");
+
+        User admin = userService.getUserByUsername("admin");
+        statistics.clear();
+        User acting = authenticationUtils.getAuthenticatedUser();
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(admin.getId(), acting.getId());
+        assertEquals(2, acting.getRoles().size());
+        assertTrue(userRepository.existsById(acting.getId()));
+    }
+
+    private void actAs(String username) {
+        CustomUserDetails principal = principalCache.get(username);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
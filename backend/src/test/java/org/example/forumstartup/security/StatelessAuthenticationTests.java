@@ -0,0 +1,159 @@
+package org.example.forumstartup.security;
+
+import io.jsonwebtoken.Claims;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.example.forumstartup.repositories.UserRepository;
+import org.example.forumstartup.services.UserService;
+import org.example.forumstartup.support.TestData;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Requests authenticated from the token claims alone, and the changes that
+    make the filter stop trusting them.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class StatelessAuthenticationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private PrincipalCache principalCache;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    // users changed by one test stay marked in TokenRevocations, so every test gets fresh names
+    private static final AtomicInteger RUN = new AtomicInteger();
+
+    private Statistics statistics;
+    private String member;
+    private String admin;
+    private long memberId;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+
+        int run = RUN.incrementAndGet();
+        member = "stateless-member-" + run;
+        admin = "stateless-admin-" + run;
+        memberId = data.insertUser(member);
+        long adminId = data.insertAdmin(admin);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Cookie memberToken() {
+        return new Cookie("jwt", jwtUtils.generateToken(memberId, member, Set.of("ROLE_USER")));
+    }
+
+    @Test
+    void readEndpoint_runsWithoutAuthQueries() throws Exception {
+        mockMvc.perform(get("/api/private/auth/me").cookie(memberToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(memberId))
+                .andExpect(jsonPath("$.roles[0].name").value("ROLE_USER"));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void logout_revokesTheToken() throws Exception {
+        Cookie token = memberToken();
+
+        mockMvc.perform(post("/api/private/auth/logout").cookie(token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/private/auth/me").cookie(token))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/api/private/auth/me").cookie(memberToken()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void block_rejectsTokensIssuedBefore() throws Exception {
+        Cookie token = memberToken();
+        actAsAdmin();
+
+        userService.block(memberId);
+
+        assertThrows(DisabledException.class,
+                () -> mockMvc.perform(get("/api/private/auth/me").cookie(token)));
+    }
+
+    @Test
+    void block_rejectsTokensIssuedBefore_afterARestart() {
+        Cookie token = memberToken();
+        actAsAdmin();
+
+        userService.block(memberId);
+
+        // what a restarted or another instance knows: nothing until it read the users table
+        TokenRevocations restarted = new TokenRevocations(userRepository);
+        Claims claims = jwtUtils.parse(token.getValue()).orElseThrow();
+        assertTrue(restarted.isStale(claims));
+
+        restarted.refresh();
+
+        assertTrue(restarted.isStale(claims));
+    }
+
+    @Test
+    void promoteToAdmin_appliesToTokensIssuedBefore() throws Exception {
+        Cookie token = memberToken();
+        mockMvc.perform(get("/api/admin/users/principal-cache").cookie(token))
+                .andExpect(status().is4xxClientError());
+        actAsAdmin();
+
+        userService.promoteToAdmin(memberId);
+
+        mockMvc.perform(get("/api/admin/users/principal-cache").cookie(token))
+                .andExpect(status().isOk());
+    }
+
+    private void actAsAdmin() {
+        CustomUserDetails principal = principalCache.get(admin);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
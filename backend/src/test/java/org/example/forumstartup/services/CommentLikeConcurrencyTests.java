@@ -0,0 +1,95 @@
+package org.example.forumstartup.services;
+
+import org.example.forumstartup.likes.CommentLikeBuffer;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.example.forumstartup.support.TestData.inParallel;
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Many users liking the same comment at once, through the write-behind buffer
+ */
+@SpringBootTest
+class CommentLikeConcurrencyTests {
+
+    private static final int LIKERS = 4_000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private CommentLikeBuffer commentLikeBuffer;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private long commentId;
+    private List<User> likers;
+
+    @BeforeEach
+    void init() {
+        commentLikeBuffer.flush();
+        data = new TestData(jdbc);
+        data.clear();
+
+        long creatorId = data.insertUser("creator");
+        long postId = data.insertPost(creatorId, "A thread that went viral");
+
+        jdbc.update("""
+                INSERT INTO comments (post_id, user_id, content, likes_count, is_deleted, created_at)
+                VALUES (?, ?, 'First!', 0, false, CURRENT_TIMESTAMP)
+                """, postId, creatorId);
+        commentId = jdbc.queryForObject("SELECT MAX(comment_id) FROM comments", Long.class);
+
+        likers = data.insertUsers("liker", LIKERS);
+    }
+
+    @Test
+    void likeAndUnlike_areWrittenExactlyOnce_afterFlush() throws Exception {
+        inParallel(THREADS, likers, u -> commentService.likeComment(commentId, u));
+        // repeated clicks and quick toggles are coalesced away
+        inParallel(THREADS, likers.subList(0, LIKERS / 2), u -> commentService.likeComment(commentId, u));
+        inParallel(THREADS, likers.subList(0, LIKERS / 4), u -> {
+            commentService.unlikeComment(commentId, u);
+            commentService.likeComment(commentId, u);
+            commentService.unlikeComment(commentId, u);
+        });
+
+        commentLikeBuffer.flush();
+
+        int expected = LIKERS - LIKERS / 4;
+        assertEquals(0, commentLikeBuffer.pending());
+        assertEquals(expected, likesCount());
+        assertEquals(expected, likeRows());
+    }
+
+    @Test
+    void like_returnsCountIncludingOwnLike_beforeFlush() {
+        int first = commentService.likeComment(commentId, likers.get(0));
+        int second = commentService.likeComment(commentId, likers.get(1));
+        int repeated = commentService.likeComment(commentId, likers.get(1));
+        int afterUnlike = commentService.unlikeComment(commentId, likers.get(0));
+
+        assertEquals(1, first);
+        assertEquals(2, second);
+        assertEquals(2, repeated);
+        assertEquals(1, afterUnlike);
+    }
+
+    private int likesCount() {
+        return jdbc.queryForObject("SELECT likes_count FROM comments WHERE comment_id = ?", Integer.class, commentId);
+    }
+
+    private int likeRows() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM comments_likes WHERE comment_id = ?", Integer.class, commentId);
+    }
+}
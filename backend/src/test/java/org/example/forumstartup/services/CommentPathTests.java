@@ -0,0 +1,179 @@
+package org.example.forumstartup.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.forumstartup.dtos.comment.CommentTreeEntryDto;
+import org.example.forumstartup.dtos.comment.CreateCommentDto;
+import org.example.forumstartup.dtos.common.CursorPageDto;
+import org.example.forumstartup.exceptions.InvalidCursorException;
+import org.example.forumstartup.exceptions.InvalidOperationException;
+import org.example.forumstartup.jobs.CommentPathBackfillJob;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.support.TestData;
+import org.example.forumstartup.utils.CommentPaths;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Materialized comment paths: written on create, backfilled for older rows,
+    and serving depth-first subtree pages and reply counts with constant queries.
+ */
+@SpringBootTest
+class CommentPathTests {
+
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private CommentPathBackfillJob backfillJob;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private Statistics statistics;
+    private User author;
+    private long postId;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+
+        author = TestData.member(data.insertUser("nester"));
+        postId = data.insertPost(author.getId(), "A thread that goes deep");
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    // other tests delete comments in one statement, replies must not outlive this class
+
+    private long comment(Long parentId) {
+        return commentService.createComment(postId, author, new CreateCommentDto("Deeper and deeper", parentId)).getId();
+    }
+
+    private String path(long commentId) {
+        return jdbc.queryForObject("SELECT path FROM comments WHERE comment_id = ?", String.class, commentId);
+    }
+
+    private static List<Long> ids(CursorPageDto<CommentTreeEntryDto> page) {
+        return page.items().stream().map(e -> e.comment().id()).toList();
+    }
+
+    @Test
+    void createComment_storesThePathBelowTheParent() {
+        long root = comment(null);
+        long reply = comment(root);
+
+        assertEquals(CommentPaths.childOf(null, root), path(root));
+        assertEquals(CommentPaths.childOf(path(root), reply), path(reply));
+    }
+
+    @Test
+    void getSubtree_listsDepthFirst_withConstantQueries() {
+        long root = comment(null);
+        long a = comment(root);
+        long b = comment(root);
+        long a1 = comment(a);
+        long a2 = comment(a);
+        long b1 = comment(b);
+        long a11 = comment(a1);
+        comment(null);
+        statistics.clear();
+
+        CursorPageDto<CommentTreeEntryDto> first = commentService.getSubtree(root, null, 4);
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(List.of(root, a, a1, a11), ids(first));
+        assertEquals(List.of(0, 1, 2, 3), first.items().stream().map(CommentTreeEntryDto::depth).toList());
+        assertTrue(first.hasNext());
+
+        CursorPageDto<CommentTreeEntryDto> second = commentService.getSubtree(root, first.nextCursor(), 4);
+        assertEquals(List.of(a2, b, b1), ids(second));
+        assertFalse(second.hasNext());
+
+        assertEquals(List.of(b, b1), ids(commentService.getSubtree(b, null, 10)));
+        assertEquals(6, commentService.countReplies(root));
+        assertEquals(1, commentService.countReplies(b));
+        assertEquals(0, commentService.countReplies(a11));
+    }
+
+    @Test
+    void getSubtree_rejectsCursorsOfOtherSubtrees() {
+        long root = comment(null);
+        long other = comment(null);
+
+        assertThrows(InvalidCursorException.class, () -> commentService.getSubtree(root, path(other), 10));
+        assertThrows(InvalidCursorException.class, () -> commentService.getSubtree(root, "not a path", 10));
+    }
+
+    @Test
+    void createComment_doesNotLoadTheAncestors() {
+        Long parent = null;
+        for (int i = 0; i < 200; i++) {
+            parent = comment(parent);
+        }
+        statistics.clear();
+
+        comment(parent);
+
+        // the deepest parent is loaded alone, not its chain of 200 ancestors
+        assertTrue(statistics.getEntityLoadCount() < 10, () -> "loaded " + statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void createComment_rejectsRepliesBeyondThePathLength() {
+        long root = comment(null);
+        jdbc.update("UPDATE comments SET path = ? WHERE comment_id = ?", "1a".repeat(2045), root);
+
+        assertThrows(InvalidOperationException.class, () -> comment(root));
+    }
+
+    @Test
+    void backfill_computesPathsOfOlderComments() {
+        long root = comment(null);
+        Long parent = root;
+        for (int i = 0; i < 2_500; i++) {
+            // spread over several backfill batches, each reply below the previous one or the root
+            parent = comment(i % 3 == 0 ? root : parent);
+        }
+        List<String> paths = jdbc.queryForList("SELECT path FROM comments ORDER BY comment_id", String.class);
+        jdbc.update("UPDATE comments SET path = NULL");
+
+        int filled = backfillJob.backfill();
+
+        assertEquals(2_501, filled);
+        assertEquals(paths, jdbc.queryForList("SELECT path FROM comments ORDER BY comment_id", String.class));
+        assertEquals(0, backfillJob.backfill());
+    }
+
+    @Test
+    void createComment_belowACommentWithoutPath_buildsThePathFromTheAncestors() {
+        long root = comment(null);
+        long reply = comment(root);
+        List<String> paths = List.of(path(root), path(reply));
+        jdbc.update("UPDATE comments SET path = NULL");
+
+        long nested = comment(reply);
+
+        assertEquals(paths, List.of(path(root), path(reply)));
+        assertEquals(CommentPaths.childOf(paths.get(1), nested), path(nested));
+    }
+
+    @Test
+    void getSubtree_waitsForTheBackfill() {
+        long root = comment(null);
+        jdbc.update("UPDATE comments SET path = NULL");
+
+        assertThrows(InvalidOperationException.class, () -> commentService.getSubtree(root, null, 10));
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.forumstartup.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.forumstartup.dtos.comment.CommentThreadNodeDto;
+import org.example.forumstartup.dtos.common.CursorPageDto;
+import org.example.forumstartup.exceptions.EntityNotFoundException;
+import org.example.forumstartup.support.TestData;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Reply trees assembled from one query, with depth limits and cursors
+    to continue long reply lists and cut-off branches.
+ */
+@SpringBootTest
+class CommentThreadTests {
+
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private Statistics statistics;
+    private long creatorId;
+    private long postId;
+    private long otherPostId;
+    private int minute;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+
+        creatorId = data.insertUser("talker");
+        postId = insertPost();
+        otherPostId = insertPost();
+        minute = 0;
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    // other tests delete comments in one statement, replies must not outlive this class
+
+    private long insertPost() {
+        jdbc.update("""
+                INSERT INTO posts (likes_count, created_at, user_id, title, content)
+                VALUES (0, CURRENT_TIMESTAMP, ?, 'A thread with many replies', 'Content long enough to be a valid post body')
+                """, creatorId);
+        return jdbc.queryForObject("SELECT MAX(post_id) FROM posts", Long.class);
+    }
+
+    private long reply(Long parentId) {
+        return reply(postId, parentId);
+    }
+
+    private long reply(long post, Long parentId) {
+        jdbc.update("""
+                INSERT INTO comments (post_id, parent_comment_id, user_id, content, likes_count, is_deleted, created_at)
+                VALUES (?, ?, ?, 'Interesting', 0, false, DATEADD('MINUTE', ?, TIMESTAMP '2024-01-01 00:00:00'))
+                """, post, parentId, creatorId, minute++);
+        return jdbc.queryForObject("SELECT MAX(comment_id) FROM comments", Long.class);
+    }
+
+    private static List<Long> ids(List<CommentThreadNodeDto> nodes) {
+        return nodes.stream().map(n -> n.comment().id()).toList();
+    }
+
+    @Test
+    void getThread_nestsRepliesDownToTheDepth_withOneQuery() {
+        long root = reply(null);
+        long child = reply(root);
+        long grandChild = reply(child);
+        long greatGrandChild = reply(grandChild);
+        long secondRoot = reply(null);
+        statistics.clear();
+
+        CursorPageDto<CommentThreadNodeDto> thread = commentService.getThread(postId, null, null, 10, 3, 5);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(List.of(root, secondRoot), ids(thread.items()));
+        assertFalse(thread.hasNext());
+
+        CommentThreadNodeDto rootNode = thread.items().get(0);
+        assertEquals("talker", rootNode.comment().creatorUsername());
+        assertEquals(List.of(child), ids(rootNode.replies()));
+
+        CommentThreadNodeDto cutOff = rootNode.replies().get(0).replies().get(0);
+        assertEquals(grandChild, cutOff.comment().id());
+        assertEquals(List.of(), cutOff.replies());
+        assertEquals(1, cutOff.replyCount());
+        assertNull(cutOff.repliesCursor());
+
+        // the cut-off branch continues from its comment
+        CursorPageDto<CommentThreadNodeDto> branch = commentService.getThread(postId, grandChild, null, 10, 3, 5);
+        assertEquals(List.of(greatGrandChild), ids(branch.items()));
+    }
+
+    @Test
+    void getThread_continuesLongReplyListsWithTheirCursor() {
+        long root = reply(null);
+        List<Long> replies = new java.util.ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            replies.add(reply(root));
+        }
+
+        CommentThreadNodeDto rootNode = commentService.getThread(postId, null, null, 10, 2, 5).items().get(0);
+        assertEquals(replies.subList(0, 5), ids(rootNode.replies()));
+        assertEquals(8, rootNode.replyCount());
+        assertNotNull(rootNode.repliesCursor());
+
+        CursorPageDto<CommentThreadNodeDto> more =
+                commentService.getThread(postId, root, rootNode.repliesCursor(), 10, 1, 5);
+        assertEquals(replies.subList(5, 8), ids(more.items()));
+        assertNull(more.nextCursor());
+    }
+
+    @Test
+    void getThread_pagesTopLevelComments() {
+        long first = reply(null);
+        long second = reply(null);
+        reply(first);
+
+        CursorPageDto<CommentThreadNodeDto> page = commentService.getThread(postId, null, null, 1, 1, 5);
+        assertEquals(List.of(first), ids(page.items()));
+        assertTrue(page.hasNext());
+
+        CursorPageDto<CommentThreadNodeDto> next = commentService.getThread(postId, null, page.nextCursor(), 1, 1, 5);
+        assertEquals(List.of(second), ids(next.items()));
+        assertFalse(next.hasNext());
+    }
+
+    @Test
+    void getThread_buildsDeepThreadsWithoutRecursion() {
+        Long parent = null;
+        long first = 0;
+        for (int i = 0; i < 5_000; i++) {
+            parent = reply(parent);
+            if (i == 0) {
+                first = parent;
+            }
+        }
+
+        CursorPageDto<CommentThreadNodeDto> thread = commentService.getThread(postId, null, null, 10, 50, 5);
+
+        CommentThreadNodeDto node = thread.items().get(0);
+        assertEquals(first, node.comment().id());
+        int depth = 1;
+        while (!node.replies().isEmpty()) {
+            node = node.replies().get(0);
+            depth++;
+        }
+        // depth is capped
+        assertEquals(10, depth);
+        assertEquals(1, node.replyCount());
+    }
+
+    @Test
+    void getThread_rejectsUnknownPostsAndForeignParents() {
+        long foreign = reply(otherPostId, null);
+
+        assertThrows(EntityNotFoundException.class,
+                () -> commentService.getThread(-1L, null, null, 10, 3, 5));
+        assertThrows(EntityNotFoundException.class,
+                () -> commentService.getThread(postId, foreign, null, 10, 3, 5));
+        assertEquals(List.of(), commentService.getThread(postId, null, null, 10, 3, 5).items());
+    }
+}
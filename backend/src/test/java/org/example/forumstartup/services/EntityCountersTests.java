@@ -0,0 +1,107 @@
+package org.example.forumstartup.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.forumstartup.cache.EntityCounters;
+import org.example.forumstartup.models.Post;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.support.TestData;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    The public post and user counts are served from memory, follow the
+    service writes and are repaired by the periodic recount.
+ */
+@SpringBootTest
+class EntityCountersTests {
+
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private EntityCounters entityCounters;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private Statistics statistics;
+    private User author;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+
+        author = TestData.member(data.insertUser("author"));
+
+        // the rows above were written behind the counters' back
+        entityCounters.reconcile();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void counts_areServedWithoutQueries() {
+        assertEquals(0, postService.getTotalPostCount());
+        assertEquals(1, userService.getTotalUserCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void counts_followCreatesAndDeletes() {
+        Post post = postService.create(newPost(), author);
+        postService.create(newPost(), author);
+
+        User user = new User();
+        user.setUsername("newcomer");
+        user.setEmail("newcomer@example.com");
+        user.setFirstName("Newcomer");
+        user.setLastName("Person");
+        user.setPassword("secret123");
+        userService.create(user);
+
+        assertEquals(2, postService.getTotalPostCount());
+        assertEquals(2, userService.getTotalUserCount());
+
+        postService.delete(post.getId(), author);
+
+        assertEquals(1, postService.getTotalPostCount());
+    }
+
+    @Test
+    void reconcile_repairsDriftFromDirectWrites() {
+        postService.create(newPost(), author);
+        jdbc.update("DELETE FROM posts");
+        jdbc.update("""
+                INSERT INTO users (is_blocked, created_at, email, first_name, last_name, password, username)
+                VALUES (false, CURRENT_TIMESTAMP, 'other@example.com', 'Other', 'User', 'x', 'other')
+                """);
+        assertEquals(1, postService.getTotalPostCount());
+        assertEquals(1, userService.getTotalUserCount());
+
+        entityCounters.reconcile();
+
+        assertEquals(0, postService.getTotalPostCount());
+        assertEquals(2, userService.getTotalUserCount());
+    }
+
+    private static Post newPost() {
+        Post post = new Post();
+        post.setTitle("Counting posts without count(*)");
+        post.setContent("Content long enough to be a valid post body");
+        return post;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.forumstartup.services;
+
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.example.forumstartup.support.TestData.inParallel;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PostLikeConcurrencyTests {
+
+    private static final int LIKERS = 10_000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private long postId;
+    private List<User> likers;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+
+        long creatorId = data.insertUser("creator");
+        postId = data.insertPost(creatorId, "A post everybody likes");
+
+        likers = data.insertUsers("liker", LIKERS);
+    }
+
+    @Test
+    void like_countsEveryLikeExactlyOnce_underConcurrency() throws Exception {
+        inParallel(THREADS, likers, u -> postService.like(postId, u));
+
+        // repeated clicks from the same users must not change anything
+        inParallel(THREADS, likers.subList(0, LIKERS / 2), u -> postService.like(postId, u));
+
+        assertEquals(LIKERS, likesCount());
+        assertEquals(LIKERS, likeRows());
+    }
+
+    @Test
+    void unlike_countsEveryUnlikeExactlyOnce_underConcurrency() throws Exception {
+        inParallel(THREADS, likers, u -> postService.like(postId, u));
+
+        List<User> unlikers = likers.subList(0, LIKERS / 2);
+        inParallel(THREADS, unlikers, u -> postService.unlike(postId, u));
+        inParallel(THREADS, unlikers, u -> postService.unlike(postId, u));
+
+        assertEquals(LIKERS / 2, likesCount());
+        assertEquals(LIKERS / 2, likeRows());
+    }
+
+    private int likesCount() {
+        return jdbc.queryForObject("SELECT likes_count FROM posts WHERE post_id = ?", Integer.class, postId);
+    }
+
+    private int likeRows() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM post_likes WHERE post_id = ?", Integer.class, postId);
+    }
+}
@@ -0,0 +1,192 @@
+package org.example.forumstartup.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.forumstartup.cache.TagDictionary;
+import org.example.forumstartup.dtos.common.CursorPageDto;
+import org.example.forumstartup.dtos.post.PostResponseDto;
+import org.example.forumstartup.dtos.post.PostWithLikeStatusResponseDto;
+import org.example.forumstartup.models.Comment;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.support.TestData;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Post listings must come from one SQL statement per page, whatever the
+    number of posts, tags and likes on it.
+ */
+@SpringBootTest
+class PostReadModelQueryTests {
+
+    private static final String LONG_CONTENT = "x".repeat(1000);
+
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TagDictionary tagDictionary;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private Statistics statistics;
+    private User viewer;
+    private long creatorId;
+    private long likedPostId;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+        jdbc.update("DELETE FROM tags");
+
+        creatorId = data.insertUser("creator");
+        viewer = new User();
+        viewer.setId(data.insertUser("viewer"));
+
+        jdbc.update("INSERT INTO tags (name) VALUES ('saas'), ('fintech'), ('hiring')");
+        tagDictionary.reload();
+
+        for (int i = 0; i < 8; i++) {
+            jdbc.update("""
+                    INSERT INTO posts (likes_count, created_at, user_id, title, content)
+                    VALUES (0, DATEADD('MINUTE', ?, CURRENT_TIMESTAMP), ?, ?, ?)
+                    """, i, creatorId, "Post number " + i + " about startups", LONG_CONTENT);
+            long postId = jdbc.queryForObject("SELECT MAX(post_id) FROM posts", Long.class);
+            jdbc.update("""
+                    INSERT INTO posts_tags (post_id, tag_id)
+                    SELECT ?, tag_id FROM tags WHERE name IN ('saas', 'fintech')
+                    """, postId);
+            likedPostId = postId;
+        }
+        jdbc.update("INSERT INTO post_likes (post_id, user_id) VALUES (?, ?)", likedPostId, viewer.getId());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void filterPosts_readsPageWithOneQuery() {
+        Page<PostWithLikeStatusResponseDto> page = postService.filterPosts(
+                null, PageRequest.of(0, 12, Sort.by(Sort.Direction.DESC, "createdAt")), viewer, true);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(8, page.getTotalElements());
+
+        PostWithLikeStatusResponseDto newest = page.getContent().get(0);
+        assertEquals(likedPostId, newest.postId());
+        assertTrue(newest.likedByCurrentUser());
+        assertFalse(page.getContent().get(1).likedByCurrentUser());
+        assertEquals(List.of("fintech", "saas"), newest.tags());
+        assertEquals("creator", newest.creatorUsername());
+        assertEquals(280, newest.content().length());
+    }
+
+    @Test
+    void filterPosts_fullPage_addsOnlyTheCountQuery() {
+        postService.filterPosts(null, PageRequest.of(0, 4, Sort.by("createdAt")), viewer, true);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByCreatorAndTag_readWithOneQueryEach() {
+        List<PostWithLikeStatusResponseDto> byCreator = postService.findByCreatorId(creatorId, 5, viewer, true);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(5, byCreator.size());
+
+        statistics.clear();
+        List<PostWithLikeStatusResponseDto> byTag = postService.findByTag("saas", 10, viewer, false);
+        // the tag name is resolved from the dictionary
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(8, byTag.size());
+        assertEquals(LONG_CONTENT, byTag.get(0).content());
+    }
+
+    @Test
+    void getView_returnsFullContent_withOneQuery() {
+        PostWithLikeStatusResponseDto post = postService.getView(likedPostId, viewer);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(LONG_CONTENT, post.content());
+        assertTrue(post.likedByCurrentUser());
+    }
+
+    @Test
+    void search_readsRankedPostsWithOneQuery() {
+        postService.rebuildSearchIndex();
+        statistics.clear();
+
+        List<PostResponseDto> found = postService.search("number", 10);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(8, found.size());
+    }
+
+    @Test
+    void feed_walksEveryPostOnce_withOneQueryPerPage() {
+        // posts created in the same instant are ordered by id
+        for (int i = 0; i < 3; i++) {
+            jdbc.update("""
+                    INSERT INTO posts (likes_count, created_at, user_id, title, content)
+                    VALUES (0, TIMESTAMP '2020-01-01 00:00:00', ?, 'Same instant post title', ?)
+                    """, creatorId, LONG_CONTENT);
+        }
+        statistics.clear();
+
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageDto<PostWithLikeStatusResponseDto> page = postService.feed(cursor, 3, viewer, true);
+            page.items().forEach(p -> assertTrue(seen.add(p.postId())));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(11, seen.size());
+        assertEquals(4, pages);
+        assertEquals(pages, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void commentFeed_walksEveryCommentOnce() {
+        for (int i = 0; i < 7; i++) {
+            jdbc.update("""
+                    INSERT INTO comments (post_id, user_id, content, likes_count, is_deleted, created_at)
+                    VALUES (?, ?, 'Nice one', 0, false, TIMESTAMP '2020-01-01 00:00:00')
+                    """, likedPostId, creatorId);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDto<Comment> page = commentService.listCommentsByPost(likedPostId, cursor, 3);
+            page.items().forEach(c -> seen.add(c.getId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(7, seen.size());
+        assertEquals(seen.stream().sorted().toList(), seen);
+    }
+}
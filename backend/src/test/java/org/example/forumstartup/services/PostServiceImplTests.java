@@ -1,14 +1,24 @@
 package org.example.forumstartup.services;
 
+import org.example.forumstartup.cache.RecentPostsRing;
+import org.example.forumstartup.cache.TopCommentedLeaderboard;
+import org.example.forumstartup.dtos.post.PostResponseDto;
+import org.example.forumstartup.dtos.post.PostWithLikeStatusResponseDto;
 import org.example.forumstartup.enums.ERole;
 import org.example.forumstartup.exceptions.AuthorizationException;
 import org.example.forumstartup.exceptions.EntityNotFoundException;
+import org.example.forumstartup.mappers.PostMapper;
 import org.example.forumstartup.models.Post;
 import org.example.forumstartup.models.Role;
 import org.example.forumstartup.models.Tag;
 import org.example.forumstartup.models.User;
+import org.example.forumstartup.readmodel.PostView;
+import org.example.forumstartup.readmodel.PostViewRepository;
 import org.example.forumstartup.repositories.PostRepository;
-import org.example.forumstartup.repositories.TagRepository;
+import org.example.forumstartup.repositories.TagBatchRepository;
+import org.example.forumstartup.search.PostSearchIndex;
+import org.example.forumstartup.search.PostSearchIndexer;
+import org.example.forumstartup.search.SearchHits;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,7 +26,9 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.HashSet;
 import java.util.List;
@@ -25,6 +37,7 @@ import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,7 +45,23 @@ public class PostServiceImplTests {
     @Mock
     private PostRepository postRepository;
     @Mock
-    private TagRepository tagRepository;
+    private TagService tagService;
+    @Mock
+    private TagBatchRepository tagBatchRepository;
+    @Mock
+    private PostSearchIndex searchIndex;
+    @Mock
+    private PostSearchIndexer searchIndexer;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private RecentPostsRing recentPostsRing;
+    @Mock
+    private PostMapper postMapper;
+    @Mock
+    private TopCommentedLeaderboard topCommentedLeaderboard;
+    @Mock
+    private PostViewRepository postViewRepository;
     @InjectMocks
     private PostServiceImpl postService;
 
@@ -76,79 +105,146 @@ public class PostServiceImplTests {
     }
 
     @Test
-    void mostRecent_postsFormRepository() {
+    void mostRecent_servedFromRing_whenLoaded() {
         //Arrange
-        createPost(1L);
-        createPost(2L);
-        when(postRepository.findTop10ByOrderByCreatedAtDesc()).
-                thenReturn(List.of(createPost(1L), createPost(2L)));
+        PostResponseDto dto = new PostResponseDto(1L, 1L, "john", "title", "content", 0, List.of(), null, null);
+        when(recentPostsRing.isLoaded()).thenReturn(true);
+        when(recentPostsRing.newest(10)).thenReturn(List.of(dto));
+
         //Act
-        List<Post> result = postService.mostRecent(10);
+        List<PostResponseDto> result = postService.mostRecent(10);
 
         //Assert
-        assertEquals(2, result.size());
-        verify(postRepository).findTop10ByOrderByCreatedAtDesc();
+        assertEquals(List.of(dto), result);
+        verifyNoInteractions(postRepository);
+    }
 
+    @Test
+    void mostRecent_postsFromReadModel_whenRingNotLoaded() {
+        //Arrange
+        when(recentPostsRing.isLoaded()).thenReturn(false);
+        when(recentPostsRing.capacity()).thenReturn(100);
+        when(postViewRepository.findNewest(10)).thenReturn(List.of(view(1L), view(2L)));
+        mapViews();
+
+        //Act
+        List<PostResponseDto> result = postService.mostRecent(10);
+
+        //Assert
+        assertEquals(List.of(1L, 2L), result.stream().map(PostResponseDto::postId).toList());
+        verify(postViewRepository).findNewest(10);
     }
 
     @Test
-    void topCommented_postsFromRepository() {
+    void topCommented_postsInLeaderboardOrder() {
 
         //Arrange
-        createPost(1L);
-        createPost(2L);
-        createPost(3L);
-
-        when(postRepository.findTop10MostCommented()).
-                thenReturn(List.of(createPost(1L), createPost(2L), createPost(3L)));
+        when(topCommentedLeaderboard.top(10)).thenReturn(List.of(3L, 1L, 2L));
+        when(postViewRepository.findByIds(List.of(3L, 1L, 2L), null, false))
+                .thenReturn(List.of(view(3L), view(1L), view(2L)));
+        mapViews();
 
         //Act
-
-        List<Post> result = postService.topCommented(10);
+        List<PostResponseDto> result = postService.topCommented(10);
 
         //Assert
-        assertEquals(3, result.size());
-        verify(postRepository).findTop10MostCommented();
+        assertEquals(List.of(3L, 1L, 2L), result.stream().map(PostResponseDto::postId).toList());
+        verify(topCommentedLeaderboard).top(10);
     }
 
     @Test
-    void findByCreatorId_postsFromRepository() {
+    void findByCreatorId_postsFromReadModel() {
 
         //Arrange
-        User creator = new User();
-        creator.setId(1L);
-        createPost(1L);
-        createPost(2L);
-        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt");
+        User viewer = new User();
+        viewer.setId(7L);
 
-        when(postRepository.findByCreatorId(creator.getId(), sort)).
-                thenReturn(List.of(createPost(1L), createPost(2L)));
+        when(postViewRepository.findByCreator(1L, 10, 7L, true)).
+                thenReturn(List.of(view(1L), view(2L)));
+        mapAuthenticatedViews();
 
         //Act
-        List<Post> result = postService.findByCreatorId(1L, 10);
+        List<PostWithLikeStatusResponseDto> result = postService.findByCreatorId(1L, 10, viewer, true);
 
         //Assert
         assertEquals(2, result.size());
-        verify(postRepository).
-                findByCreatorId(creator.getId(), sort);
+        verify(postViewRepository).findByCreator(1L, 10, 7L, true);
     }
 
     @Test
-    void searchByText_postRepository() {
+    void searchByText_likeScan_whenIndexIsNotReady() {
 
         //Arrange
         String text = "text";
-        createPost(1L);
-        createPost(2L);
-        when(postRepository.search(text)).
-                thenReturn(List.of(createPost(1L), createPost(2L)));
+        when(postViewRepository.search(text, 10)).
+                thenReturn(List.of(view(1L), view(2L)));
+        mapViews();
 
         //Act
-        List<Post> result = postService.search(text, 10);
+        List<PostResponseDto> result = postService.search(text, 10);
 
         //Assert
         assertEquals(2, result.size());
-        verify(postRepository).search(text);
+        verify(postViewRepository).search(text, 10);
+    }
+
+    @Test
+    void search_usesIndexRanking_whenIndexIsReady() {
+
+        //Arrange
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search("text", 10)).thenReturn(List.of(2L, 1L));
+        when(postViewRepository.findByIds(List.of(2L, 1L), null, false))
+                .thenReturn(List.of(view(2L), view(1L)));
+        mapViews();
+
+        //Act
+        List<PostResponseDto> result = postService.search("text", 10);
+
+        //Assert
+        assertEquals(List.of(2L, 1L), result.stream().map(PostResponseDto::postId).toList());
+        verify(postViewRepository, never()).search(any(), anyInt());
+    }
+
+    @Test
+    void filterPosts_pagesOverRankedIds_whenSearching() {
+
+        //Arrange
+        User viewer = new User();
+        viewer.setId(7L);
+
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search(eq("text"), eq(4), any())).thenReturn(new SearchHits(List.of(5L, 4L, 3L), 3));
+        when(postViewRepository.findByIds(List.of(3L), 7L, false)).thenReturn(List.of(view(3L)));
+        mapAuthenticatedViews();
+
+        //Act
+        Page<PostWithLikeStatusResponseDto> result =
+                postService.filterPosts("text", PageRequest.of(1, 2), viewer, false);
+
+        //Assert
+        assertEquals(3, result.getTotalElements());
+        assertEquals(List.of(3L), result.getContent().stream().map(PostWithLikeStatusResponseDto::postId).toList());
+    }
+
+    private PostView view(Long id) {
+        return new PostView(id, 1L, "john", "title", "content", 0, null, null, null, false);
+    }
+
+    private void mapViews() {
+        when(postMapper.toSimpleDto(any(PostView.class))).thenAnswer(invocation -> {
+            PostView v = invocation.getArgument(0);
+            return new PostResponseDto(v.postId(), v.creatorId(), v.creatorUsername(), v.title(), v.content(),
+                    v.likesCount(), List.of(), v.createdAt(), v.updatedAt());
+        });
+    }
+
+    private void mapAuthenticatedViews() {
+        when(postMapper.toAuthenticatedDto(any(PostView.class))).thenAnswer(invocation -> {
+            PostView v = invocation.getArgument(0);
+            return new PostWithLikeStatusResponseDto(v.postId(), v.creatorId(), v.creatorUsername(), v.title(),
+                    v.content(), v.likesCount(), v.liked(), List.of(), v.createdAt(), v.updatedAt());
+        });
     }
 
     @Test
@@ -306,7 +402,7 @@ public class PostServiceImplTests {
         assertThrows(AuthorizationException.class,
                 () -> postService.delete(99L, notOwner));
         verify(postRepository).findById(99L);
-        verify(postRepository, never()).delete(any());
+        verify(postRepository, never()).delete(any(Post.class));
     }
 
     @Test
@@ -327,7 +423,7 @@ public class PostServiceImplTests {
         assertThrows(AuthorizationException.class,
                 () -> postService.delete(99L, blocked));
         verify(postRepository).findById(99L);
-        verify(postRepository, never()).delete(any());
+        verify(postRepository, never()).delete(any(Post.class));
     }
 
     @Test
@@ -368,36 +464,43 @@ public class PostServiceImplTests {
                 () -> postService.adminDelete(99L, notAdmin));
 
         verify(postRepository, never()).findById(any());
-        verify(postRepository, never()).delete(any());
+        verify(postRepository, never()).delete(any(Post.class));
     }
 
     @Test
     void like_ShouldIncreaseLikes_whenValid() {
-//Arrange
-        User creator = new User();
-        creator.setId(1L);
-        creator.setBlocked(false);
+        //Arrange
         User liker = new User();
         liker.setId(2L);
         liker.setBlocked(false);
-        Post post = createPost(99L);
-        post.setCreator(creator);
-        post.setLikesCount(0);
 
-        post.setLikedBy(new HashSet<>());
-
-        when(postRepository.findById(99L)).thenReturn(Optional.of(post));
+        when(postRepository.lockCreatorIdById(99L)).thenReturn(Optional.of(1L));
+        when(postRepository.insertLike(99L, 2L)).thenReturn(1);
 
         //Act
         postService.like(99L, liker);
 
         //Assert
-        ArgumentCaptor<Post> captor = ArgumentCaptor.forClass(Post.class);
-        verify(postRepository).save(captor.capture());
+        verify(postRepository).adjustLikesCount(99L, 1);
+        verify(postRepository, never()).findById(any());
+        verify(postRepository, never()).save(any());
+    }
 
-        Post saved = captor.getValue();
-        assertEquals(1, saved.getLikesCount());
-        assertTrue(saved.getLikedBy().contains(liker));
+    @Test
+    void like_ShouldDoNothing_whenAlreadyLiked() {
+        //Arrange
+        User liker = new User();
+        liker.setId(2L);
+        liker.setBlocked(false);
+
+        when(postRepository.lockCreatorIdById(99L)).thenReturn(Optional.of(1L));
+        when(postRepository.insertLike(99L, 2L)).thenReturn(0);
+
+        //Act
+        postService.like(99L, liker);
+
+        //Assert
+        verify(postRepository, never()).adjustLikesCount(any(), anyInt());
     }
 
     @Test
@@ -411,8 +514,8 @@ public class PostServiceImplTests {
         //Assert
         assertThrows(AuthorizationException.class,
                 () -> postService.like(99L, liker));
-        verify(postRepository, never()).findById(any());
-        verify(postRepository, never()).save(any());
+        verify(postRepository, never()).insertLike(any(), any());
+        verify(postRepository, never()).adjustLikesCount(any(), anyInt());
     }
 
     @Test
@@ -426,45 +529,45 @@ public class PostServiceImplTests {
         creator.setBlocked(false);
         creator.setRoles(Set.of(role));
 
-        Post post = createPost(99L);
-        post.setCreator(creator);
-        post.setLikesCount(0);
-
-        when(postRepository.findById(99L)).thenReturn(Optional.of(post));
+        when(postRepository.lockCreatorIdById(99L)).thenReturn(Optional.of(1L));
 
         //Assert Act
         assertThrows(AuthorizationException.class,
                 () -> postService.like(99L, creator));
-        verify(postRepository).findById(99L);
-        verify(postRepository, never()).save(any());
+        verify(postRepository, never()).insertLike(any(), any());
+        verify(postRepository, never()).adjustLikesCount(any(), anyInt());
+    }
+
+    @Test
+    void like_ShouldThrow_whenNotFound() {
+
+        //Arrange
+        User liker = new User();
+        liker.setId(2L);
+
+        when(postRepository.lockCreatorIdById(99L)).thenReturn(Optional.empty());
+
+        //Assert
+        assertThrows(EntityNotFoundException.class, () -> postService.like(99L, liker));
+        verify(postRepository, never()).adjustLikesCount(any(), anyInt());
     }
 
     @Test
     void unlike_ShouldDecreaseLikes_whenUserHasLikedBefore() {
         //Arrange
-        User creator = new User();
-        creator.setId(1L);
-        creator.setBlocked(false);
         User unLiker = new User();
         unLiker.setId(2L);
         unLiker.setBlocked(false);
-        Post post = createPost(99L);
-        post.setCreator(creator);
-        post.setLikesCount(1);
-        post.setLikedBy(new HashSet<>(Set.of(unLiker)));
 
-        when(postRepository.findById(99L)).thenReturn(Optional.of(post));
+        when(postRepository.lockCreatorIdById(99L)).thenReturn(Optional.of(1L));
+        when(postRepository.deleteLike(99L, 2L)).thenReturn(1);
 
         //Act
         postService.unlike(99L, unLiker);
 
         //Assert
-        ArgumentCaptor<Post> captor = ArgumentCaptor.forClass(Post.class);
-        verify(postRepository).save(captor.capture());
-
-        Post saved = captor.getValue();
-        assertEquals(0, saved.getLikesCount());
-        assertFalse(saved.getLikedBy().contains(unLiker));
+        verify(postRepository).adjustLikesCount(99L, -1);
+        verify(postRepository, never()).save(any());
     }
 
     @Test
@@ -473,14 +576,38 @@ public class PostServiceImplTests {
         //Arrange
         User creator = new User();
         creator.setId(1L);
-        Post post = createPost(99L);
 
-        when(postRepository.findById(99L)).thenReturn(Optional.empty());
+        when(postRepository.lockCreatorIdById(99L)).thenReturn(Optional.empty());
 
         //Assert
         assertThrows(EntityNotFoundException.class, () -> postService.unlike(99L, creator));
-        verify(postRepository).findById(99L);
-        verify(postRepository, never()).save(any());
+        verify(postRepository, never()).deleteLike(any(), any());
+        verify(postRepository, never()).adjustLikesCount(any(), anyInt());
+    }
+
+    @Test
+    void findLikedPostIds_ShouldResolveWholePage_withOneQuery() {
+        //Arrange
+        User user = new User();
+        user.setId(5L);
+
+        when(postRepository.findLikedPostIds(5L, List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+
+        //Act
+        Set<Long> liked = postService.findLikedPostIds(List.of(1L, 2L, 3L), user);
+
+        //Assert
+        assertEquals(Set.of(1L, 3L), liked);
+        verify(postRepository, times(1)).findLikedPostIds(any(), any());
+    }
+
+    @Test
+    void findLikedPostIds_ShouldNotQuery_whenPageIsEmpty() {
+        User user = new User();
+        user.setId(5L);
+
+        assertTrue(postService.findLikedPostIds(List.of(), user).isEmpty());
+        verify(postRepository, never()).findLikedPostIds(any(), any());
     }
 
     @Test
@@ -504,16 +631,15 @@ public class PostServiceImplTests {
         tag.setId(10L);
         tag.setName("name");
 
-        when(tagRepository.findByName("name")).thenReturn(Optional.empty());
-        when(tagRepository.save(any(Tag.class))).thenReturn(tag);
+        when(tagService.findOrCreateAll(List.of("name"))).thenReturn(List.of(tag));
 
         //Act
         postService.addTagsToPost(99L, creator, List.of("name"));
 
         //Assert
-        assertTrue(post.getTags().contains(tag));
-        verify(tagRepository).save(any(Tag.class));
-        verify(postRepository).save(post);
+        verify(tagService).findOrCreateAll(List.of("name"));
+        verify(tagBatchRepository).attachToPost(99L, List.of(10L));
+        verify(postRepository, never()).save(any());
     }
 
     @Test
@@ -538,12 +664,14 @@ public class PostServiceImplTests {
         post.setTags(new HashSet<>(Set.of(tag)));
 
         when(postRepository.findById(99L)).thenReturn(Optional.of(post));
+        when(tagService.getByName("name")).thenReturn(tag);
 
         //Act
         postService.removeTagFromPost(99l,creator,"name");
 
         //Assert
         assertFalse(post.getTags().contains(tag));
+        verify(tagService).getByName("name");
         verify(postRepository).save(post);
     }
 
@@ -567,12 +695,18 @@ public class PostServiceImplTests {
         post.setTags(new HashSet<>(Set.of(tag)));
 
         when(postRepository.findById(99L)).thenReturn(Optional.of(post));
+        // another instance of the same row, the tag is removed by id
+        Tag sameTag = new Tag();
+        sameTag.setId(10L);
+        sameTag.setName("name");
+        when(tagService.getByName("name")).thenReturn(sameTag);
 
         // Act
         postService.removeTagFromPost(99L, admin, "name");
 
         // Assert
-        assertFalse(post.getTags().contains(tag));
+        assertTrue(post.getTags().isEmpty());
+        verify(tagService).getByName("name");
         verify(postRepository).findById(99L);
         verify(postRepository).save(post);
     }
@@ -598,8 +732,7 @@ public class PostServiceImplTests {
                 () -> postService.removeTagFromPost(99L, blockedUser, "name"));
         verify(postRepository).findById(99L);
         verify(postRepository, never()).save(any());
-        verify(tagRepository, never()).findByName(any());
-        verify(tagRepository, never()).save(any());
+        verify(tagService, never()).getByName(any());
     }
 
     @Test
@@ -624,8 +757,8 @@ public class PostServiceImplTests {
 
         verify(postRepository).findById(99L);
         verify(postRepository, never()).save(any());
-        verify(tagRepository, never()).findByName(any());
-        verify(tagRepository, never()).save(any());
+        verify(tagService, never()).findOrCreateAll(any());
+        verify(tagBatchRepository, never()).attachToPost(any(), any());
     }
 }
 
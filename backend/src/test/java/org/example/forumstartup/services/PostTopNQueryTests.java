@@ -0,0 +1,111 @@
+package org.example.forumstartup.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.forumstartup.cache.TagDictionary;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.support.TestData;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.example.forumstartup.utils.ListUtils.MAX_LIMIT;
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    "Top N" listings must fetch N rows from the database, not every matching
+    post cut down in memory, however many posts the creator or tag has.
+ */
+@SpringBootTest
+class PostTopNQueryTests {
+
+    private static final int POSTS = 300;
+
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private TagDictionary tagDictionary;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private Statistics statistics;
+    private User viewer;
+    private long creatorId;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+        jdbc.update("DELETE FROM tags");
+
+        creatorId = data.insertUser("prolific");
+        viewer = new User();
+        viewer.setId(creatorId);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            rows.add(new Object[]{i, creatorId, "Popular post number " + i});
+        }
+        jdbc.batchUpdate("""
+                INSERT INTO posts (likes_count, created_at, user_id, title, content)
+                VALUES (0, DATEADD('SECOND', ?, CURRENT_TIMESTAMP), ?, ?, 'Content long enough to be a valid post body')
+                """, rows);
+
+        jdbc.update("INSERT INTO tags (name) VALUES ('saas')");
+        jdbc.update("INSERT INTO posts_tags (post_id, tag_id) SELECT p.post_id, t.tag_id FROM posts p, tags t");
+        tagDictionary.reload();
+        postService.rebuildSearchIndex();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    private long rowsFetched() {
+        return Arrays.stream(statistics.getQueries())
+                .mapToLong(q -> statistics.getQueryStatistics(q).getExecutionRowCount())
+                .sum();
+    }
+
+    @Test
+    void findByCreatorId_fetchesOnlyTheLimit() {
+        assertEquals(5, postService.findByCreatorId(creatorId, 5, viewer, true).size());
+        assertEquals(5, rowsFetched());
+
+        statistics.clear();
+        assertEquals(MAX_LIMIT, postService.findByCreatorId(creatorId, 10_000, viewer, true).size());
+        assertEquals(MAX_LIMIT, rowsFetched());
+    }
+
+    @Test
+    void findByTag_fetchesOnlyTheLimit() {
+        assertEquals(10, postService.findByTag("SaaS", 10, viewer, true).size());
+        assertEquals(10, rowsFetched());
+    }
+
+    @Test
+    void search_fetchesOnlyTheLimit() {
+        assertEquals(7, postService.search("popular", 7).size());
+        assertEquals(7, rowsFetched());
+    }
+
+    @Test
+    void schema_hasTheTopNIndexes() {
+        List<String> indexes = jdbc.queryForList(
+                "SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES", String.class);
+
+        assertTrue(indexes.contains("idx_posts_user_created_at"));
+        assertTrue(indexes.contains("idx_posts_tags_tag_post"));
+    }
+}
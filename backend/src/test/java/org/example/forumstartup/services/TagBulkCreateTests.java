@@ -0,0 +1,119 @@
+package org.example.forumstartup.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.forumstartup.cache.TagDictionary;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.support.TestData;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Bulk tag resolution against the database: a constant number of statements
+    per call, and no failures when several requests create the same tags.
+ */
+@SpringBootTest
+class TagBulkCreateTests {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private TagService tagService;
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private TagDictionary tagDictionary;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private Statistics statistics;
+    private User creator;
+    private long postId;
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+        jdbc.update("DELETE FROM tags");
+        // tags are never deleted by the application, the dictionary has to be told
+        tagDictionary.reload();
+
+        creator = TestData.member(data.insertUser("creator"));
+        postId = data.insertPost(creator.getId(), "Tagging a post in one go");
+
+        jdbc.update("INSERT INTO tags (name) VALUES ('saas')");
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void addTagsToPost_usesSameStatementCount_forAnyNumberOfTags() {
+        List<String> names = IntStream.range(0, 20).mapToObj(i -> "Tag " + i).toList();
+        List<String> withExisting = new ArrayList<>(names);
+        withExisting.add("SaaS");
+
+        postService.addTagsToPost(postId, creator, withExisting);
+        long statements = statistics.getPrepareStatementCount();
+
+        // post, the IN lookup, the ids of the new tags and the tag index re-reading the
+        // post's tags after commit; the tag and join row batches go through JdbcTemplate,
+        // one statement each, and are not counted here
+        assertEquals(4, statements);
+        assertEquals(21, jdbc.queryForObject("SELECT COUNT(*) FROM posts_tags WHERE post_id = ?", Integer.class, postId));
+        assertEquals(21, tagDictionary.sortedNames().size());
+        assertEquals("saas", tagDictionary.sortedNames().get(0));
+
+        // all known now: only the post and the index re-read, plus the join row batch
+        statistics.clear();
+        postService.addTagsToPost(postId, creator, List.of("tag-1", "tag 2"));
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(21, jdbc.queryForObject("SELECT COUNT(*) FROM posts_tags WHERE post_id = ?", Integer.class, postId));
+    }
+
+    @Test
+    void findOrCreateAll_concurrentCreatorsOfTheSameTags_allSucceed() throws Exception {
+        List<String> names = IntStream.range(0, 30).mapToObj(i -> "shared-" + i).toList();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                futures.add(pool.submit(() -> {
+                    // every thread sees the names in a different order
+                    List<String> rotated = new ArrayList<>(names.subList(offset, names.size()));
+                    rotated.addAll(names.subList(0, offset));
+                    return tagService.findOrCreateAll(rotated).stream().map(tag -> tag.getId()).sorted().toList();
+                }));
+            }
+
+            List<Long> first = futures.get(0).get();
+            for (Future<List<Long>> f : futures) {
+                assertEquals(first, f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(30, jdbc.queryForObject("SELECT COUNT(*) FROM tags WHERE name LIKE 'shared-%'", Integer.class));
+    }
+}
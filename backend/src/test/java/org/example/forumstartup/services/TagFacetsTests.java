@@ -0,0 +1,187 @@
+package org.example.forumstartup.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.forumstartup.cache.EntityCounters;
+import org.example.forumstartup.cache.TagDictionary;
+import org.example.forumstartup.dtos.post.PostWithLikeStatusResponseDto;
+import org.example.forumstartup.dtos.tags.TagCountDto;
+import org.example.forumstartup.dtos.tags.TagFacetsResponseDto;
+import org.example.forumstartup.enums.TagMatch;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.search.TagPostIndexer;
+import org.example.forumstartup.support.TestData;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Tag filters and facets served from the tag index, and the index following
+    tag changes and deletes made through PostService.
+ */
+@SpringBootTest
+class TagFacetsTests {
+
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private TagDictionary tagDictionary;
+    @Autowired
+    private TagPostIndexer tagPostIndexer;
+    @Autowired
+    private EntityCounters entityCounters;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TestData data;
+
+    private Statistics statistics;
+    private User creator;
+    private final List<Long> postIds = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        data = new TestData(jdbc);
+        data.clear();
+        jdbc.update("DELETE FROM tags");
+
+        creator = TestData.member(data.insertUser("creator"));
+
+        jdbc.update("INSERT INTO tags (name) VALUES ('saas'), ('fintech'), ('hiring')");
+
+        // post i carries: saas for 0-3, fintech for 2-4, hiring for 3 and 5
+        postIds.clear();
+        for (int i = 0; i < 6; i++) {
+            jdbc.update("""
+                    INSERT INTO posts (likes_count, created_at, user_id, title, content)
+                    VALUES (0, DATEADD('MINUTE', ?, CURRENT_TIMESTAMP), ?, ?, 'Content long enough to be a valid post body')
+                    """, i, creator.getId(), "Tagged post number " + i);
+            postIds.add(jdbc.queryForObject("SELECT MAX(post_id) FROM posts", Long.class));
+        }
+        tag(0, "saas"); tag(1, "saas"); tag(2, "saas"); tag(3, "saas");
+        tag(2, "fintech"); tag(3, "fintech"); tag(4, "fintech");
+        tag(3, "hiring"); tag(5, "hiring");
+
+        tagDictionary.reload();
+        tagPostIndexer.rebuild();
+        entityCounters.reconcile();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    private void tag(int post, String tag) {
+        jdbc.update("INSERT INTO posts_tags (post_id, tag_id) SELECT ?, tag_id FROM tags WHERE name = ?",
+                postIds.get(post), tag);
+    }
+
+    private Set<Long> posts(int... indexes) {
+        Set<Long> ids = new java.util.HashSet<>();
+        for (int i : indexes) {
+            ids.add(postIds.get(i));
+        }
+        return ids;
+    }
+
+    private Set<Long> filter(List<String> tags, TagMatch match) {
+        Page<PostWithLikeStatusResponseDto> page = postService.filterPosts(
+                null, tags, match, PageRequest.of(0, 12, Sort.by(Sort.Direction.DESC, "createdAt")), creator, true);
+        return page.getContent().stream().map(PostWithLikeStatusResponseDto::postId).collect(Collectors.toSet());
+    }
+
+    @Test
+    void filterPosts_byAllTags_readsOnlyTheMatchingPage() {
+        assertEquals(posts(2, 3), filter(List.of("SaaS", "fintech"), TagMatch.ALL));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        assertEquals(Set.of(), filter(List.of("saas", "no-such-tag"), TagMatch.ALL));
+    }
+
+    @Test
+    void filterPosts_byAnyTag() {
+        assertEquals(posts(2, 3, 4, 5), filter(List.of("fintech", "hiring", "no-such-tag"), TagMatch.ANY));
+    }
+
+    @Test
+    void filterPosts_byTag_pagesNewestFirstFromTheIndex() {
+        Page<PostWithLikeStatusResponseDto> page = postService.filterPosts(
+                null, List.of("saas"), TagMatch.ALL, PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "createdAt")),
+                creator, true);
+
+        assertEquals(4, page.getTotalElements());
+        assertEquals(List.of(postIds.get(0)),
+                page.getContent().stream().map(PostWithLikeStatusResponseDto::postId).toList());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void filterPosts_byTag_withOtherSort_filtersInTheQuery() {
+        Page<PostWithLikeStatusResponseDto> page = postService.filterPosts(
+                null, List.of("fintech", "hiring"), TagMatch.ANY, PageRequest.of(0, 3, Sort.by("title")),
+                creator, true);
+
+        assertEquals(4, page.getTotalElements());
+        assertEquals(List.of(postIds.get(2), postIds.get(3), postIds.get(4)),
+                page.getContent().stream().map(PostWithLikeStatusResponseDto::postId).toList());
+    }
+
+    @Test
+    void filterPosts_combinesTagsWithSearchQuery() {
+        postService.rebuildSearchIndex();
+
+        Page<PostWithLikeStatusResponseDto> page = postService.filterPosts(
+                "number 3", List.of("fintech"), TagMatch.ALL, PageRequest.of(0, 12), creator, false);
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals(postIds.get(3), page.getContent().get(0).postId());
+    }
+
+    @Test
+    void tagFacets_countsTagsWithinSelection() {
+        TagFacetsResponseDto all = postService.tagFacets(null, TagMatch.ALL, 10);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(6, all.matchingPosts());
+        assertEquals(List.of(
+                new TagCountDto("saas", 4),
+                new TagCountDto("fintech", 3),
+                new TagCountDto("hiring", 2)
+        ), all.tags());
+
+        statistics.clear();
+        TagFacetsResponseDto saas = postService.tagFacets(List.of("saas"), TagMatch.ALL, 10);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(4, saas.matchingPosts());
+        assertEquals(List.of(
+                new TagCountDto("saas", 4),
+                new TagCountDto("fintech", 2),
+                new TagCountDto("hiring", 1)
+        ), saas.tags());
+    }
+
+    @Test
+    void index_followsTagChangesAndDeletes() {
+        postService.addTagsToPost(postIds.get(5), creator, List.of("fintech", "remote"));
+        postService.removeTagFromPost(postIds.get(3), creator, "fintech");
+        postService.delete(postIds.get(2), creator);
+
+        assertEquals(posts(4, 5), filter(List.of("fintech"), TagMatch.ALL));
+        assertEquals(posts(5), filter(List.of("remote"), TagMatch.ALL));
+        assertEquals(posts(0, 1, 3), filter(List.of("saas"), TagMatch.ALL));
+    }
+}
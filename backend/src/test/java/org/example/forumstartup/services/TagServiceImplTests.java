@@ -1,16 +1,21 @@
 package org.example.forumstartup.services;
 
+import org.example.forumstartup.cache.TagDictionary;
+import org.example.forumstartup.events.TagsCreatedEvent;
 import org.example.forumstartup.exceptions.EntityNotFoundException;
 import org.example.forumstartup.exceptions.InvalidTagFormatException;
 import org.example.forumstartup.models.Tag;
+import org.example.forumstartup.repositories.TagBatchRepository;
 import org.example.forumstartup.repositories.TagRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,6 +28,15 @@ class TagServiceImplTests {
     @Mock
     private TagRepository tagRepository;
 
+    @Mock
+    private TagBatchRepository tagBatchRepository;
+
+    @Mock
+    private TagDictionary tagDictionary;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private TagServiceImpl tagService;
 
@@ -132,4 +146,67 @@ class TagServiceImplTests {
         assertTrue(result.contains(t2));
         verify(tagRepository).findAll();
     }
-}
\ No newline at end of file
+
+    @Test
+    void findOrCreateAll_ShouldNotQuery_WhenAllTagsAreKnown() {
+        //Arrange
+        when(tagDictionary.idOf("spring-boot")).thenReturn(Optional.of(1L));
+        when(tagDictionary.idOf("java")).thenReturn(Optional.of(2L));
+        when(tagRepository.getReferenceById(any())).thenAnswer(inv -> tag(inv.getArgument(0), null));
+
+        //Act
+        List<Tag> result = tagService.findOrCreateAll(List.of("Spring  Boot", "java", "JAVA"));
+
+        //Assert
+        assertEquals(List.of(1L, 2L), result.stream().map(Tag::getId).toList());
+        verify(tagRepository, never()).findByNameIn(any());
+        verify(tagBatchRepository, never()).insertIgnoringExisting(any());
+    }
+
+    @Test
+    void findOrCreateAll_ShouldInsertOnlyMissingTags_InOneBatch() {
+        //Arrange
+        when(tagDictionary.idOf("java")).thenReturn(Optional.of(1L));
+        when(tagRepository.findByNameIn(List.of("spring", "kotlin", "saas")))
+                .thenReturn(List.of(tag(2L, "spring")));
+        when(tagRepository.findLockedByNameIn(List.of("kotlin", "saas")))
+                .thenReturn(List.of(tag(3L, "kotlin"), tag(4L, "saas")));
+        when(tagRepository.getReferenceById(any())).thenAnswer(inv -> tag(inv.getArgument(0), null));
+
+        //Act
+        List<Tag> result = tagService.findOrCreateAll(List.of("java", "spring", "kotlin", "saas"));
+
+        //Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L), result.stream().map(Tag::getId).toList());
+        verify(tagDictionary).addAll(Map.of("spring", 2L));
+        verify(tagBatchRepository).insertIgnoringExisting(List.of("kotlin", "saas"));
+        verify(eventPublisher).publishEvent(new TagsCreatedEvent(Map.of("kotlin", 3L, "saas", 4L)));
+    }
+
+    @Test
+    void findOrCreateAll_ShouldThrow_BeforeAnyQuery_WhenOneTagIsInvalid() {
+        //Act + Assert
+        assertThrows(InvalidTagFormatException.class,
+                () -> tagService.findOrCreateAll(List.of("java", "@XX")));
+        verify(tagRepository, never()).findByNameIn(any());
+        verify(tagBatchRepository, never()).insertIgnoringExisting(any());
+    }
+
+    @Test
+    void getByName_ShouldNotQuery_WhenTagIsKnown() {
+        when(tagDictionary.idOf("java")).thenReturn(Optional.of(7L));
+
+        Tag result = tagService.getByName("Java");
+
+        assertEquals(7L, result.getId());
+        assertEquals("java", result.getName());
+        verify(tagRepository, never()).findByName(any());
+    }
+
+    private static Tag tag(Long id, String name) {
+        Tag tag = new Tag();
+        tag.setId(id);
+        tag.setName(name);
+        return tag;
+    }
+}
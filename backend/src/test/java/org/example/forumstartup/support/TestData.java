@@ -0,0 +1,136 @@
+package org.example.forumstartup.support;
+
+import org.example.forumstartup.enums.ERole;
+import org.example.forumstartup.models.Role;
+import org.example.forumstartup.models.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/*
+    Rows the tests start from, written with plain JDBC so setting them up does
+    not go through the services under test.
+ */
+public class TestData {
+
+    private static final String INSERT_USER = """
+            INSERT INTO users (is_blocked, created_at, email, first_name, last_name, password, username)
+            VALUES (false, CURRENT_TIMESTAMP, ?, 'Some', 'User', 'x', ?)
+            """;
+
+    private static final String GRANT_ROLE = """
+            INSERT INTO user_roles (user_id, role_id) SELECT ?, role_id FROM roles WHERE name = ?
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public TestData(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /*
+        Deletes the posts, comments, likes and users, children before parents and
+        roles before their users, then recreates the two roles. Tags are left to
+        the tests that need them gone, they have to reload the tag dictionary too.
+     */
+    public void clear() {
+        jdbc.update("DELETE FROM comments_likes");
+        jdbc.update("DELETE FROM post_likes");
+        jdbc.update("DELETE FROM posts_tags");
+        jdbc.update("UPDATE comments SET parent_comment_id = NULL");
+        jdbc.update("DELETE FROM comments");
+        jdbc.update("DELETE FROM posts");
+        jdbc.update("DELETE FROM user_roles");
+        jdbc.update("DELETE FROM users");
+        jdbc.update("DELETE FROM roles");
+        jdbc.update("INSERT INTO roles (name) VALUES ('ROLE_USER'), ('ROLE_ADMIN')");
+    }
+
+    /*
+        An unblocked ROLE_USER with the email <username>@example.com, returns its id
+     */
+    public long insertUser(String username) {
+        jdbc.update(INSERT_USER, username + "@example.com", username);
+        long id = jdbc.queryForObject("SELECT user_id FROM users WHERE username = ?", Long.class, username);
+        jdbc.update(GRANT_ROLE, id, "ROLE_USER");
+        return id;
+    }
+
+    /*
+        A user with both ROLE_USER and ROLE_ADMIN, returns its id
+     */
+    public long insertAdmin(String username) {
+        long id = insertUser(username);
+        jdbc.update(GRANT_ROLE, id, "ROLE_ADMIN");
+        return id;
+    }
+
+    /*
+        A post with no likes, comments or tags, created now; returns its id
+     */
+    public long insertPost(long creatorId, String title) {
+        jdbc.update("""
+                INSERT INTO posts (likes_count, created_at, user_id, title, content)
+                VALUES (0, CURRENT_TIMESTAMP, ?, ?, 'Content long enough to be a valid post body')
+                """, creatorId, title);
+        return jdbc.queryForObject("SELECT MAX(post_id) FROM posts", Long.class);
+    }
+
+    /*
+        A detached ROLE_USER carrying only its id, to act as in service calls
+     */
+    public static User member(long id) {
+        User user = new User();
+        user.setId(id);
+        user.getRoles().add(new Role(null, ERole.ROLE_USER));
+        return user;
+    }
+
+    /*
+        `count` users named <prefix>0, <prefix>1, ... in one batch, as detached
+        Users carrying only their id
+     */
+    public List<User> insertUsers(String prefix, int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{prefix + i + "@example.com", prefix + i});
+        }
+        jdbc.batchUpdate(INSERT_USER, rows);
+        jdbc.update("""
+                INSERT INTO user_roles (user_id, role_id)
+                SELECT u.user_id, r.role_id FROM users u, roles r WHERE u.username LIKE ? AND r.name = 'ROLE_USER'
+                """, prefix + "%");
+
+        return jdbc.queryForList("SELECT user_id FROM users WHERE username LIKE ? ORDER BY user_id", Long.class, prefix + "%")
+                .stream()
+                .map(id -> {
+                    User user = new User();
+                    user.setId(id);
+                    return user;
+                })
+                .toList();
+    }
+
+    /*
+        Runs the action once per item on `threads` threads, rethrowing the first failure
+     */
+    public static <T> void inParallel(int threads, List<T> items, Consumer<T> action) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (T item : items) {
+                futures.add(pool.submit(() -> action.accept(item)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.forumstartup.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommentPathsTests {
+
+    @Test
+    void sortedPaths_areTheDepthFirstOrderOfTheTree() {
+        Random random = new Random(17);
+        Map<Long, List<Long>> replies = new HashMap<>();
+        Map<Long, String> paths = new HashMap<>();
+        List<Long> roots = new ArrayList<>();
+
+        // ids grow like identity values, with gaps crossing several digit counts
+        long id = 1;
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            id += 1 + random.nextInt(i < 2_500 ? 3 : 5_000);
+            Long parent = created.isEmpty() || random.nextInt(5) == 0
+                    ? null
+                    : created.get(random.nextInt(created.size()));
+
+            paths.put(id, CommentPaths.childOf(parent == null ? null : paths.get(parent), id));
+            (parent == null ? roots : replies.computeIfAbsent(parent, p -> new ArrayList<>())).add(id);
+            created.add(id);
+        }
+
+        List<Long> depthFirst = new ArrayList<>();
+        roots.forEach(root -> walk(root, replies, depthFirst));
+
+        List<Long> byPath = created.stream().sorted((a, b) -> paths.get(a).compareTo(paths.get(b))).toList();
+        assertEquals(depthFirst, byPath);
+    }
+
+    private static void walk(Long id, Map<Long, List<Long>> replies, List<Long> out) {
+        out.add(id);
+        replies.getOrDefault(id, List.of()).forEach(reply -> walk(reply, replies, out));
+    }
+
+    @Test
+    void path_isPrefixOfItsSubtreeOnly() {
+        String parent = CommentPaths.childOf(null, 1);
+        String child = CommentPaths.childOf(parent, 12);
+        String unrelated = CommentPaths.childOf(null, 11);
+
+        assertTrue(child.startsWith(parent));
+        assertFalse(unrelated.startsWith(parent));
+        assertEquals(1, CommentPaths.depth(parent));
+        assertEquals(2, CommentPaths.depth(child));
+    }
+
+    @Test
+    void isValid_rejectsMalformedPaths() {
+        String path = CommentPaths.childOf(CommentPaths.childOf(null, 36), Long.MAX_VALUE);
+
+        assertTrue(CommentPaths.isValid(path));
+        assertFalse(CommentPaths.isValid(null));
+        assertFalse(CommentPaths.isValid(""));
+        assertFalse(CommentPaths.isValid("3ab"));
+        assertFalse(CommentPaths.isValid("0"));
+        assertFalse(CommentPaths.isValid("2A1"));
+        assertFalse(CommentPaths.isValid("2a%"));
+    }
+
+    @Test
+    void canHaveReplies_untilThePathIsFull() {
+        assertTrue(CommentPaths.canHaveReplies(null));
+        assertTrue(CommentPaths.canHaveReplies("1a".repeat(100)));
+        assertFalse(CommentPaths.canHaveReplies("1a".repeat(CommentPaths.MAX_LENGTH / 2 - 1)));
+    }
+}
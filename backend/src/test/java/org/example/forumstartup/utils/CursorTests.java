@@ -0,0 +1,30 @@
+package org.example.forumstartup.utils;
+
+import org.example.forumstartup.exceptions.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorTests {
+
+    @Test
+    void decode_returnsEncodedPosition() {
+        Cursor cursor = new Cursor(LocalDateTime.of(2025, 12, 5, 10, 0, 0, 123456000), 42L);
+
+        assertEquals(cursor, Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void decode_returnsNull_whenNoCursorGiven() {
+        assertNull(Cursor.decode(null));
+        assertNull(Cursor.decode(" "));
+    }
+
+    @Test
+    void decode_throws_whenCursorIsTamperedWith() {
+        assertThrows(InvalidCursorException.class, () -> Cursor.decode("not-a-cursor!"));
+        assertThrows(InvalidCursorException.class, () -> Cursor.decode("MjAyNS0xMi0wNQ"));
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.forumstartup.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.example.forumstartup.utils.TagConstants.TAG_NORMALIZED_PATTERN;
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    The single-pass normalizer against the regex based implementation it
+    replaced, on generated input built from the characters that matter to the rules.
+ */
+class TagNormalizerTests {
+
+    private static final long SEED = 20261017L;
+    private static final int SAMPLES = 200_000;
+
+    // letters, digits, every \s character, blanks only trim() removes, hyphens,
+    // invalid ASCII, and non-ASCII letters whose lowercase is (or looks) ASCII
+    private static final char[] ALPHABET = (
+            "aAbZz09" + " \t\n\u000B\f\r" + "\u0000\u0001\u001F" + "---" + "_@#./"
+                    + "\u212A\u0130\u0131\u00E9\u00C9\u03A3\u00A0\u2003\uD83D\uDE00"
+    ).toCharArray();
+
+    // the implementation before TagNormalizer, null instead of throwing
+    private static String legacy(String raw) {
+        String cleaned = raw.trim().toLowerCase()
+                .replaceAll("\\s+", "-")
+                .replaceAll("-{2,}", "-");
+        return cleaned.matches(TAG_NORMALIZED_PATTERN) ? cleaned : null;
+    }
+
+    @Test
+    void normalize_matchesRegexImplementation_onGeneratedInput() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < SAMPLES; i++) {
+            String raw = randomTag(random);
+            assertEquals(legacy(raw), TagNormalizer.normalizeOrNull(raw), () -> "input: " + escape(raw));
+        }
+    }
+
+    @Test
+    void normalize_handlesKnownCases() {
+        assertEquals("spring-boot", TagNormalizer.normalizeOrNull("  Spring   Boot "));
+        assertEquals("a-b", TagNormalizer.normalizeOrNull("a - \t- b"));
+        assertEquals("-a-", TagNormalizer.normalizeOrNull("--a--"));
+        assertEquals("kotlin", TagNormalizer.normalizeOrNull("Kotlin"));
+        assertNull(TagNormalizer.normalizeOrNull("   "));
+        assertNull(TagNormalizer.normalizeOrNull(""));
+        assertNull(TagNormalizer.normalizeOrNull("c++"));
+        assertNull(TagNormalizer.normalizeOrNull("\u0130stanbul"));
+        assertNull(TagNormalizer.normalizeOrNull("a b"));
+    }
+
+    @Test
+    void normalize_returnsSameInstance_whenAlreadyNormalized() {
+        String normalized = "already-normalized-42";
+
+        assertSame(normalized, TagNormalizer.normalizeOrNull(normalized));
+    }
+
+    private static String randomTag(Random random) {
+        int length = random.nextInt(12);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String raw) {
+        StringBuilder sb = new StringBuilder();
+        raw.chars().forEach(c -> sb.append(c >= 32 && c < 127 ? String.valueOf((char) c) : String.format("\\u%04X", c)));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.forumstartup.benchmarks;
+
+import org.example.forumstartup.ForumStartupApplication;
+import org.example.forumstartup.likes.CommentLikeBuffer;
+import org.example.forumstartup.models.Comment;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.repositories.CommentRepository;
+import org.example.forumstartup.repositories.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Comment likes through CommentLikeBuffer against the load-likedBy-and-save
+    path it replaced, which is kept here only to be measured. Runs the backend
+    on in-memory H2.
+
+    Every invocation likes with a new (comment, user) pair. A comment takes a
+    like from every user before the next comment is liked, so all threads
+    contend on one comment like on a viral thread, and the old path loads a
+    likedBy set of up to USERS rows on every like. The buffer's flush thread
+    writes to the same database meanwhile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class CommentLikeBenchmark {
+
+    private static final int USERS = 2000;
+    private static final int COMMENTS = 1000;
+
+    private static final String INSERT_USER = """
+            INSERT INTO users (is_blocked, created_at, email, first_name, last_name, password, username)
+            VALUES (false, CURRENT_TIMESTAMP, ?, 'Some', 'User', 'x', ?)
+            """;
+
+    private ConfigurableApplicationContext context;
+    private CommentLikeBuffer buffer;
+    private CommentRepository commentRepository;
+    private UserRepository userRepository;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbc;
+
+    private long[] userIds;
+    private long[] commentIds;
+    private final AtomicInteger likes = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ForumStartupApplication.class)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:likes;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                        "spring.datasource.username=sa",
+                        "spring.jpa.hibernate.ddl-auto=validate",
+                        "jwt.secret=benchmark-secret-that-is-long-enough-for-hs256-signing",
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN"
+                )
+                .run();
+
+        buffer = context.getBean(CommentLikeBuffer.class);
+        commentRepository = context.getBean(CommentRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> users = new ArrayList<>(USERS + 1);
+        for (int i = 0; i <= USERS; i++) {
+            users.add(new Object[]{"liker" + i + "@example.com", "liker" + i});
+        }
+        jdbc.batchUpdate(INSERT_USER, users);
+        List<Long> ids = jdbc.queryForList("SELECT user_id FROM users ORDER BY user_id", Long.class);
+        long creatorId = ids.get(0);
+        userIds = ids.subList(1, ids.size()).stream().mapToLong(Long::longValue).toArray();
+
+        jdbc.update("""
+                INSERT INTO posts (likes_count, created_at, user_id, title, content)
+                VALUES (0, CURRENT_TIMESTAMP, ?, 'A thread that went viral', 'Content long enough to be a valid post body')
+                """, creatorId);
+        long postId = jdbc.queryForObject("SELECT MAX(post_id) FROM posts", Long.class);
+
+        List<Object[]> comments = new ArrayList<>(COMMENTS);
+        for (int i = 0; i < COMMENTS; i++) {
+            comments.add(new Object[]{postId, creatorId});
+        }
+        jdbc.batchUpdate("""
+                INSERT INTO comments (post_id, user_id, content, likes_count, is_deleted, created_at)
+                VALUES (?, ?, 'First!', 0, false, CURRENT_TIMESTAMP)
+                """, comments);
+        commentIds = jdbc.queryForList("SELECT comment_id FROM comments ORDER BY comment_id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        buffer.flush();
+        context.close();
+    }
+
+    @Benchmark
+    public int buffered() {
+        int like = nextLike();
+        return buffer.like(commentIds[like / USERS], userIds[like % USERS]);
+    }
+
+    @Benchmark
+    public int loadLikedBy() {
+        int like = nextLike();
+        return legacyLike(commentIds[like / USERS], userIds[like % USERS]);
+    }
+
+    private int nextLike() {
+        int like = likes.getAndIncrement();
+        if (like >= USERS * COMMENTS) {
+            throw new IllegalStateException("Every (comment, user) pair was liked, raise COMMENTS");
+        }
+        return like;
+    }
+
+    // CommentServiceImpl.likeComment before the write-behind buffer
+    private int legacyLike(long commentId, long userId) {
+        return transactionTemplate.execute(status -> {
+            Comment comment = commentRepository.findById(commentId).orElseThrow();
+            User user = userRepository.getReferenceById(userId);
+
+            if (comment.getLikedBy().add(user)) {
+                // likes_count is not updatable through the entity any more
+                jdbc.update("UPDATE comments SET likes_count = likes_count + 1 WHERE comment_id = ?", commentId);
+            }
+            commentRepository.save(comment);
+            return comment.getLikedBy().size();
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.forumstartup.benchmarks;
+
+import org.example.forumstartup.models.Comment;
+import org.example.forumstartup.models.Post;
+import org.example.forumstartup.models.Tag;
+import org.example.forumstartup.models.User;
+import org.example.forumstartup.readmodel.PostView;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+    Entities and read model rows shaped like production data: a 1-2 KB post body,
+    three tags, and comment threads where every fourth comment is a reply
+    and every tenth one is deleted.
+ */
+final class Fixtures {
+
+    static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 15, 12, 30);
+
+    private static final String PARAGRAPH = """
+            We bootstrapped for two years before raising, and the biggest lesson was \
+            that pricing experiments are cheaper than feature experiments. \
+            """;
+
+    private Fixtures() {}
+
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("founder" + id);
+        user.setEmail("founder" + id + "@example.com");
+        user.setFirstName("Some");
+        user.setLastName("Founder");
+        return user;
+    }
+
+    static Post post(long id) {
+        Post post = new Post("Lessons from bootstrapping to 1M ARR #" + id, PARAGRAPH.repeat(10));
+        post.setId(id);
+        post.setCreator(user(id % 100));
+        post.setLikesCount((int) (id * 7 % 300));
+        post.setCreatedAt(NOW.minusMinutes(id));
+        post.setUpdatedAt(NOW);
+
+        Set<Tag> tags = new HashSet<>();
+        tags.add(new Tag(1L, "saas", new HashSet<>()));
+        tags.add(new Tag(2L, "bootstrapping", new HashSet<>()));
+        tags.add(new Tag(3L, "pricing", new HashSet<>()));
+        post.setTags(tags);
+        return post;
+    }
+
+    static PostView postView(long id) {
+        return new PostView(
+                id,
+                id % 100,
+                "founder" + (id % 100),
+                "Lessons from bootstrapping to 1M ARR #" + id,
+                PARAGRAPH.repeat(10),
+                (int) (id * 7 % 300),
+                "bootstrapping,pricing,saas",
+                NOW.minusMinutes(id),
+                NOW,
+                id % 3 == 0
+        );
+    }
+
+    static List<Comment> comments(int count) {
+        Post post = post(1);
+        User deleter = user(0);
+        List<Comment> comments = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Comment comment = new Comment();
+            comment.setId((long) i + 1);
+            comment.setPost(post);
+            comment.setCreator(user(i % 20));
+            comment.setContent("Agreed, we saw the same with annual plans. Comment " + i);
+            comment.setLikesCount(i % 13);
+            comment.setCreatedAt(NOW.minusSeconds(count - i));
+            comment.setUpdatedAt(NOW);
+            if (i % 4 == 3) {
+                comment.setParent(comments.get(i - 1));
+            }
+            if (i % 10 == 9) {
+                comment.setIsDeleted(true);
+                comment.setDeletedAt(NOW);
+                comment.setDeletedBy(deleter);
+            }
+            comments.add(comment);
+        }
+        return comments;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.forumstartup.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.example.forumstartup.dtos.comment.CommentResponseDto;
+import org.example.forumstartup.dtos.common.CursorPageDto;
+import org.example.forumstartup.dtos.post.PostResponseDto;
+import org.example.forumstartup.dtos.post.PostWithLikeStatusResponseDto;
+import org.example.forumstartup.mappers.CommentMapper;
+import org.example.forumstartup.mappers.PostMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/*
+    Response bodies of the busiest endpoints, written with an ObjectMapper
+    configured like Spring Boot's (java.time as ISO strings).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JacksonBenchmark {
+
+    private ObjectWriter writer;
+
+    private List<PostResponseDto> recentPosts;
+    private CursorPageDto<PostWithLikeStatusResponseDto> feedPage;
+    private List<CommentResponseDto> comments;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writer();
+
+        PostMapper postMapper = new PostMapper(null);
+        recentPosts = LongStream.rangeClosed(1, 10)
+                .mapToObj(id -> postMapper.toSimpleDto(Fixtures.postView(id)))
+                .toList();
+        feedPage = new CursorPageDto<>(
+                LongStream.rangeClosed(1, 20)
+                        .mapToObj(id -> postMapper.toAuthenticatedDto(Fixtures.postView(id)))
+                        .toList(),
+                "MjAyNS0wMS0xNVQxMjozMDowMHwyMA",
+                true
+        );
+        comments = new CommentMapper().toDtoList(Fixtures.comments(50));
+    }
+
+    @Benchmark
+    public byte[] recentPosts() throws JsonProcessingException {
+        return writer.writeValueAsBytes(recentPosts);
+    }
+
+    @Benchmark
+    public byte[] feedPage() throws JsonProcessingException {
+        return writer.writeValueAsBytes(feedPage);
+    }
+
+    @Benchmark
+    public byte[] comments() throws JsonProcessingException {
+        return writer.writeValueAsBytes(comments);
+    }
+}
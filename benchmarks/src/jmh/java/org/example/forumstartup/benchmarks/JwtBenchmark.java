@@ -0,0 +1,92 @@
+package org.example.forumstartup.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.forumstartup.security.JwtUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Token issuing on login and token checks on every authenticated request:
+    a repeated token is answered from the verified-claims cache, a new one
+    pays for the HMAC check and the JSON parsing. verifyTwice is the check
+    the filter did before the cache: a new parser per call, and one call to
+    validate the token and another to read its subject.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtBenchmark {
+
+    private static final String SECRET = "benchmark-secret-that-is-long-enough-for-hs256";
+
+    private Key key;
+    private JwtUtils cachingJwtUtils;
+    private JwtUtils nonCachingJwtUtils;
+    private String token;
+    private String otherToken;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        cachingJwtUtils = jwtUtils(10_000);
+        // with a one entry cache, two alternating tokens evict each other and every parse verifies
+        nonCachingJwtUtils = jwtUtils(1);
+
+        token = cachingJwtUtils.generateToken(42L, "founder42", Set.of("ROLE_USER"));
+        otherToken = cachingJwtUtils.generateToken(43L, "founder43", Set.of("ROLE_USER"));
+        cachingJwtUtils.parse(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return cachingJwtUtils.generateToken(42L, "founder42", Set.of("ROLE_USER"));
+    }
+
+    @Benchmark
+    public Optional<Claims> parseCached() {
+        return cachingJwtUtils.parse(token);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public Optional<Claims> parseVerified() {
+        nonCachingJwtUtils.parse(token);
+        return nonCachingJwtUtils.parse(otherToken);
+    }
+
+    @Benchmark
+    public String verifyTwice() {
+        Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    // JwtUtils is configured by Spring through @Value fields
+    private static JwtUtils jwtUtils(int verifiedCacheMaxSize) throws ReflectiveOperationException {
+        JwtUtils jwtUtils = new JwtUtils();
+        set(jwtUtils, "secret", SECRET);
+        set(jwtUtils, "verifiedCacheMaxSize", verifiedCacheMaxSize);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.forumstartup.benchmarks;
+
+import org.example.forumstartup.dtos.comment.CommentResponseDto;
+import org.example.forumstartup.dtos.post.PostResponseDto;
+import org.example.forumstartup.dtos.post.PostWithLikeStatusResponseDto;
+import org.example.forumstartup.mappers.CommentMapper;
+import org.example.forumstartup.mappers.PostMapper;
+import org.example.forumstartup.models.Comment;
+import org.example.forumstartup.models.Post;
+import org.example.forumstartup.readmodel.PostView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Entity and read model to DTO mapping, run for every post and comment of every listing
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapperBenchmark {
+
+    // the mapping methods do not use AuthenticationUtils
+    private final PostMapper postMapper = new PostMapper(null);
+    private final CommentMapper commentMapper = new CommentMapper();
+
+    private Post post;
+    private PostView postView;
+
+    @Setup
+    public void setUp() {
+        post = Fixtures.post(42);
+        postView = Fixtures.postView(42);
+    }
+
+    // comments of one page of a post, only this benchmark depends on the size
+    @State(Scope.Benchmark)
+    public static class Comments {
+
+        @Param({"20", "200"})
+        public int size;
+
+        private List<Comment> list;
+
+        @Setup
+        public void setUp() {
+            list = Fixtures.comments(size);
+        }
+    }
+
+    @Benchmark
+    public PostResponseDto postToSimpleDto() {
+        return postMapper.toSimpleDto(post);
+    }
+
+    @Benchmark
+    public PostWithLikeStatusResponseDto postToAuthenticatedDto() {
+        return postMapper.toAuthenticatedDto(post, true);
+    }
+
+    @Benchmark
+    public PostResponseDto postViewToSimpleDto() {
+        return postMapper.toSimpleDto(postView);
+    }
+
+    @Benchmark
+    public PostWithLikeStatusResponseDto postViewToAuthenticatedDto() {
+        return postMapper.toAuthenticatedDto(postView);
+    }
+
+    @Benchmark
+    public List<CommentResponseDto> commentsToDtoList(Comments comments) {
+        return commentMapper.toDtoList(comments.list);
+    }
+}
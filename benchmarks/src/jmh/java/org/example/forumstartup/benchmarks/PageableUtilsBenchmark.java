@@ -0,0 +1,30 @@
+package org.example.forumstartup.benchmarks;
+
+import org.example.forumstartup.utils.PageableUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    The sort request parameter of the paged listings
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PageableUtilsBenchmark {
+
+    @Param({"", "createdAt", "likesCount,asc"})
+    public String sort;
+
+    @Benchmark
+    public Sort.Order parseSort() {
+        return PageableUtils.parseSort(sort);
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.forumstartup.benchmarks;
+
+import org.example.forumstartup.search.PostSearchDocument;
+import org.example.forumstartup.search.PostSearchIndex;
+import org.example.forumstartup.search.SearchHits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+    A search page from PostSearchIndex against the LIKE scan it replaced
+    (PostViewRepository.search, still used while the index is being built),
+    over the same generated posts, up to the 1M of the default generateDataset.
+    The scan walks the posts newest first and stops at the first page of
+    matches: cheap for a frequent word, a full table scan for a rare one or a
+    miss. The index scores every match in one pass, then ranks only the page.
+    The scan runs on a file-backed H2 database, so its pages are cached by H2
+    rather than read from disk as MariaDB would on a cold table.
+
+    The posts are generated twice from the same seed, into the table and into
+    the index, so a million of them fit in the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "pri", "cing", "fin", "tech", "mar", "ket", "ven", "ture", "sa", "as", "gro", "wth",
+            "ro", "und", "pay", "ment", "hi", "ring", "lau", "nch", "boo", "strap", "chu", "rn"
+    };
+    private static final int VOCABULARY = 5000;
+
+    private static final String LIKE_SCAN = """
+            SELECT post_id FROM posts
+            WHERE LOWER(title) LIKE ? OR LOWER(content) LIKE ?
+            ORDER BY created_at DESC, post_id DESC
+            LIMIT ?
+            """;
+
+    @Param({"20000", "1000000"})
+    public int posts;
+
+    // a word in about a third of the posts, one in under 1% of them, and one no post has
+    @Param({"common", "rare", "missing"})
+    public String frequency;
+
+    @Param({"12"})
+    public int pageSize;
+
+    private String query;
+    private PostSearchIndex index;
+    private Path database;
+    private Connection connection;
+    private PreparedStatement likeScan;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        query = switch (frequency) {
+            case "common" -> word(60);
+            case "rare" -> word(2500);
+            default -> "zzyzx";
+        };
+
+        index = new PostSearchIndex();
+        index.rebuild(this::documents);
+
+        // the benchmark jar merges the driver service files of H2 and MariaDB into one unreadable line
+        org.h2.Driver.load();
+        database = Files.createTempDirectory("search-benchmark");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + database.resolve("posts") + ";MODE=MariaDB");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("""
+                    CREATE TABLE posts (post_id BIGINT PRIMARY KEY, title VARCHAR(64), content VARCHAR(8192),
+                                        created_at TIMESTAMP)
+                    """);
+            ddl.execute("CREATE INDEX idx_posts_created_at ON posts (created_at, post_id)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO posts VALUES (?, ?, ?, ?)")) {
+            int batched = 0;
+            for (Iterator<PostSearchDocument> it = documents(); it.hasNext(); ) {
+                PostSearchDocument document = it.next();
+                insert.setLong(1, document.postId());
+                insert.setString(2, document.title());
+                insert.setString(3, document.content());
+                insert.setTimestamp(4, Timestamp.valueOf(document.createdAt()));
+                insert.addBatch();
+                if (++batched % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        likeScan = connection.prepareStatement(LIKE_SCAN);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException, IOException {
+        connection.close();
+        try (Stream<Path> files = Files.walk(database)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /*
+        The same posts on every call, generated as they are read
+     */
+    private Iterator<PostSearchDocument> documents() {
+        Random random = new Random(42);
+        return new Iterator<>() {
+            private long id = 1;
+
+            @Override
+            public boolean hasNext() {
+                return id <= posts;
+            }
+
+            @Override
+            public PostSearchDocument next() {
+                long postId = id++;
+                return new PostSearchDocument(postId, sentence(random, 4), sentence(random, 150),
+                        "founder" + postId % 1000, Fixtures.NOW.minusMinutes(posts - postId));
+            }
+        };
+    }
+
+    @Benchmark
+    public SearchHits index() {
+        return index.search(query, pageSize, postId -> true);
+    }
+
+    @Benchmark
+    public List<Long> likeScan() throws SQLException {
+        String pattern = "%" + query + "%";
+        likeScan.setString(1, pattern);
+        likeScan.setString(2, pattern);
+        likeScan.setInt(3, pageSize);
+
+        List<Long> ids = new ArrayList<>(pageSize);
+        try (ResultSet rows = likeScan.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    /*
+        Words with Zipf-like frequencies: rank r is drawn about 1/r as often as the first
+     */
+    private static String sentence(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            int rank = (int) Math.pow(VOCABULARY, random.nextDouble()) - 1;
+            text.append(i == 0 ? "" : " ").append(word(rank));
+        }
+        return text.toString();
+    }
+
+    private static String word(int rank) {
+        StringBuilder word = new StringBuilder();
+        int n = rank;
+        do {
+            word.append(SYLLABLES[n % SYLLABLES.length]);
+            n /= SYLLABLES.length;
+        } while (n > 0);
+        return word.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.forumstartup.benchmarks;
+
+import org.example.forumstartup.utils.TagConstants;
+import org.example.forumstartup.utils.TagNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    TagServiceImpl.normalize, which delegates to TagNormalizer, against the
+    regex chain it replaced. Already normalized names are the common case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TagNormalizerBenchmark {
+
+    @Param({"machine-learning", "  Machine   Learning ", "Series--A  Funding"})
+    public String name;
+
+    @Benchmark
+    public String normalizer() {
+        return TagNormalizer.normalizeOrNull(name);
+    }
+
+    @Benchmark
+    public String regex() {
+        String cleaned = name.trim()
+                .toLowerCase()
+                .replaceAll("\\s+", "-")
+                .replaceAll("-{2,}", "-");
+        return cleaned.matches(TagConstants.TAG_NORMALIZED_PATTERN) ? cleaned : null;
+    }
+}